@@ -0,0 +1,66 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+/**
+ * Build step writing a gzip (.gz) and a brotli (.br) copy next to every compressible static resource,
+ * so the EncodedResourceResolver serves them without compressing on each request. Maven runs it on the
+ * copied resources at process-resources, as a single-file program (see the pom). A variant is only
+ * written when it is smaller than the original.
+ */
+public class PrecompressStaticResources {
+
+    /** Extensions of the text resources worth compressing. */
+    private static final Set<String> EXTENSIONS = Set.of("css", "js", "svg", "json", "txt", "html");
+
+    /** Resources smaller than this gain too little to be worth a variant. */
+    private static final int MIN_SIZE = 1024;
+
+    public static void main (String[] args) throws IOException {
+        Path root = Path.of(args[0]);
+        if (!Files.isDirectory(root))
+            return;
+
+        Brotli4jLoader.ensureAvailability();
+        Encoder.Parameters brotli = new Encoder.Parameters().setQuality(11);
+
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(PrecompressStaticResources::isCompressible).toList()) {
+                byte[] content = Files.readAllBytes(file);
+                write(file, ".gz", gzip(content), content.length);
+                write(file, ".br", Encoder.compress(content, brotli), content.length);
+            }
+        }
+    }
+
+    private static boolean isCompressible (Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return Files.isRegularFile(file) && dot > 0 && EXTENSIONS.contains(name.substring(dot + 1))
+            && file.toFile().length() >= MIN_SIZE;
+    }
+
+    private static byte[] gzip (byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static void write (Path file, String suffix, byte[] compressed, int originalSize) throws IOException {
+        Path variant = file.resolveSibling(file.getFileName() + suffix);
+        if (compressed.length < originalSize)
+            Files.write(variant, compressed);
+        else
+            Files.deleteIfExists(variant);
+    }
+}
@@ -0,0 +1,112 @@
+package com.magic.academy.cursedpotions.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.magic.academy.cursedpotions.CursedPotionsApplication;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+/**
+ * Load test of the admission control: a storm of creations through the JSON API next to a few clients
+ * listing the catalog, over real HTTP, with the write limits off and on. The listing is read from the
+ * database on every call, since each creation invalidates the query cache, so it competes with the
+ * writes for the connection pool. Writers rejected with a 503 wait for the Retry-After before trying
+ * again, as a well-behaved client would; that wait is part of their latency.
+ */
+@BenchmarkMode (Mode.SampleTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 2, time = 3)
+@Measurement (iterations = 3, time = 5)
+@Fork (1)
+@State (Scope.Benchmark)
+public class PotionAdmissionBenchmark {
+
+    /** Whether the write endpoints are limited. */
+    @Param ({ "false", "true" })
+    public boolean admissionControl;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    private final AtomicLong nameSequence = new AtomicLong();
+
+    @Setup (Level.Trial)
+    public void startApplication () {
+        context = new SpringApplicationBuilder(CursedPotionsApplication.class)
+            .run("--server.port=0",
+                 "--spring.datasource.url=jdbc:h2:mem:potions_admission;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                 "--spring.datasource.username=sa",
+                 "--spring.datasource.password=",
+                 "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                 "--spring.datasource.hikari.maximum-pool-size=5",
+                 "--potions.admission.enabled=" + admissionControl,
+                 "--potions.admission.retry-after=1s",
+                 "--logging.level.root=WARN");
+
+        PotionRepository potionRepository = context.getBean(PotionRepository.class);
+        for (int i = 0; i < 500; i++)
+            potionRepository.save(new Potion("Stocked potion " + i, "Already on the shelf", 1 + i % 100));
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        client = HttpClient.newHttpClient();
+    }
+
+    @TearDown (Level.Trial)
+    public void stopApplication () {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    @Group ("writeStorm")
+    @GroupThreads (32)
+    public int createPotion () throws IOException, InterruptedException {
+        String body = "{\"name\": \"Brewed potion " + nameSequence.incrementAndGet()
+            + "\", \"effect\": \"Freshly brewed\", \"levelOfRisk\": 42}";
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/potions"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(), HttpResponse.BodyHandlers.discarding());
+
+        if (response.statusCode() == 503) {
+            long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(retryAfter));
+        }
+        return response.statusCode();
+    }
+
+    @Benchmark
+    @Group ("writeStorm")
+    @GroupThreads (4)
+    public int listCatalog () throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/potions?size=24")).build(),
+            HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,164 @@
+package com.magic.academy.cursedpotions.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import com.magic.academy.cursedpotions.CursedPotionsApplication;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+import com.magic.academy.cursedpotions.service.PotionImportService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Database round trips of the repository read paths with the Hibernate second-level, natural-ID
+ * and query caches on and off. The regions are sized for the whole inventory and warmed before
+ * measuring, so the cached runs show the steady state; the findByIdWhileEditing group keeps one
+ * thread editing random potions while three read them, to show how much of the cache survives the
+ * writes. After each iteration the number of SQL statements per call and the hit ratio of the
+ * second-level cache are printed from the Hibernate statistics.
+ */
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 5, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+@State (Scope.Benchmark)
+public class PotionReadPathBenchmark {
+
+    /** Whether the Hibernate second-level and query caches are enabled. */
+    @Param ({ "true", "false" })
+    public boolean secondLevelCache;
+
+    /** Number of potions loaded before measuring, all of them fitting in the cache regions. */
+    private static final int INVENTORY_SIZE = 5_000;
+
+    private ConfigurableApplicationContext context;
+    private PotionRepository potionRepository;
+    private Statistics statistics;
+
+    private long firstId;
+    private final LongAdder calls = new LongAdder();
+    private long statementsBefore;
+    private long hitsBefore;
+    private long missesBefore;
+
+    @Setup (Level.Trial)
+    public void startApplication () {
+        context = new SpringApplicationBuilder(CursedPotionsApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:potions_read_path;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                 "--spring.datasource.username=sa",
+                 "--spring.datasource.password=",
+                 "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                 "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                 "--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache,
+                 "--potions.cache.second-level.query-size=" + 2 * INVENTORY_SIZE,
+                 "--logging.level.root=WARN");
+
+        potionRepository = context.getBean(PotionRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        List<Potion> potions = new ArrayList<>(INVENTORY_SIZE);
+        for (int i = 0; i < INVENTORY_SIZE; i++)
+            potions.add(new Potion("Seeded potion " + i, "Seeded effect " + i, 1 + i % 100));
+        context.getBean(PotionImportService.class).importPotions(potions);
+
+        firstId = potionRepository.findAllByOrderByIdAsc(Limit.of(1)).get(0).getId();
+        for (long id = firstId; id < firstId + INVENTORY_SIZE; id++) {
+            potionRepository.findById(id);
+            potionRepository.loadByName("Seeded potion " + (id - firstId));
+            potionRepository.findByIdGreaterThanOrderByIdAsc(id, Limit.of(20));
+        }
+    }
+
+    @TearDown (Level.Trial)
+    public void stopApplication () {
+        context.close();
+    }
+
+    @Setup (Level.Iteration)
+    public void resetCounters () {
+        calls.reset();
+        statementsBefore = statistics.getPrepareStatementCount();
+        hitsBefore = statistics.getSecondLevelCacheHitCount();
+        missesBefore = statistics.getSecondLevelCacheMissCount();
+    }
+
+    @TearDown (Level.Iteration)
+    public void printStatementsPerCall (BenchmarkParams params) {
+        long statements = statistics.getPrepareStatementCount() - statementsBefore;
+        long hits = statistics.getSecondLevelCacheHitCount() - hitsBefore;
+        long misses = statistics.getSecondLevelCacheMissCount() - missesBefore;
+        System.out.printf("%n%s (secondLevelCache=%s): %.3f SQL statements per call, %.1f%% second-level cache hits%n",
+            params.getBenchmark(), secondLevelCache, (double) statements / Math.max(1, calls.sum()),
+            100.0 * hits / Math.max(1, hits + misses));
+    }
+
+    @Benchmark
+    public Potion findById () {
+        calls.increment();
+        return potionRepository.findById(randomId()).orElseThrow();
+    }
+
+    @Benchmark
+    public Potion loadByName () {
+        calls.increment();
+        return potionRepository.loadByName("Seeded potion " + (randomId() - firstId)).orElseThrow();
+    }
+
+    @Benchmark
+    public List<Potion> getCatalogPage () {
+        calls.increment();
+        return potionRepository.findByIdGreaterThanOrderByIdAsc(randomId(), Limit.of(20));
+    }
+
+    @Benchmark
+    @Group ("findByIdWhileEditing")
+    @GroupThreads (3)
+    public Potion readWhileEditing () {
+        calls.increment();
+        return potionRepository.findById(randomId()).orElseThrow();
+    }
+
+    /** Edits a random potion at its current version; each edit evicts only that potion. */
+    @Benchmark
+    @Group ("findByIdWhileEditing")
+    @GroupThreads (1)
+    public int editWhileReading () {
+        calls.increment();
+        Potion potion = potionRepository.findById(randomId()).orElseThrow();
+        return potionRepository.updateIfVersionMatches(potion.getId(), potion.getVersion(),
+            "Edited effect " + (potion.getVersion() + 1), null, null);
+    }
+
+    private long randomId () {
+        return ThreadLocalRandom.current().nextLong(firstId, firstId + INVENTORY_SIZE);
+    }
+}
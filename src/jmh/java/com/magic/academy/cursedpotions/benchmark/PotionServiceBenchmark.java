@@ -0,0 +1,184 @@
+package com.magic.academy.cursedpotions.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import com.magic.academy.cursedpotions.CursedPotionsApplication;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionFilter;
+import com.magic.academy.cursedpotions.model.PotionPage;
+import com.magic.academy.cursedpotions.model.PotionSearchHit;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+import com.magic.academy.cursedpotions.service.PotionImportService;
+import com.magic.academy.cursedpotions.service.PotionSearchService;
+import com.magic.academy.cursedpotions.service.PotionService;
+
+/**
+ * Throughput of the PotionService hot paths against an embedded H2 database in MySQL mode,
+ * for inventories from 100 to 1M potions. Run with the jmh profile, which also enables the GC
+ * profiler to report the allocation rate per operation. Searches are sampled for their latency
+ * distribution instead of their throughput.
+ */
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+@State (Scope.Benchmark)
+public class PotionServiceBenchmark {
+
+    /** Number of potions loaded before measuring. */
+    @Param ({ "100", "10000", "1000000" })
+    public int inventorySize;
+
+    /** Cache setup: "second-level" as deployed, or "none" to measure the database path without any cache. */
+    @Param ({ "second-level", "none" })
+    public String cache;
+
+    private static final int SEED_CHUNK = 50_000;
+
+    /** Vocabulary of the seeded effects, so that search terms have realistic selectivities. */
+    private static final String[] EFFECT_WORDS = {
+        "invisibility", "sleep", "luck", "strength", "silence", "flight", "fire", "frost", "madness",
+        "memory", "speed", "poison", "healing", "charm", "fear", "growth", "shadow", "truth", "water" };
+
+    /** Query with two moderately common terms, each found in about 5% of the inventory. */
+    private static final String SELECTIVE_QUERY = "potions that cause invisibility and frost";
+
+    /** Query matching every potion of the inventory. */
+    private static final String BROAD_QUERY = "seeded effect";
+
+    /** Filter served by the (legal, level_of_risk) index: illegal potions with risk 95 to 100. */
+    private static final PotionFilter ILLEGAL_AND_VOLATILE = new PotionFilter(false, 95, 100, null);
+
+    private ConfigurableApplicationContext context;
+    private PotionService potionService;
+    private PotionRepository potionRepository;
+    private PotionSearchService potionSearchService;
+
+    private final AtomicLong nameSequence = new AtomicLong();
+    private long firstId;
+    private long lastId;
+
+    @Setup (Level.Trial)
+    public void startApplication () {
+        context = new SpringApplicationBuilder(CursedPotionsApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:potions_benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                 "--spring.datasource.username=sa",
+                 "--spring.datasource.password=",
+                 "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                 "--spring.jpa.show-sql=false",
+                 "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + !"none".equals(cache),
+                 "--spring.jpa.properties.hibernate.cache.use_query_cache=" + !"none".equals(cache),
+                 "--logging.level.root=WARN");
+
+        potionService = context.getBean(PotionService.class);
+        potionRepository = context.getBean(PotionRepository.class);
+        PotionImportService potionImportService = context.getBean(PotionImportService.class);
+
+        for (int from = 0; from < inventorySize; from += SEED_CHUNK) {
+            List<Potion> chunk = new ArrayList<>(SEED_CHUNK);
+            for (int i = from; i < Math.min(from + SEED_CHUNK, inventorySize); i++)
+                chunk.add(new Potion("Seeded potion " + i, "Seeded effect number " + i + " causing "
+                    + EFFECT_WORDS[i % EFFECT_WORDS.length] + " and " + EFFECT_WORDS[(i / 7) % EFFECT_WORDS.length],
+                    1 + i % 100));
+            potionImportService.importPotions(chunk);
+        }
+
+        firstId = potionRepository.findAllByOrderByIdAsc(Limit.of(1)).get(0).getId();
+        lastId = firstId + inventorySize - 1;
+
+        potionSearchService = context.getBean(PotionSearchService.class);
+        long start = System.nanoTime();
+        while (potionSearchService.rebuildIndex() < 0)
+            Thread.onSpinWait();
+        System.out.printf("%nSearch index rebuilt for %d potions in %d ms%n",
+            potionSearchService.getIndexedCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TearDown (Level.Trial)
+    public void stopApplication () {
+        context.close();
+    }
+
+    /** A potion inserted before each removal, so every invocation deletes an existing row. */
+    @State (Scope.Thread)
+    public static class RemovalTarget {
+        long id;
+
+        @Setup (Level.Invocation)
+        public void insert (PotionServiceBenchmark benchmark) {
+            String name = "Doomed potion " + benchmark.nameSequence.incrementAndGet();
+            id = benchmark.potionRepository.save(new Potion(null, name, "Soon destroyed", 50, true)).getId();
+        }
+    }
+
+    @Benchmark
+    public Potion addPotion () {
+        Potion potion = new Potion("Brewed potion " + nameSequence.incrementAndGet(), "Freshly brewed", 42);
+        potionService.addPotion(potion);
+        return potion;
+    }
+
+    @Benchmark
+    public Potion findPotionById () {
+        return potionService.findPotionById(ThreadLocalRandom.current().nextLong(firstId, lastId + 1));
+    }
+
+    @Benchmark
+    public List<Potion> getInventory () {
+        return potionService.getInventory();
+    }
+
+    @Benchmark
+    public PotionPage getInventoryPage () {
+        long after = ThreadLocalRandom.current().nextLong(firstId - 1, lastId);
+        return potionService.getInventoryPage(after, null, PotionService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public PotionPage getFilteredInventoryPage () {
+        return potionService.getInventoryPage(ILLEGAL_AND_VOLATILE, null, null, PotionService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    @BenchmarkMode (Mode.SampleTime)
+    @OutputTimeUnit (TimeUnit.MICROSECONDS)
+    public List<PotionSearchHit> searchSelectiveQuery () {
+        return potionSearchService.search(SELECTIVE_QUERY, PotionSearchService.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    @BenchmarkMode (Mode.SampleTime)
+    @OutputTimeUnit (TimeUnit.MICROSECONDS)
+    public List<PotionSearchHit> searchBroadQuery () {
+        return potionSearchService.search(BROAD_QUERY, PotionSearchService.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public void removePotionById (RemovalTarget target) {
+        potionService.removePotionById(target.id);
+    }
+}
@@ -0,0 +1,76 @@
+package com.magic.academy.cursedpotions.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.magic.academy.cursedpotions.CursedPotionsApplication;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.service.PotionService;
+
+/**
+ * Throughput and latency of PotionService.addPotion under a burst of concurrent creations, with one
+ * transaction per request and with the group-commit pipeline. Every thread creates a new name, so no
+ * creation fails; the latency percentiles include the time a creation waits for its batch.
+ */
+@BenchmarkMode ({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+@Threads (64)
+@State (Scope.Benchmark)
+public class PotionWriteBenchmark {
+
+    /** Whether creations go through the group-commit pipeline. */
+    @Param ({ "false", "true" })
+    public boolean writeBatching;
+
+    private ConfigurableApplicationContext context;
+    private PotionService potionService;
+
+    private final AtomicLong nameSequence = new AtomicLong();
+
+    @Setup (Level.Trial)
+    public void startApplication () {
+        context = new SpringApplicationBuilder(CursedPotionsApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:potions_write;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                 "--spring.datasource.username=sa",
+                 "--spring.datasource.password=",
+                 "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                 "--potions.write-batching.enabled=" + writeBatching,
+                 "--logging.level.root=WARN");
+
+        potionService = context.getBean(PotionService.class);
+    }
+
+    @TearDown (Level.Trial)
+    public void stopApplication () {
+        context.close();
+    }
+
+    @Benchmark
+    public Potion addPotion () {
+        Potion potion = new Potion("Brewed potion " + nameSequence.incrementAndGet(), "Freshly brewed", 42);
+        potionService.addPotion(potion);
+        return potion;
+    }
+}
@@ -0,0 +1,161 @@
+package com.magic.academy.cursedpotions.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Summary of a load test run, written as JSON with a stable layout so the summaries of two releases can be diffed.
+ * Latencies are in milliseconds.
+ * @param target the base URL the requests were sent to
+ * @param settings the options of the run
+ * @param operations the results of each operation, in the order of the Operation enum
+ * @param total the results of all the operations together
+ * @param maxSchedulerLagMs the longest the generator was late sending a request; if it is large, the generator
+ *                          itself was saturated and the run should be repeated at a lower rate
+ */
+public record LoadReport (String target, Map<String, Object> settings, Map<String, OperationReport> operations,
+                          OperationReport total, double maxSchedulerLagMs) {
+
+    /** Percentiles shown on the console and in the summary. */
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    /**
+     * Results of one operation over the recorded part of the run.
+     * @param endpoint the method and path, or "all" for the total
+     * @param requests the requests due while recording, dropped ones included
+     * @param dropped the requests never sent because too many were waiting
+     * @param errors the requests that got no response
+     * @param statuses the responses per HTTP status
+     * @param throughput the responses per second
+     * @param responseTime latencies from the time each request was due
+     * @param serviceTime latencies from the time each request was sent
+     */
+    public record OperationReport (String endpoint, long requests, long dropped, long errors, Map<String, Long> statuses,
+                                   double throughput, Latency responseTime, Latency serviceTime) { }
+
+    /**
+     * Latency distribution, in milliseconds.
+     */
+    public record Latency (double p50, double p90, double p99, double p999, double max, double mean) {
+
+        static Latency of (Histogram micros) {
+            return new Latency(millis(micros.getValueAtPercentile(PERCENTILES[0])),
+                millis(micros.getValueAtPercentile(PERCENTILES[1])), millis(micros.getValueAtPercentile(PERCENTILES[2])),
+                millis(micros.getValueAtPercentile(PERCENTILES[3])), millis(micros.getMaxValue()),
+                millis(micros.getMean()));
+        }
+
+        private static double millis (double micros) {
+            return Math.round(micros) / 1000.0;
+        }
+    }
+
+    /**
+     * Builds the summary of a run.
+     * @param options the options of the run
+     * @param target the base URL the requests were sent to
+     * @param stats the recorded results of each operation
+     * @param maxSchedulerLagNanos the longest the generator was late sending a request
+     * @return the summary
+     */
+    public static LoadReport of (LoadTestOptions options, String target, Map<Operation, OperationStats> stats,
+                                 long maxSchedulerLagNanos) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate", options.rate());
+        settings.put("warmup", options.warmup().toString());
+        settings.put("duration", options.duration().toString());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        options.mix().forEach((operation, weight) -> mix.put(operation.getKey(), weight));
+        settings.put("mix", mix);
+        settings.put("readPotions", options.readPotions());
+        settings.put("randomSeed", options.randomSeed());
+        settings.put("maxInFlight", options.maxInFlight());
+        settings.put("timeout", options.timeout().toString());
+
+        double seconds = options.duration().toNanos() / 1e9;
+        Map<String, OperationReport> operations = new LinkedHashMap<>();
+        Histogram allResponseTimes = new Histogram(3);
+        Histogram allServiceTimes = new Histogram(3);
+        Map<String, Long> allStatuses = new LinkedHashMap<>();
+        long allDropped = 0;
+        long allErrors = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operation = entry.getValue();
+            Map<String, Long> statuses = new LinkedHashMap<>();
+            operation.getStatuses().forEach((status, count) -> statuses.put(String.valueOf(status), count));
+            operations.put(entry.getKey().getKey(), report(entry.getKey().getEndpoint(), operation.getResponseTimes(),
+                operation.getServiceTimes(), statuses, operation.getDropped(), operation.getErrors(), seconds));
+
+            allResponseTimes.add(operation.getResponseTimes());
+            allServiceTimes.add(operation.getServiceTimes());
+            statuses.forEach((status, count) -> allStatuses.merge(status, count, Long::sum));
+            allDropped += operation.getDropped();
+            allErrors += operation.getErrors();
+        }
+        Map<String, Long> sortedStatuses = new LinkedHashMap<>();
+        allStatuses.keySet().stream().sorted().forEach(status -> sortedStatuses.put(status, allStatuses.get(status)));
+
+        return new LoadReport(target, settings, operations,
+            report("all", allResponseTimes, allServiceTimes, sortedStatuses, allDropped, allErrors, seconds),
+            Math.round(maxSchedulerLagNanos / 1000.0) / 1000.0);
+    }
+
+    private static OperationReport report (String endpoint, Histogram responseTimes, Histogram serviceTimes,
+                                           Map<String, Long> statuses, long dropped, long errors, double seconds) {
+        long responses = statuses.values().stream().mapToLong(Long::longValue).sum();
+        return new OperationReport(endpoint, responseTimes.getTotalCount() + dropped, dropped, errors, statuses,
+            Math.round(responses / seconds * 10) / 10.0, Latency.of(responseTimes), Latency.of(serviceTimes));
+    }
+
+    /**
+     * Prints the results as a table.
+     * @param out where to print
+     */
+    public void print (PrintStream out) {
+        out.printf("%-14s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "dropped", "errors",
+            "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        operations.values().forEach(operation -> print(out, operation));
+        print(out, total);
+        out.printf("Statuses: %s. Latencies count from the time each request was due.%n", total.statuses());
+        if (maxSchedulerLagMs > 10)
+            out.printf("The generator fell %.1f ms behind its schedule: lower the rate or give it more CPU.%n",
+                maxSchedulerLagMs);
+    }
+
+    private static void print (PrintStream out, OperationReport operation) {
+        Latency latency = operation.responseTime();
+        out.printf("%-14s %9d %8d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation.endpoint(), operation.requests(),
+            operation.dropped(), operation.errors(), operation.throughput(), latency.p50(), latency.p90(), latency.p99(),
+            latency.p999(), latency.max());
+    }
+
+    /**
+     * Writes the summary as JSON, and the full response time distribution of each operation next to it
+     * ({operation}.hgrm, in milliseconds), to be plotted with the HdrHistogram tools.
+     * @param output the JSON file
+     * @param stats the recorded results of each operation
+     * @throws IOException if a file cannot be written
+     */
+    public void write (Path output, Map<Operation, OperationStats> stats) throws IOException {
+        Path directory = output.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        JsonMapper jsonMapper = JsonMapper.builder().enable(SerializationFeature.INDENT_OUTPUT).build();
+        Files.writeString(output, jsonMapper.writeValueAsString(this) + System.lineSeparator());
+
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey().getKey() + ".hgrm")))) {
+                entry.getValue().getResponseTimes().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+}
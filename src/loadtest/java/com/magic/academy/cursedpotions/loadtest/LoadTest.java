@@ -0,0 +1,159 @@
+package com.magic.academy.cursedpotions.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.magic.academy.cursedpotions.CursedPotionsApplication;
+
+/**
+ * Open-model HTTP load generator. Requests are started at a constant rate, each one on its own virtual thread,
+ * whether or not the earlier ones got their response, the way independent users arrive at a site. Their latency
+ * is measured from the time they were due, so when the application stalls every request it held back is charged
+ * the wait; a closed-loop tool, whose clients wait for a response before sending the next request, would send
+ * fewer requests during the stall and hide it (coordinated omission).
+ * Without a --target, the application is started in this JVM on an embedded H2 database in MySQL mode.
+ * Run with: ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.args="--rate=200 --duration=60s"
+ */
+public class LoadTest {
+
+    private final LoadTestOptions options;
+    private final URI target;
+    private final Workload workload;
+
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public LoadTest (LoadTestOptions options, URI target) {
+        this.options = options;
+        this.target = target;
+        this.workload = new Workload(options, target);
+        options.mix().keySet().forEach(operation -> stats.put(operation, new OperationStats()));
+    }
+
+    public static void main (String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        ConfigurableApplicationContext context = options.target() == null ? startApplication(options) : null;
+        try {
+            URI target = context == null ? options.target()
+                : URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+
+            LoadTest loadTest = new LoadTest(options, target);
+            LoadReport report = loadTest.run();
+
+            report.print(System.out);
+            report.write(options.output(), loadTest.stats);
+            System.out.println("Summary written to " + options.output().toAbsolutePath());
+        } finally {
+            if (context != null)
+                context.close();
+        }
+    }
+
+    /**
+     * Seeds the potions, sends the scheduled requests and waits for the last responses.
+     * @return the summary of the recorded part of the run
+     * @throws IOException if the potions cannot be seeded
+     * @throws InterruptedException if interrupted while seeding
+     */
+    public LoadReport run () throws IOException, InterruptedException {
+        long maxLag = 0;
+        try (HttpClient client = HttpClient.newBuilder()
+                 .version(HttpClient.Version.HTTP_1_1)
+                 .followRedirects(HttpClient.Redirect.NEVER)
+                 .connectTimeout(options.timeout())
+                 .build()) {
+            workload.seed(client);
+            System.out.printf("Sending %d requests to %s at %.1f/s: %s warmup, then %s recorded%n",
+                workload.size(), target, options.rate(), options.warmup(), options.duration());
+
+            try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+                double interval = 1e9 / options.rate();
+                long start = System.nanoTime();
+                long recordFrom = start + options.warmup().toNanos();
+
+                for (int i = 0; i < workload.size(); i++) {
+                    long due = start + (long) (i * interval);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0)
+                        LockSupport.parkNanos(wait);
+                    else if (due >= recordFrom)
+                        maxLag = Math.max(maxLag, -wait);
+
+                    OperationStats recorder = due >= recordFrom ? stats.get(workload.operation(i)) : null;
+                    if (inFlight.incrementAndGet() > options.maxInFlight()) {
+                        inFlight.decrementAndGet();
+                        if (recorder != null)
+                            recorder.recordDropped();
+                        continue;
+                    }
+
+                    int index = i;
+                    senders.execute(() -> send(client, index, due, recorder));
+                }
+            }
+        }
+        return LoadReport.of(options, target.toString(), stats, maxLag);
+    }
+
+    /**
+     * Sends one request and records its outcome, unless it is part of the warmup.
+     */
+    private void send (HttpClient client, int index, long due, OperationStats recorder) {
+        try {
+            HttpRequest request = workload.request(index, options.timeout());
+            long sent = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                long now = System.nanoTime();
+                if (recorder != null)
+                    recorder.recordResponse(response.statusCode(), now - due, now - sent);
+            } catch (IOException e) {
+                long now = System.nanoTime();
+                if (recorder != null)
+                    recorder.recordError(now - due, now - sent);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Starts the application on a random port with an in-memory database. The application arguments of the
+     * options override the defaults set here.
+     */
+    private static ConfigurableApplicationContext startApplication (LoadTestOptions options) {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        for (String argument : List.of("--server.port=0",
+                                       "--spring.datasource.url=jdbc:h2:mem:potions_loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                                       "--spring.datasource.username=sa",
+                                       "--spring.datasource.password=",
+                                       "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                                       "--logging.level.root=WARN"))
+            arguments.put(argument.substring(0, argument.indexOf('=')), argument);
+        for (String argument : options.applicationArgs())
+            arguments.put(argument.substring(0, argument.indexOf('=')), argument);
+
+        // DevTools would restart the main method in a new class loader, with the application arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(CursedPotionsApplication.class)
+            .run(arguments.values().toArray(String[]::new));
+    }
+}
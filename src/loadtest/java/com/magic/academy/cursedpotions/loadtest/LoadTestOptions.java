@@ -0,0 +1,103 @@
+package com.magic.academy.cursedpotions.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Settings of a load test run, read from --name=value arguments. Arguments the load test does not know
+ * are handed to the embedded application, e.g. --spring.datasource.hikari.maximum-pool-size=5.
+ * @param target the base URL of a running application, or null to start one on an embedded H2 database
+ * @param rate the requests started per second, whatever the response times
+ * @param warmup how long to run before recording
+ * @param duration how long to record once warmed up
+ * @param mix the relative weight of each operation
+ * @param readPotions the number of seeded potions read by the catalog and details operations, never deleted
+ * @param randomSeed the seed of the operation schedule and the request parameters, so runs are repeatable
+ * @param maxInFlight the requests waiting for a response above which new ones are dropped (and counted)
+ * @param timeout how long a request may wait for its response
+ * @param output the JSON summary file; the HdrHistogram percentile distributions are written next to it
+ * @param applicationArgs the arguments for the embedded application
+ */
+public record LoadTestOptions (URI target, double rate, Duration warmup, Duration duration,
+                               Map<Operation, Integer> mix, int readPotions, long randomSeed, int maxInFlight,
+                               Duration timeout, Path output, List<String> applicationArgs) {
+
+    /**
+     * Parses the command line.
+     * @param args the arguments, all of them --name=value
+     * @return the options, with defaults for the ones not given
+     * @throws IllegalArgumentException if an argument is malformed or out of range
+     */
+    public static LoadTestOptions parse (String... args) {
+        URI target = null;
+        double rate = 200;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(60);
+        Map<Operation, Integer> mix = parseMix("catalog=60,details=30,create=5,delete=5");
+        int readPotions = 1000;
+        long randomSeed = 42;
+        int maxInFlight = 2000;
+        Duration timeout = Duration.ofSeconds(10);
+        Path output = Path.of("target", "loadtest", "summary.json");
+        List<String> applicationArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0)
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "target" -> target = URI.create(value.endsWith("/") ? value.substring(0, value.length() - 1) : value);
+                case "rate" -> rate = Double.parseDouble(value);
+                case "warmup" -> warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> duration = DurationStyle.detectAndParse(value);
+                case "mix" -> mix = parseMix(value);
+                case "read-potions" -> readPotions = Integer.parseInt(value);
+                case "random-seed" -> randomSeed = Long.parseLong(value);
+                case "max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                case "timeout" -> timeout = DurationStyle.detectAndParse(value);
+                case "output" -> output = Path.of(value);
+                default -> applicationArgs.add(arg);
+            }
+        }
+
+        if (rate <= 0 || duration.isNegative() || duration.isZero() || warmup.isNegative())
+            throw new IllegalArgumentException("The rate and duration must be positive");
+        if (readPotions < 1 || maxInFlight < 1)
+            throw new IllegalArgumentException("The read potions and max in flight must be at least 1");
+
+        return new LoadTestOptions(target, rate, warmup, duration, mix, readPotions, randomSeed, maxInFlight,
+            timeout, output, List.copyOf(applicationArgs));
+    }
+
+    /**
+     * Parses an operation mix such as catalog=60,details=30,create=5,delete=5. Missing operations get no weight.
+     */
+    private static Map<Operation, Integer> parseMix (String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Expected operation=weight in the mix, got: " + entry);
+
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0)
+                throw new IllegalArgumentException("Negative weight for " + operation.getKey());
+            mix.put(operation, weight);
+        }
+
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0)
+            throw new IllegalArgumentException("The mix needs at least one operation with a weight");
+        return Collections.unmodifiableMap(mix);
+    }
+}
@@ -0,0 +1,27 @@
+package com.magic.academy.cursedpotions.loadtest;
+
+/**
+ * The user actions driven by the load test, each one a single HTTP request (redirects are not followed).
+ */
+public enum Operation {
+    /** A page of the catalog, starting after a random seeded potion. */
+    CATALOG("GET /catalog"),
+    /** The details page of a seeded potion that is never deleted. */
+    DETAILS("GET /details"),
+    /** The creation form submitted with a fresh potion. */
+    CREATE("POST /create"),
+    /** The removal of a seeded potion, each one deleted once. */
+    DELETE("GET /delete");
+
+    private final String endpoint;
+
+    Operation (String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /** @return the method and path of the request, e.g. "GET /catalog" */
+    public String getEndpoint () { return endpoint; }
+
+    /** @return the name used in the options and the reports, e.g. "catalog" */
+    public String getKey () { return name().toLowerCase(); }
+}
@@ -0,0 +1,77 @@
+package com.magic.academy.cursedpotions.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * What happened to the recorded requests of one operation. Latencies are kept in microseconds in two histograms:
+ * the response time counts from the moment the schedule meant to send the request, so a stall of the application
+ * is charged to every request it held back (no coordinated omission); the service time counts from the moment the
+ * request actually left, and is what a closed-loop tool would report.
+ */
+public class OperationStats {
+
+    private final Histogram responseTimes = new ConcurrentHistogram(3);
+    private final Histogram serviceTimes = new ConcurrentHistogram(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Records a request that got a response, whatever its status.
+     * @param status the HTTP status
+     * @param responseNanos the time since the request was due
+     * @param serviceNanos the time since the request was sent
+     */
+    public void recordResponse (int status, long responseNanos, long serviceNanos) {
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        recordTimes(responseNanos, serviceNanos);
+    }
+
+    /**
+     * Records a request that failed without a response, e.g. a timeout or a refused connection.
+     * @param responseNanos the time since the request was due
+     * @param serviceNanos the time since the request was sent
+     */
+    public void recordError (long responseNanos, long serviceNanos) {
+        errors.increment();
+        recordTimes(responseNanos, serviceNanos);
+    }
+
+    /**
+     * Records a request that was never sent because too many were waiting for a response.
+     */
+    public void recordDropped () {
+        dropped.increment();
+    }
+
+    private void recordTimes (long responseNanos, long serviceNanos) {
+        responseTimes.recordValue(TimeUnit.NANOSECONDS.toMicros(responseNanos));
+        serviceTimes.recordValue(TimeUnit.NANOSECONDS.toMicros(serviceNanos));
+    }
+
+    /** @return the response times in microseconds, from the due time */
+    public Histogram getResponseTimes () { return responseTimes; }
+
+    /** @return the service times in microseconds, from the send time */
+    public Histogram getServiceTimes () { return serviceTimes; }
+
+    /** @return the number of responses per HTTP status, ordered by status */
+    public Map<Integer, Long> getStatuses () {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    /** @return the requests that failed without a response */
+    public long getErrors () { return errors.sum(); }
+
+    /** @return the requests that were never sent */
+    public long getDropped () { return dropped.sum(); }
+}
@@ -0,0 +1,179 @@
+package com.magic.academy.cursedpotions.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * The requests of a run, decided before it starts. The sequence of operations is drawn from the mix with a fixed
+ * seed, and so are the potions each request reads, so two runs with the same options send the same requests and
+ * can be compared. The potions are seeded through the import endpoint: a read set shared by the catalog and details
+ * operations, plus exactly one potion per scheduled delete, so no delete targets a missing potion.
+ */
+public class Workload {
+
+    private static final String SEED_EFFECT = "Seeded for the load test";
+
+    private final URI target;
+    private final long randomSeed;
+    private final int readPotions;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    /** Operation ordinal of each request, in sending order. */
+    private final byte[] schedule;
+    private final Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+
+    /** Prefix of the potion names of this run, unique so a run never collides with an earlier one. */
+    private final String namePrefix = "Load test potion " + Long.toString(System.currentTimeMillis(), 36) + "-";
+
+    private long[] readIds;
+    private final ConcurrentLinkedQueue<Long> deleteIds = new ConcurrentLinkedQueue<>();
+    private final AtomicLong createdPotions = new AtomicLong();
+
+    /**
+     * Draws the operation schedule.
+     * @param options the run settings
+     * @param target the base URL of the application
+     */
+    public Workload (LoadTestOptions options, URI target) {
+        this.target = target;
+        this.randomSeed = options.randomSeed();
+        this.readPotions = options.readPotions();
+
+        double seconds = (options.warmup().toNanos() + options.duration().toNanos()) / 1e9;
+        long requests = (long) Math.ceil(options.rate() * seconds);
+        if (requests > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many requests for one run: " + requests);
+
+        Operation[] operations = options.mix().keySet().toArray(Operation[]::new);
+        int[] cumulativeWeights = new int[operations.length];
+        int totalWeight = 0;
+        for (int i = 0; i < operations.length; i++) {
+            totalWeight += options.mix().get(operations[i]);
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        SplittableRandom random = new SplittableRandom(randomSeed);
+        schedule = new byte[(int) requests];
+        for (int i = 0; i < schedule.length; i++) {
+            int draw = random.nextInt(totalWeight);
+            int pick = 0;
+            while (draw >= cumulativeWeights[pick])
+                pick++;
+            schedule[i] = (byte) operations[pick].ordinal();
+            counts.merge(operations[pick], 1, Integer::sum);
+        }
+    }
+
+    /** @return the number of requests of the run, warmup included */
+    public int size () { return schedule.length; }
+
+    /**
+     * Gets the operation of a request.
+     * @param index the position of the request in the run
+     * @return the operation
+     */
+    public Operation operation (int index) {
+        return Operation.values()[schedule[index]];
+    }
+
+    /**
+     * Imports the potions the run needs and collects their IDs.
+     * @param client the client to send the import with
+     * @throws IOException if the application cannot be reached
+     * @throws InterruptedException if interrupted while waiting for a response
+     * @throws IllegalStateException if the application does not take the potions
+     */
+    public void seed (HttpClient client) throws IOException, InterruptedException {
+        int deletes = counts.getOrDefault(Operation.DELETE, 0);
+        List<Map<String, Object>> potions = new ArrayList<>(readPotions + deletes);
+        for (int i = 0; i < readPotions + deletes; i++)
+            potions.add(Map.of("name", namePrefix + i, "effect", SEED_EFFECT, "levelOfRisk", 1 + i % 100));
+
+        JsonNode imported = sendForJson(client, HttpRequest.newBuilder(target.resolve("/import"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(jsonMapper.writeValueAsString(potions))));
+        if (imported.get("imported").asInt() != potions.size())
+            throw new IllegalStateException("The application did not import every seeded potion: " + imported);
+
+        // The IDs grow with insertion order, so the seeded potions follow the first one
+        String firstName = URLEncoder.encode(namePrefix + 0, StandardCharsets.UTF_8).replace("+", "%20");
+        long after = sendForJson(client, HttpRequest.newBuilder(target.resolve("/api/potions/by-name/" + firstName)))
+            .get("id").asLong() - 1;
+
+        List<Long> ids = new ArrayList<>(potions.size());
+        while (ids.size() < potions.size()) {
+            JsonNode page = sendForJson(client, HttpRequest.newBuilder(
+                target.resolve("/api/potions?size=100&after=" + after)));
+            for (JsonNode potion : page.get("potions")) {
+                if (potion.get("name").asString().startsWith(namePrefix))
+                    ids.add(potion.get("id").asLong());
+            }
+            if (page.get("nextCursor").isNull())
+                break;
+            after = page.get("nextCursor").asLong();
+        }
+        if (ids.size() < potions.size())
+            throw new IllegalStateException("Found " + ids.size() + " of the " + potions.size() + " seeded potions");
+
+        readIds = ids.subList(0, readPotions).stream().mapToLong(Long::longValue).toArray();
+        deleteIds.addAll(ids.subList(readPotions, ids.size()));
+    }
+
+    /**
+     * Builds a request of the run. Its parameters depend only on the seed and its position.
+     * @param index the position of the request in the run
+     * @param timeout how long the request may wait for its response
+     * @return the request
+     */
+    public HttpRequest request (int index, Duration timeout) {
+        SplittableRandom random = new SplittableRandom(randomSeed + index);
+        HttpRequest.Builder request = switch (operation(index)) {
+            case CATALOG -> HttpRequest.newBuilder(target.resolve("/catalog?after=" + randomReadId(random)));
+            case DETAILS -> HttpRequest.newBuilder(target.resolve("/details?id=" + randomReadId(random)));
+            case CREATE -> HttpRequest.newBuilder(target.resolve("/create"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "name=" + URLEncoder.encode(namePrefix + "new-" + createdPotions.incrementAndGet(), StandardCharsets.UTF_8)
+                    + "&effect=" + URLEncoder.encode("Brewed under load", StandardCharsets.UTF_8)
+                    + "&levelOfRisk=" + random.nextInt(1, 101)));
+            case DELETE -> HttpRequest.newBuilder(target.resolve("/delete?id=" + nextDeleteId()));
+        };
+        return request.timeout(timeout).build();
+    }
+
+    private long randomReadId (SplittableRandom random) {
+        return readIds[random.nextInt(readIds.length)];
+    }
+
+    private long nextDeleteId () {
+        Long id = deleteIds.poll();
+        if (id == null)
+            throw new IllegalStateException("No seeded potion left to delete");
+        return id;
+    }
+
+    private JsonNode sendForJson (HttpClient client, HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request.header("Accept", "application/json").build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200)
+            throw new IllegalStateException(response.request().method() + " " + response.uri()
+                + " answered " + response.statusCode() + ": " + response.body());
+        return jsonMapper.readTree(response.body());
+    }
+}
@@ -0,0 +1,119 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit adjusted with AIMD on the observed latency: every request finishing within the
+ * latency target raises the limit by 1/limit (about one per round of requests), and every slower one
+ * cuts it by the backoff ratio. The limit stays between the minimum and maximum given.
+ * Waiting for a permit uses a lock and condition rather than a monitor, so virtual threads are not pinned.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    /** Factor applied to the limit when a request is slower than the target. */
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    /** Current limit; fractional so the additive increase can be spread over a round of requests. */
+    private double limit;
+
+    /** Requests currently holding a permit. */
+    private int inFlight;
+
+    /**
+     * Constructs a limit starting at its maximum.
+     * @param minLimit lowest value the limit can be cut to
+     * @param maxLimit highest value the limit can grow to
+     * @param latencyTarget latency above which the limit is cut
+     */
+    AdaptiveConcurrencyLimit (int minLimit, int maxLimit, Duration latencyTarget) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Takes a permit, waiting at most the given time for one to be released.
+     * @param timeoutNanos maximum time to wait, 0 to fail at once
+     * @return true if a permit was taken and must be given back with release or cancel
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean acquire (long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0)
+                    return false;
+                remaining = released.awaitNanos(remaining);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a permit and adjusts the limit with the latency of the request that held it.
+     * @param latencyNanos time the request took
+     */
+    void release (long latencyNanos) {
+        lock.lock();
+        try {
+            limit = (latencyNanos > latencyTargetNanos)
+                ? Math.max(minLimit, limit * BACKOFF_RATIO)
+                : Math.min(maxLimit, limit + 1 / limit);
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a permit that was not used, without adjusting the limit.
+     */
+    void cancel () {
+        lock.lock();
+        try {
+            inFlight--;
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current limit, rounded down
+     */
+    int getLimit () {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the requests currently holding a permit
+     */
+    int getInFlight () {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
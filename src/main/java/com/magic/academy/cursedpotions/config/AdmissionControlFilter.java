@@ -0,0 +1,183 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admission control for the write endpoints, so a burst of creations or deletions cannot take every
+ * connection of the pool and slow down the catalog and details pages.
+ * <p>
+ * Each write endpoint has its own AdaptiveConcurrencyLimit, cut when its requests get slower than the
+ * latency target and raised again while they stay fast. All of them also share a write budget of the
+ * pool size minus the share reserved for reads; reads are never limited, so they always find those
+ * connections free. A write that gets no permit within the maximum wait is rejected at once with a 503
+ * and a Retry-After header, before it reaches the PotionService.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    /** Whether write requests are limited at all. */
+    private final boolean enabled;
+
+    /** Limit of each write endpoint, keyed by "METHOD /path". */
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new LinkedHashMap<>();
+
+    /** Permits shared by all the write endpoints, one per pool connection not reserved for reads. */
+    private final Semaphore writeBudget;
+
+    /** Maximum time a write waits for a permit before being rejected. */
+    private final long maxWaitNanos;
+
+    /** Value of the Retry-After header sent with the rejections, in seconds. */
+    private final String retryAfter;
+
+    /** Write requests currently waiting for a permit. */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Map<String, Counter> rejections = new LinkedHashMap<>();
+    private final Map<String, Timer> queueWaits = new LinkedHashMap<>();
+
+    /**
+     * Constructs the filter.
+     * @param enabled whether write requests are limited
+     * @param writeEndpoints the limited endpoints, as "METHOD /path"; the path also covers its subpaths
+     * @param poolSize maximum size of the connection pool
+     * @param readReservedShare share of the pool writes cannot use, from 0 to 1
+     * @param latencyTarget latency above which the limit of an endpoint is cut
+     * @param maxWait maximum time a write waits for a permit
+     * @param retryAfter time clients are told to wait after a rejection
+     * @param meterRegistry registry of the admission metrics
+     */
+    public AdmissionControlFilter (@Value ("${potions.admission.enabled:true}") boolean enabled,
+                                   @Value ("${potions.admission.write-endpoints:POST /create,GET /delete,POST /delete,POST /edit,"
+                                       + "POST /import,POST /api/potions,PATCH /api/potions,DELETE /api/potions}") List<String> writeEndpoints,
+                                   @Value ("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                   @Value ("${potions.admission.read-reserved-share:0.4}") double readReservedShare,
+                                   @Value ("${potions.admission.latency-target:250ms}") Duration latencyTarget,
+                                   @Value ("${potions.admission.max-wait:50ms}") Duration maxWait,
+                                   @Value ("${potions.admission.retry-after:1s}") Duration retryAfter,
+                                   MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        int writeConcurrency = Math.max(1, (int) (poolSize * (1 - readReservedShare)));
+        this.writeBudget = new Semaphore(writeConcurrency);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+
+        for (String configured : writeEndpoints) {
+            String endpoint = configured.trim();
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, writeConcurrency, latencyTarget);
+            limits.put(endpoint, limit);
+
+            Gauge.builder("potions.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current concurrency limit of a write endpoint")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+            Gauge.builder("potions.admission.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Write requests being processed")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+            rejections.put(endpoint, Counter.builder("potions.admission.rejected")
+                .description("Write requests rejected because the endpoint or the write budget was at its limit")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry));
+            queueWaits.put(endpoint, Timer.builder("potions.admission.queue-wait")
+                .description("Time write requests waited for a permit, admitted or not")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+        Gauge.builder("potions.admission.queued", queued, AtomicInteger::get)
+            .description("Write requests waiting for a permit")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter (HttpServletRequest request) {
+        return !enabled || endpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal (HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String endpoint = endpoint(request);
+        AdaptiveConcurrencyLimit limit = limits.get(endpoint);
+
+        if (!admit(endpoint, limit)) {
+            rejections.get(endpoint).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many writes in progress; retry later");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            writeBudget.release();
+            limit.release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Takes a permit of the endpoint and one of the write budget, waiting at most the maximum wait for both.
+     * @return true if both permits were taken
+     */
+    private boolean admit (String endpoint, AdaptiveConcurrencyLimit limit) {
+        long start = System.nanoTime();
+        queued.incrementAndGet();
+        try {
+            if (!limit.acquire(maxWaitNanos))
+                return false;
+
+            long remaining = maxWaitNanos - (System.nanoTime() - start);
+            if (writeBudget.tryAcquire(Math.max(0, remaining), TimeUnit.NANOSECONDS))
+                return true;
+
+            limit.cancel();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+            queueWaits.get(endpoint).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Finds the limited endpoint a request belongs to.
+     * @return the endpoint as configured, or null if the request is not limited
+     */
+    private String endpoint (HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String endpoint : limits.keySet()) {
+            int space = endpoint.indexOf(' ');
+            String method = endpoint.substring(0, space);
+            String prefix = endpoint.substring(space + 1);
+            if (method.equals(request.getMethod()) && (path.equals(prefix) || path.startsWith(prefix + "/")))
+                return endpoint;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,170 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Bounds the threads waiting for a connection of a pool. Each connection handed out takes one of as many
+ * permits as the pool has connections, given back when the connection is closed. A thread that finds no
+ * permit waits for one up to the maximum wait, unless the waiting room is already full, in which case it
+ * fails at once instead of queueing inside the pool.
+ * <p>
+ * On virtual threads nothing else caps the requests in progress: without the bulkhead every request
+ * beyond the pool size would wait inside Hikari for its whole connection timeout, and a burst would turn
+ * into thousands of requests stuck on a few dozen connections.
+ */
+public class ConnectionBulkhead implements DataSource, AutoCloseable {
+
+    /** The pool the connections come from. */
+    private final DataSource pool;
+
+    /** One permit per connection of the pool. */
+    private final Semaphore permits;
+
+    /** Threads allowed to wait for a permit at the same time. */
+    private final int maxWaiting;
+
+    /** Maximum time a thread waits for a permit. */
+    private final long maxWaitNanos;
+
+    /** Threads currently waiting for a permit. */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Constructs the bulkhead.
+     * @param pool the pool the connections come from
+     * @param poolSize maximum number of connections of the pool
+     * @param maxWaiting threads allowed to wait for a connection at the same time
+     * @param maxWait maximum time a thread waits for a connection
+     */
+    public ConnectionBulkhead (DataSource pool, int poolSize, int maxWaiting, Duration maxWait) {
+        this.pool = pool;
+        this.permits = new Semaphore(poolSize, true);
+        this.maxWaiting = maxWaiting;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    @Override
+    public Connection getConnection () throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(pool.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection (String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(pool.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the threads currently waiting for a connection
+     */
+    public int getWaiting () {
+        return waiting.get();
+    }
+
+    /**
+     * Takes a permit, waiting for one if the waiting room has space.
+     * @throws SQLTransientConnectionException if the waiting room is full or no permit is freed in time
+     */
+    private void acquire () throws SQLException {
+        if (permits.tryAcquire())
+            return;
+
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw new SQLTransientConnectionException("Connection bulkhead full: " + maxWaiting + " threads already waiting");
+        }
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS))
+                throw new SQLTransientConnectionException("No connection freed up within " + Duration.ofNanos(maxWaitNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Wraps a connection so that closing it, once, gives its permit back.
+     * @param connection the connection of the pool
+     * @return the wrapped connection
+     */
+    private Connection releasingOnClose (Connection connection) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                    try {
+                        connection.close();
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    /**
+     * Closes the pool along with the application context, which only sees the bulkhead.
+     */
+    @Override
+    public void close () throws Exception {
+        if (pool instanceof AutoCloseable closeable)
+            closeable.close();
+    }
+
+    @Override
+    public PrintWriter getLogWriter () throws SQLException { return pool.getLogWriter(); }
+
+    @Override
+    public void setLogWriter (PrintWriter out) throws SQLException { pool.setLogWriter(out); }
+
+    @Override
+    public void setLoginTimeout (int seconds) throws SQLException { pool.setLoginTimeout(seconds); }
+
+    @Override
+    public int getLoginTimeout () throws SQLException { return pool.getLoginTimeout(); }
+
+    @Override
+    public Logger getParentLogger () throws SQLFeatureNotSupportedException { return pool.getParentLogger(); }
+
+    @Override
+    public <T> T unwrap (Class<T> type) throws SQLException {
+        return type.isInstance(this) ? type.cast(this) : pool.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor (Class<?> type) throws SQLException {
+        return type.isInstance(this) || pool.isWrapperFor(type);
+    }
+}
@@ -0,0 +1,53 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Puts a ConnectionBulkhead in front of every connection pool when requests run on virtual threads.
+ * Only active when virtual threads are enabled; on platform threads the Tomcat worker pool already
+ * caps the requests waiting for a connection.
+ */
+@Configuration (proxyBeanMethods = false)
+@ConditionalOnThreading (Threading.VIRTUAL)
+public class ConnectionBulkheadConfig {
+
+    /**
+     * Declared static so the post-processor exists before the pools are created, and ordered so the pools are
+     * wrapped before SlowQueryDataSourceConfig times their statements. Each bulkhead has as many permits as its
+     * pool has connections and waits for one no longer than the pool connection timeout.
+     * @param environment source of potions.virtual-threads.max-waiting-for-connection
+     * @return the post-processor wrapping the Hikari pools
+     */
+    @Bean
+    public static BeanPostProcessor connectionBulkheadPostProcessor (Environment environment) {
+        int maxWaiting = environment.getProperty("potions.virtual-threads.max-waiting-for-connection", Integer.class, 60);
+        return new BulkheadPostProcessor(maxWaiting);
+    }
+
+    private record BulkheadPostProcessor (int maxWaiting) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization (Object bean, String beanName) {
+            if (!(bean instanceof HikariDataSource pool))
+                return bean;
+
+            return new ConnectionBulkhead(pool, pool.getMaximumPoolSize(), maxWaiting,
+                Duration.ofMillis(pool.getConnectionTimeout()));
+        }
+
+        @Override
+        public int getOrder () {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
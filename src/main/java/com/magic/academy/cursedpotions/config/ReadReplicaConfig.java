@@ -0,0 +1,112 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Primary and replica connection pools behind a read/write routing data source.
+ * Only active when potions.datasource.replica.url is set; otherwise Spring Boot creates the usual
+ * single pool from spring.datasource. The primary keeps the spring.datasource and
+ * spring.datasource.hikari properties; the replica takes the same keys under potions.datasource.replica.
+ * After a write, only the client that made it reads from the primary for the read-your-writes window.
+ */
+@Configuration (proxyBeanMethods = false)
+@ConditionalOnProperty (prefix = "potions.datasource.replica", name = "url")
+public class ReadReplicaConfig {
+
+    /**
+     * @param properties the spring.datasource properties
+     * @return the pool of the primary database, which takes every write
+     */
+    @Bean
+    @ConfigurationProperties ("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource (DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Not a default candidate, so the spring.datasource properties stay the ones injected by type.
+     * @return the connection properties of the replica
+     */
+    @Bean (defaultCandidate = false)
+    @ConfigurationProperties ("potions.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties () {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * @param properties the connection properties of the replica
+     * @return the pool of the replica, which serves the read-only transactions
+     */
+    @Bean
+    @ConfigurationProperties ("potions.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource (@Qualifier ("replicaDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * Registered as a servlet filter, so each request knows whether its client wrote within the window.
+     * @param readYourWritesWindow time the reads of a client stay on the primary after it writes
+     * @return the filter tracking the clients that wrote
+     */
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter (
+            @Value ("${potions.datasource.replica.read-your-writes-window:5s}") Duration readYourWritesWindow) {
+        return new ReadYourWritesFilter(readYourWritesWindow);
+    }
+
+    /**
+     * @param readYourWritesFilter the filter tracking the clients that wrote
+     * @param entityManagerFactory factory of the transactional entity managers
+     * @return the guard keeping the reads of a lagging replica out of the second-level cache
+     */
+    @Bean
+    public ReplicaLagCacheGuard replicaLagCacheGuard (ReadYourWritesFilter readYourWritesFilter,
+                                                      ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return new ReplicaLagCacheGuard(readYourWritesFilter, entityManagerFactory);
+    }
+
+    /**
+     * The data source used by JPA, JdbcTemplate and Flyway. Flyway and any work outside a
+     * read-only transaction land on the primary.
+     * @param primaryDataSource the primary pool
+     * @param replicaDataSource the replica pool
+     * @param readYourWritesFilter the filter telling which clients read from the primary
+     * @return the lazily connecting routing data source
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource (@Qualifier ("primaryDataSource") DataSource primaryDataSource,
+                                  @Qualifier ("replicaDataSource") DataSource replicaDataSource,
+                                  ReadYourWritesFilter readYourWritesFilter) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(readYourWritesFilter);
+        routing.setTargetDataSources(Map.of(
+            ReadWriteRoutingDataSource.Route.PRIMARY, primaryDataSource,
+            ReadWriteRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,48 @@
+package com.magic.academy.cursedpotions.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the connections of read-only transactions to the replica pool and everything else to the primary.
+ * It must sit behind a LazyConnectionDataSourceProxy: the transaction manager opens the connection before
+ * it publishes the read-only flag, and the lazy proxy delays the lookup until the first statement.
+ * <p>
+ * After a read-write transaction, the reads of the client that wrote stay on the primary for a window longer
+ * than the expected replication lag, which gives read-your-writes to the redirect that follows a create or a
+ * delete. ReadYourWritesFilter tells which client that is; the reads of every other client keep going to the
+ * replica, and ReplicaLagCacheGuard keeps them out of the caches until the replica has caught up.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /** Lookup keys of the two target pools. */
+    public enum Route { PRIMARY, REPLICA }
+
+    /** Tracks the clients that wrote within the read-your-writes window. */
+    private final ReadYourWritesFilter readYourWrites;
+
+    /**
+     * Constructs the routing data source; the targets are set by the caller.
+     * @param readYourWrites tracks the clients that wrote within the read-your-writes window
+     */
+    public ReadWriteRoutingDataSource (ReadYourWritesFilter readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey () {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isSynchronizationActive())
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion (int status) {
+                        if (status != STATUS_ROLLED_BACK)
+                            readYourWrites.wrote();
+                    }
+                });
+            return Route.PRIMARY;
+        }
+        return readYourWrites.isPinnedToPrimary() ? Route.PRIMARY : Route.REPLICA;
+    }
+}
@@ -0,0 +1,123 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps track of which client wrote recently, so only that client reads from the primary afterwards.
+ * When a write commits during a request, the response carries a cookie with the time until which that
+ * client's reads must go to the primary; the following requests bringing the cookie back are pinned to it.
+ * Every other client keeps reading from the replica. The filter also remembers when the last write committed,
+ * since until the replica catches up the rows it returns must not be stored in the shared caches.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    /** Cookie holding the epoch millis until which the client reads from the primary. */
+    public static final String COOKIE_NAME = "potions-primary-until";
+
+    /** Client served by each thread, or null outside an HTTP request. */
+    private static final ThreadLocal<Client> CLIENT = new ThreadLocal<>();
+
+    /** Time reads stay on the primary after a write completes. */
+    private final Duration window;
+
+    /** System.nanoTime until which the replica may still miss the last write. */
+    private volatile long replicaBehindUntil = System.nanoTime();
+
+    /**
+     * The response of the current request and the time until which its client reads from the primary.
+     */
+    private static final class Client {
+        private final HttpServletResponse response;
+        private long primaryUntil;
+
+        private Client (HttpServletResponse response, long primaryUntil) {
+            this.response = response;
+            this.primaryUntil = primaryUntil;
+        }
+    }
+
+    /**
+     * Constructs the filter.
+     * @param window time reads stay on the primary after a write, longer than the expected replication lag
+     */
+    public ReadYourWritesFilter (Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal (HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CLIENT.set(new Client(response, primaryUntil(request)));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CLIENT.remove();
+        }
+    }
+
+    /**
+     * @return whether the client of the current request wrote within the window, so it must read from the primary
+     */
+    public boolean isPinnedToPrimary () {
+        Client client = CLIENT.get();
+        return client != null && System.currentTimeMillis() < client.primaryUntil;
+    }
+
+    /**
+     * @return whether a read of the current thread goes to a replica that may not show the last write yet
+     */
+    public boolean readsLaggingReplica () {
+        return System.nanoTime() - replicaBehindUntil < 0 && !isPinnedToPrimary();
+    }
+
+    /**
+     * Records a committed write. The client of the current request, if any, is pinned to the primary for the
+     * window, for the rest of this request and, through the cookie, for its following requests.
+     */
+    public void wrote () {
+        replicaBehindUntil = System.nanoTime() + window.toNanos();
+
+        Client client = CLIENT.get();
+        if (client == null)
+            return;
+        client.primaryUntil = System.currentTimeMillis() + window.toMillis();
+        if (!client.response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(client.primaryUntil));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (window.toMillis() + 999) / 1000));
+            cookie.setAttribute("SameSite", "Lax");
+            client.response.addCookie(cookie);
+        }
+    }
+
+    /**
+     * Reads the time until which the client reads from the primary from its cookie.
+     * @return the epoch millis, or 0 if the request has no valid cookie
+     */
+    private long primaryUntil (HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null)
+            return 0;
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    // A forged value can only send that client's reads to the primary, for at most one window
+                    return Math.min(Long.parseLong(cookie.getValue()), System.currentTimeMillis() + window.toMillis());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Keeps the rows read from a lagging replica out of the second-level cache. The cache is shared by every
+ * client, so a potion another client read from the replica right after a write would otherwise be served,
+ * stale, to the client that wrote it, even though its own reads go to the primary. While ReadYourWritesFilter
+ * says the replica may still miss the last write, the read-only transactions of unpinned clients bypass the
+ * second-level cache and read the replica only.
+ * <p>
+ * Storing alone cannot be turned off for queries: in the GET cache mode Hibernate still stores the results of
+ * a cacheable query that missed the cache. The transaction ignores the cache altogether, which leaves what the
+ * other transactions cached untouched.
+ */
+public class ReplicaLagCacheGuard implements TransactionExecutionListener {
+
+    /** Entity manager property with the retrieve mode of the second-level cache. */
+    private static final String RETRIEVE_MODE = "jakarta.persistence.cache.retrieveMode";
+
+    /** Entity manager property with the store mode of the second-level cache. */
+    private static final String STORE_MODE = "jakarta.persistence.cache.storeMode";
+
+    /** Tells whether the current thread reads from a replica that may lag. */
+    private final ReadYourWritesFilter readYourWrites;
+
+    /** Factory of the transactional entity managers, looked up on first use. */
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    /**
+     * Constructs the guard.
+     * @param readYourWrites tells whether the current thread reads from a replica that may lag
+     * @param entityManagerFactory factory of the transactional entity managers
+     */
+    public ReplicaLagCacheGuard (ReadYourWritesFilter readYourWrites, ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.readYourWrites = readYourWrites;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Makes a new read-only transaction ignore the second-level cache while the replica may lag. It runs
+     * before the first query, because Hibernate decides whether a loaded entity is cached when the load starts.
+     */
+    @Override
+    public void afterBegin (TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure != null || !transaction.isNewTransaction() || !transaction.isReadOnly()
+                || !readYourWrites.readsLaggingReplica())
+            return;
+
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory.getObject());
+        if (entityManager == null)
+            return;
+        // As properties rather than a cache mode, so find() with hints does not reset them
+        Map<String, Object> properties = entityManager.getProperties();
+        Object previousRetrieve = properties.getOrDefault(RETRIEVE_MODE, CacheRetrieveMode.USE);
+        Object previousStore = properties.getOrDefault(STORE_MODE, CacheStoreMode.USE);
+        entityManager.setProperty(RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
+        entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion (int status) {
+                // With open-in-view the entity manager outlives the transaction
+                entityManager.setProperty(RETRIEVE_MODE, previousRetrieve);
+                entityManager.setProperty(STORE_MODE, previousStore);
+            }
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.util.OptionalLong;
+import java.util.Properties;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.CacheManagerImpl;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.magic.academy.cursedpotions.model.Potion;
+
+/**
+ * Caffeine-backed JCache regions for the Hibernate second-level and query caches.
+ * The regions are created here with bounded sizes taken from the application properties,
+ * and Hibernate is told to fail on any region it cannot find instead of creating an unbounded one.
+ */
+@Configuration (proxyBeanMethods = false)
+public class SecondLevelCacheConfig {
+
+    /**
+     * Creates the JCache manager holding the second-level cache regions.
+     * @param entitySize maximum number of cached potions
+     * @param naturalIdSize maximum number of cached name to ID resolutions
+     * @param querySize maximum number of cached query results
+     * @return the cache manager, closed with the application context
+     */
+    @Bean (destroyMethod = "close")
+    public CacheManager hibernateCacheManager (
+            @Value ("${potions.cache.second-level.entity-size:10000}") long entitySize,
+            @Value ("${potions.cache.second-level.natural-id-size:10000}") long naturalIdSize,
+            @Value ("${potions.cache.second-level.query-size:1000}") long querySize) {
+        // A private manager rather than the provider's shared default one, so each application context owns its regions
+        CaffeineCachingProvider provider = (CaffeineCachingProvider)
+            Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = new CacheManagerImpl(provider, false, provider.getDefaultURI(),
+            getClass().getClassLoader(), new Properties());
+
+        cacheManager.createCache(Potion.CACHE_REGION, bounded(entitySize));
+        cacheManager.createCache(Potion.NATURAL_ID_CACHE_REGION, bounded(naturalIdSize));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, bounded(querySize));
+        // Update timestamps must never be evicted, or cached queries could outlive the changes they missed
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+            new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    /**
+     * Hands the cache manager to Hibernate.
+     * @param hibernateCacheManager the manager with the second-level cache regions
+     * @return the customizer of the Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer (CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded (long maximumSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,47 @@
+package com.magic.academy.cursedpotions.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the application DataSource in a datasource-proxy that times every statement,
+ * Hibernate and JdbcTemplate alike, and reports them to the SlowQueryLog and the SqlStatementCounter.
+ * Only the connection pools are wrapped, so statements routed to the primary or the replica are seen once.
+ */
+@Configuration (proxyBeanMethods = false)
+public class SlowQueryDataSourceConfig {
+
+    /**
+     * Declared static so the post-processor exists before the DataSource is created;
+     * the listeners are resolved lazily for the same reason.
+     * @param slowQueryLog the listener receiving the timed statements
+     * @param sqlStatementCounter the listener counting the statements of each request
+     * @return the post-processor wrapping the DataSource beans
+     */
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor (ObjectProvider<SlowQueryLog> slowQueryLog,
+                                                                      ObjectProvider<SqlStatementCounter> sqlStatementCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization (Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource
+                        || bean instanceof DelegatingDataSource || bean instanceof AbstractRoutingDataSource)
+                    return bean;
+
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                    .listener(slowQueryLog.getObject())
+                    .listener(sqlStatementCounter.getObject())
+                    .build();
+            }
+        };
+    }
+}
@@ -0,0 +1,189 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.magic.academy.cursedpotions.model.SlowStatement;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * Records the SQL statements slower than a threshold, seen through the datasource proxy installed by
+ * SlowQueryDataSourceConfig. Fast statements only cost a comparison; slow ones are kept among the
+ * slowest seen so far and logged from a background thread with their parameters and calling method.
+ */
+@Component
+public class SlowQueryLog implements QueryExecutionListener, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    /** Package of the application classes searched in the stack for the caller. */
+    private static final String APPLICATION_PACKAGE = "com.magic.academy.cursedpotions.";
+
+    /** Package of this class, whose frames are never reported as the caller. */
+    private static final String CONFIG_PACKAGE = APPLICATION_PACKAGE + "config.";
+
+    /** Number of pending log lines after which new ones are dropped instead of blocking the statement. */
+    private static final int LOG_QUEUE_CAPACITY = 1024;
+
+    /** Longest parameter value logged before it is truncated. */
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    /** Number of batch entries whose parameters are logged. */
+    private static final int MAX_LOGGED_BATCH_ENTRIES = 3;
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    /** Execution time from which a statement is recorded. */
+    private final long thresholdMillis;
+
+    /** Number of slow statements kept for the top-N view. */
+    private final int topSize;
+
+    /** Slowest statements seen so far, fastest first so it can be dropped; guarded by itself. */
+    private final PriorityQueue<SlowStatement> slowest =
+        new PriorityQueue<>(Comparator.comparingLong(SlowStatement::elapsedMillis));
+
+    /** Single thread writing the log lines, so the statement thread never waits for the appenders. */
+    private final ExecutorService logWriter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(LOG_QUEUE_CAPACITY), Thread.ofPlatform().name("slow-sql-log").daemon().factory(),
+        new ThreadPoolExecutor.DiscardPolicy());
+
+    /**
+     * Constructs the slow-query log.
+     * @param threshold execution time from which a statement is recorded
+     * @param topSize number of slow statements kept for the top-N view
+     */
+    public SlowQueryLog (@Value ("${potions.sql.slow-threshold:200ms}") Duration threshold,
+                         @Value ("${potions.sql.slow-top-size:20}") int topSize) {
+        this.thresholdMillis = threshold.toMillis();
+        this.topSize = topSize;
+    }
+
+    @Override
+    public void beforeQuery (ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery (ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMillis)
+            return;
+
+        // Only slow statements pay for the stack walk, which must happen on the statement thread
+        SlowStatement statement = new SlowStatement(Instant.now(), execInfo.getElapsedTime(),
+            queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; ")),
+            formatParameters(queryInfoList), findCaller());
+        record(statement);
+        logWriter.execute(() -> log.warn("Slow SQL ({} ms) from {}: {} {}", statement.elapsedMillis(),
+            statement.caller(), statement.sql(), statement.parameters()));
+    }
+
+    /**
+     * @return the slowest statements recorded, slowest first
+     */
+    public List<SlowStatement> getSlowest () {
+        List<SlowStatement> statements;
+        synchronized (slowest) {
+            statements = new ArrayList<>(slowest);
+        }
+        statements.sort(Comparator.comparingLong(SlowStatement::elapsedMillis).reversed());
+        return statements;
+    }
+
+    /**
+     * Forgets the recorded statements.
+     */
+    public void reset () {
+        synchronized (slowest) {
+            slowest.clear();
+        }
+    }
+
+    @Override
+    public void destroy () {
+        logWriter.shutdown();
+    }
+
+    private void record (SlowStatement statement) {
+        synchronized (slowest) {
+            slowest.add(statement);
+            if (slowest.size() > topSize)
+                slowest.poll();
+        }
+    }
+
+    /**
+     * Finds the innermost application method on the stack, e.g. PotionService.addPotion.
+     * Statements flushed at commit are attributed to the transactional proxy of the service.
+     */
+    static String findCaller () {
+        return STACK_WALKER.walk(frames -> frames
+            .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                && !frame.getClassName().startsWith(CONFIG_PACKAGE))
+            .findFirst()
+            .map(frame -> simpleName(frame.getClassName()) + "." + methodName(frame.getMethodName()))
+            .orElse("unknown"));
+    }
+
+    private static String simpleName (String className) {
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simpleName.indexOf('$');
+        return nested < 0 ? simpleName : simpleName.substring(0, nested);
+    }
+
+    /**
+     * Names a lambda after its enclosing method, e.g. lambda$addPotion$0 as addPotion.
+     */
+    private static String methodName (String methodName) {
+        if (!methodName.startsWith("lambda$"))
+            return methodName;
+        int end = methodName.indexOf('$', "lambda$".length());
+        return end < 0 ? methodName : methodName.substring("lambda$".length(), end);
+    }
+
+    /**
+     * Formats the bound parameters as [1=value, 2=value], one group per batch entry.
+     */
+    static String formatParameters (List<QueryInfo> queryInfoList) {
+        List<List<ParameterSetOperation>> entries = queryInfoList.stream()
+            .flatMap(queryInfo -> queryInfo.getParametersList().stream())
+            .toList();
+
+        String formatted = entries.stream()
+            .limit(MAX_LOGGED_BATCH_ENTRIES)
+            .map(operations -> operations.stream()
+                .map(SlowQueryLog::formatParameter)
+                .collect(Collectors.joining(", ", "[", "]")))
+            .collect(Collectors.joining(" "));
+        if (entries.size() > MAX_LOGGED_BATCH_ENTRIES)
+            formatted += " (+" + (entries.size() - MAX_LOGGED_BATCH_ENTRIES) + " more)";
+        return formatted;
+    }
+
+    private static String formatParameter (ParameterSetOperation operation) {
+        Object[] args = operation.getArgs();
+        Object value = ParameterSetOperation.isSetNullParameterOperation(operation) ? null : args[1];
+        String text = String.valueOf(value);
+        if (text.length() > MAX_PARAMETER_LENGTH)
+            text = text.substring(0, MAX_PARAMETER_LENGTH) + "...";
+        return args[0] + "=" + text;
+    }
+}
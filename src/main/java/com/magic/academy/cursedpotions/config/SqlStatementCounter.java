@@ -0,0 +1,50 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Counts the SQL statements executed on the current thread while a count is open.
+ * Registered on the datasource proxy installed by SlowQueryDataSourceConfig, so it sees the statements of
+ * Hibernate and of JdbcTemplate alike (imports, archive, outbox); a JDBC batch counts as one execution.
+ * SqlStatementMetricsFilter opens a count per HTTP request.
+ */
+@Component
+public class SqlStatementCounter implements QueryExecutionListener {
+
+    /** Statements counted so far on each thread, or null when no count is open. */
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public void beforeQuery (ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery (ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        int[] count = COUNT.get();
+        if (count != null)
+            count[0]++;
+    }
+
+    /**
+     * Starts counting the statements of the current thread.
+     */
+    public void open () {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * Stops counting on the current thread.
+     * @return the statements counted since open, or 0 if no count was open
+     */
+    public int close () {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+}
@@ -0,0 +1,76 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records how many SQL statements each request runs, per endpoint, in the potions.sql.statements summary.
+ * Requests over the warning threshold are logged, which is usually an N+1 or a multi-query path.
+ */
+@Component
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementMetricsFilter.class);
+
+    /** Counter of the statements run on the request thread. */
+    private final SqlStatementCounter sqlStatementCounter;
+
+    /** Registry where the summaries are published. */
+    private final MeterRegistry meterRegistry;
+
+    /** Number of statements from which a request is logged. */
+    private final int warnThreshold;
+
+    /**
+     * Constructs the filter.
+     * @param sqlStatementCounter counter of the statements run on the request thread
+     * @param meterRegistry registry where the summaries are published
+     * @param warnThreshold number of statements from which a request is logged
+     */
+    public SqlStatementMetricsFilter (SqlStatementCounter sqlStatementCounter, MeterRegistry meterRegistry,
+                                      @Value ("${potions.metrics.sql-statements-warn-threshold:10}") int warnThreshold) {
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal (HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        sqlStatementCounter.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = sqlStatementCounter.close();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+            DistributionSummary.builder("potions.sql.statements")
+                .description("SQL statements run per HTTP request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(100.0)
+                .register(meterRegistry)
+                .record(statements);
+
+            if (statements >= warnThreshold)
+                log.warn("{} {} ran {} SQL statements", request.getMethod(), request.getRequestURI(), statements);
+        }
+    }
+}
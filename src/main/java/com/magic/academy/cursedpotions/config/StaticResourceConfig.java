@@ -0,0 +1,45 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.time.Duration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+/**
+ * Serves the stylesheets bundled in static/css, Bootstrap included, so the pages need no CDN.
+ * Their URLs carry a hash of their content (bootstrap.min-{hash}.css), rewritten into the templates by the
+ * ResourceUrlEncodingFilter, so they can be cached as immutable for a year: any change gets a new URL.
+ * The gzip and brotli variants written by the build (PrecompressStaticResources) are served to the
+ * clients that accept them, instead of compressing on every request.
+ */
+@Configuration (proxyBeanMethods = false)
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    /** How long browsers and proxies may keep a versioned resource. */
+    private static final Duration MAX_AGE = Duration.ofDays(365);
+
+    @Override
+    public void addResourceHandlers (ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/css/**")
+            .addResourceLocations("classpath:/static/css/")
+            .setCacheControl(CacheControl.maxAge(MAX_AGE).cachePublic().immutable())
+            .resourceChain(true)
+            .addResolver(new EncodedResourceResolver())
+            .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    /**
+     * Rewrites the resource links built by the templates (@{/css/...}) into their versioned URLs.
+     * @return the filter
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter () {
+        return new ResourceUrlEncodingFilter();
+    }
+}
@@ -0,0 +1,94 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, typically because they block
+ * inside a synchronized block (e.g. a JDBC driver waiting on the network while holding a monitor).
+ * Pinned threads hold a carrier thread hostage, so a few of them can stall the whole request path.
+ * Only active when virtual threads are enabled.
+ */
+@Component
+@ConditionalOnThreading (Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    /** Number of stack frames included in each pinning warning. */
+    private static final int LOGGED_FRAMES = 8;
+
+    /** Minimum pinned duration worth reporting. */
+    private final Duration threshold;
+
+    /** Number of pinning events observed since start. */
+    private final LongAdder pinnedEvents = new LongAdder();
+
+    private RecordingStream stream;
+
+    /**
+     * Constructs the monitor.
+     * @param threshold minimum pinned duration worth reporting
+     */
+    public VirtualThreadPinningMonitor (@Value ("${potions.virtual-threads.pinning-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public synchronized void start () {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::report);
+        stream.startAsync();
+    }
+
+    @Override
+    public synchronized void stop () {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning () {
+        return stream != null;
+    }
+
+    /**
+     * Returns how many pinning events have been reported since the monitor started.
+     * @return the number of pinning events
+     */
+    public long getPinnedEventCount () {
+        return pinnedEvents.sum();
+    }
+
+    /**
+     * Logs a pinning event with the top of the stack where it happened.
+     * @param event the JFR event
+     */
+    private void report (RecordedEvent event) {
+        pinnedEvents.increment();
+
+        String stack = event.getStackTrace() == null ? "unknown" : event.getStackTrace().getFrames().stream()
+            .limit(LOGGED_FRAMES)
+            .map(RecordedFrame::getMethod)
+            .map(method -> method.getType().getName() + "." + method.getName())
+            .collect(Collectors.joining(" <- "));
+
+        log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), stack);
+    }
+}
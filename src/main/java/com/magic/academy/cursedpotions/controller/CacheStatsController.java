@@ -0,0 +1,51 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Controller exposing the hit, miss and put counters of the second-level cache regions.
+ */
+@RestController
+public class CacheStatsController {
+
+    /** Statistics of the session factory, which count the accesses to each region. */
+    private final Statistics statistics;
+
+    /**
+     * Constructs the controller with the statistics of the session factory.
+     * @param entityManagerFactory the factory whose cache regions are inspected
+     */
+    public CacheStatsController (EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Returns the statistics of a cache region.
+     * @param name the region name (potions, potions-by-name or default-query-results-region)
+     * @return the counters of the region, or 404 if there is no region with that name
+     */
+    @GetMapping ("/cache/{name}/stats")
+    public ResponseEntity<Map<String, Object>> cacheStats (@PathVariable String name) {
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+        if (region == null)
+            return ResponseEntity.notFound().build();
+
+        long lookups = region.getHitCount() + region.getMissCount();
+        return ResponseEntity.ok(Map.of(
+            "size", region.getElementCountInMemory(),
+            "hits", region.getHitCount(),
+            "misses", region.getMissCount(),
+            "hitRate", (lookups == 0) ? 1.0 : (double) region.getHitCount() / lookups,
+            "puts", region.getPutCount()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.magic.academy.cursedpotions.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.magic.academy.cursedpotions.model.InventoryStats;
+import com.magic.academy.cursedpotions.service.InventoryStatistics;
+
+/**
+ * Controller for the inventory statistics dashboard.
+ * Both representations are served from the in-memory aggregates, never from a table scan.
+ */
+@Controller
+public class InventoryStatsController {
+
+    /** Store holding the inventory aggregates. */
+    private final InventoryStatistics inventoryStatistics;
+
+    /**
+     * Constructs the controller with the required dependency.
+     * @param inventoryStatistics the statistics store to read
+     */
+    public InventoryStatsController (InventoryStatistics inventoryStatistics) {
+        this.inventoryStatistics = inventoryStatistics;
+    }
+
+    /**
+     * Displays the dashboard with the counts and the risk histogram.
+     * @param model the model to add attributes to
+     * @return the name of the stats view
+     */
+    @GetMapping ("/stats")
+    public String showStats (Model model) {
+        model.addAttribute("stats", inventoryStatistics.snapshot());
+        return "stats";
+    }
+
+    /**
+     * Returns the statistics as JSON, for clients that ask for it.
+     * @return the current statistics
+     */
+    @GetMapping (value = "/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public InventoryStats getStats () {
+        return inventoryStatistics.snapshot();
+    }
+}
@@ -0,0 +1,115 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.net.URI;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionDetails;
+import com.magic.academy.cursedpotions.model.PotionPatch;
+import com.magic.academy.cursedpotions.model.PotionSummaryPage;
+import com.magic.academy.cursedpotions.service.PotionService;
+
+import jakarta.validation.Valid;
+
+/**
+ * JSON API for potion management, for integrations that do not need the HTML views.
+ * Listings are served from summary projections, so they neither load the effect descriptions
+ * nor hydrate Potion entities.
+ */
+@RestController
+@RequestMapping ("/api/potions")
+public class PotionApiController {
+
+    /** Service for managing potion operations. */
+    private final PotionService potionService;
+
+    /**
+     * Constructs the controller with the required service dependency.
+     * @param potionService the potion service to use
+     */
+    public PotionApiController (PotionService potionService) {
+        this.potionService = potionService;
+    }
+
+    /**
+     * Lists one page of potion summaries.
+     * @param after return the potions following this ID
+     * @param size the number of potions per page
+     * @return the page of summaries with the cursor for the next one
+     */
+    @GetMapping
+    public PotionSummaryPage listPotions (@RequestParam (required = false) Long after,
+                                          @RequestParam (defaultValue = "" + PotionService.DEFAULT_PAGE_SIZE) int size) {
+        return potionService.getInventorySummaries(after, size);
+    }
+
+    /**
+     * Returns a single potion.
+     * @param id the potion ID
+     * @return the potion (404 if it does not exist)
+     */
+    @GetMapping ("/{id}")
+    public PotionDetails getPotion (@PathVariable Long id) {
+        return PotionDetails.of(potionService.findPotionById(id));
+    }
+
+    /**
+     * Returns a single potion looked up by its exact name.
+     * @param name the potion name
+     * @return the potion (404 if it does not exist)
+     */
+    @GetMapping ("/by-name/{name}")
+    public PotionDetails getPotionByName (@PathVariable String name) {
+        return PotionDetails.of(potionService.findPotionByName(name));
+    }
+
+    /**
+     * Creates a potion. Its legality is always computed from the risk level.
+     * @param potion the potion data (any ID or legality sent is ignored)
+     * @return 201 with the created potion (400 if invalid, 409 if the name already exists)
+     */
+    @PostMapping
+    public ResponseEntity<PotionDetails> createPotion (@Valid @RequestBody Potion potion) {
+        potion.setId(null);
+        potion.setVersion(0);
+        potionService.addPotion(potion);
+
+        return ResponseEntity.created(URI.create("/api/potions/" + potion.getId())).body(PotionDetails.of(potion));
+    }
+
+    /**
+     * Edits the effect and/or risk level of a potion. The legality is computed again if the risk level changes.
+     * @param id the potion ID
+     * @param patch the fields to change, with the version returned when the potion was read
+     * @return 204 with the new version as ETag (400 if invalid, 404 if it does not exist,
+     *         409 if it was modified since that version)
+     */
+    @PatchMapping ("/{id}")
+    public ResponseEntity<Void> updatePotion (@PathVariable Long id, @Valid @RequestBody PotionPatch patch) {
+        long version = potionService.updatePotion(id, patch);
+
+        return ResponseEntity.noContent().eTag(Long.toString(version)).build();
+    }
+
+    /**
+     * Deletes a potion.
+     * @param id the potion ID
+     * @return 204 (404 if it does not exist)
+     */
+    @DeleteMapping ("/{id}")
+    public ResponseEntity<Void> deletePotion (@PathVariable Long id) {
+        potionService.removePotionById(id);
+
+        return ResponseEntity.noContent().build();
+    }
+}
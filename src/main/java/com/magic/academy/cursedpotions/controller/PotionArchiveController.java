@@ -0,0 +1,41 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.magic.academy.cursedpotions.model.ArchivedPotion;
+import com.magic.academy.cursedpotions.service.PotionArchive;
+import com.magic.academy.cursedpotions.service.PotionService;
+
+/**
+ * JSON listing of the destroyed potions, for the Ministry audits.
+ */
+@RestController
+public class PotionArchiveController {
+
+    /** Archive of the destroyed potions. */
+    private final PotionArchive potionArchive;
+
+    /**
+     * Constructs the controller with the archive.
+     * @param potionArchive the archive to read
+     */
+    public PotionArchiveController (PotionArchive potionArchive) {
+        this.potionArchive = potionArchive;
+    }
+
+    /**
+     * Lists the destroyed potions in the order they were destroyed, keyset-paginated on the archive entry ID.
+     * @param after return the entries following this ID
+     * @param size the number of entries, clamped to 1..MAX_PAGE_SIZE
+     * @return the archived potions
+     */
+    @GetMapping ("/api/archive")
+    public List<ArchivedPotion> listArchivedPotions (@RequestParam (required = false) Long after,
+                                                     @RequestParam (defaultValue = "" + PotionService.DEFAULT_PAGE_SIZE) int size) {
+        return potionArchive.findAfter(after, Math.clamp(size, 1, PotionService.MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,53 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.magic.academy.cursedpotions.service.PotionChangeFeed;
+
+/**
+ * Controller streaming the inventory changes as server-sent events, for dashboards that would
+ * otherwise poll the catalog.
+ */
+@RestController
+public class PotionChangeFeedController {
+
+    /** Feed the subscribers are registered with. */
+    private final PotionChangeFeed changeFeed;
+
+    /** Time after which a subscription is closed; EventSource clients reconnect on their own. */
+    private final Duration subscriberTimeout;
+
+    /**
+     * Constructs the controller with the change feed.
+     * @param changeFeed the feed to subscribe to
+     * @param subscriberTimeout time after which a subscription is closed
+     */
+    public PotionChangeFeedController (PotionChangeFeed changeFeed,
+                                       @Value ("${potions.changes.subscriber-timeout:30m}") Duration subscriberTimeout) {
+        this.changeFeed = changeFeed;
+        this.subscriberTimeout = subscriberTimeout;
+    }
+
+    /**
+     * Opens a stream of "created", "removed", "updated" and "resync" events with the potion summaries as JSON.
+     * A "resync" asks the client to reload the catalog because some changes could not be sent.
+     * @param lastEventId the ID of the last event received, sent by EventSource when it reconnects
+     * @param after the same resume point as a query parameter, for clients that cannot set headers
+     * @return the event stream
+     */
+    @GetMapping (value = "/catalog/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes (@RequestHeader (value = "Last-Event-ID", required = false) Long lastEventId,
+                               @RequestParam (required = false) Long after) {
+        SseEmitter emitter = new SseEmitter(subscriberTimeout.toMillis());
+        changeFeed.subscribe(emitter, lastEventId != null ? lastEventId : after);
+        return emitter;
+    }
+}
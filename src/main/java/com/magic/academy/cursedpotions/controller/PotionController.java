@@ -1,5 +1,10 @@
 package com.magic.academy.cursedpotions.controller;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -7,11 +12,19 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import com.magic.academy.cursedpotions.exception.PotionAlreadyExistsException;
 import com.magic.academy.cursedpotions.exception.PotionNotFoundException;
+import com.magic.academy.cursedpotions.exception.PotionVersionConflictException;
 import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionFilter;
+import com.magic.academy.cursedpotions.model.PotionPage;
+import com.magic.academy.cursedpotions.model.PotionPatch;
+import com.magic.academy.cursedpotions.service.InventoryVersion;
 import com.magic.academy.cursedpotions.service.PotionService;
 
 import jakarta.validation.Valid;
@@ -27,22 +40,46 @@ public class PotionController {
     /** Service for managing potion operations. */
     private final PotionService potionService;
 
+    /** Inventory version used as validator for conditional GETs. */
+    private final InventoryVersion inventoryVersion;
+
     /**
      * Constructs the controller with the required service dependency.
      * @param potionService the potion service to use
+     * @param inventoryVersion the inventory version counter
      */
-    public PotionController (PotionService potionService) {
+    public PotionController (PotionService potionService, InventoryVersion inventoryVersion) {
         this.potionService = potionService;
+        this.inventoryVersion = inventoryVersion;
     }
 
     /**
-     * Displays the potion catalog with all potions in inventory.
+     * Displays one page of the potion catalog, optionally filtered.
+     * @param filter the filter criteria (legal, minRisk, maxRisk, namePrefix request parameters)
+     * @param after show the potions following this ID (next page)
+     * @param before show the potions preceding this ID (previous page)
+     * @param size the number of potions per page
      * @param model the model to add inventory data
-     * @return the catalog view page
+     * @param webRequest the current request, used for conditional GET handling
+     * @return the catalog view page, or null if the client copy is still valid (304)
      */
     @GetMapping ("/catalog")
-    public String viewCatalog (Model model) {
-        model.addAttribute("inventory", potionService.getInventory());
+    public String viewCatalog (@ModelAttribute ("filter") PotionFilter filter,
+                               @RequestParam (required = false) Long after,
+                               @RequestParam (required = false) Long before,
+                               @RequestParam (defaultValue = "" + PotionService.DEFAULT_PAGE_SIZE) int size,
+                               Model model, ServletWebRequest webRequest) {
+        if (isNotModified(webRequest, "catalog?" + filter + "&after=" + after + "&before=" + before + "&size=" + size))
+            return null;
+
+        PotionPage page = potionService.getInventoryPage(filter, after, before, size);
+
+        model.addAttribute("page", page);
+        model.addAttribute("inventory", page.potions());
+        if (page.hasPrevious())
+            model.addAttribute("previousUrl", catalogUrl(filter, "before", page.previousCursor(), page.size()));
+        if (page.hasNext())
+            model.addAttribute("nextUrl", catalogUrl(filter, "after", page.nextCursor(), page.size()));
 
         return "catalog";
     }
@@ -81,6 +118,50 @@ public class PotionController {
         }
     }
 
+    /**
+     * Displays the form for editing the effect and risk level of a potion.
+     * @param id the ID of the potion to edit
+     * @param model the model to add the potion
+     * @param redirectAttributes attributes for redirect messages
+     * @return the edit form view page, or redirect to catalog if not found
+     */
+    @GetMapping ("/edit")
+    public String showEditForm (@RequestParam Long id, Model model, RedirectAttributes redirectAttributes) {
+        try {
+            model.addAttribute("potion", potionService.findPotionById(id));
+
+            return "edit";
+        } catch (PotionNotFoundException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+
+            return "redirect:/catalog";
+        }
+    }
+
+    /**
+     * Handles potion edits. Only the effect and risk level are changed, and only if nobody
+     * else has edited the potion since the form was loaded.
+     * @param potion the potion data from the form, with the version it was loaded at
+     * @param model the model for error messages
+     * @return redirect to the potion details on success, or return to form on error
+     */
+    @PostMapping ("/edit")
+    public String updatePotion (@Valid @ModelAttribute Potion potion, BindingResult bindingResult, Model model) {
+        if (bindingResult.hasErrors())
+            return "edit";
+
+        try {
+            potionService.updatePotion(potion.getId(),
+                new PotionPatch(potion.getEffect(), potion.getLevelOfRisk(), potion.getVersion()));
+
+            return "redirect:/details?id=" + potion.getId();
+        } catch (PotionVersionConflictException | PotionNotFoundException e) {
+            model.addAttribute("errorMessage", e.getMessage());
+
+            return "edit";
+        }
+    }
+
     /**
      * Deletes a potion from inventory by ID.
      * @param id the ID of the potion to delete
@@ -102,15 +183,47 @@ public class PotionController {
         return "redirect:/catalog";
     }
 
+    /**
+     * Deletes several potions from inventory at once. Either all of them are removed or none is.
+     * @param ids the IDs of the potions to delete
+     * @param redirectAttributes attributes for redirect messages
+     * @return redirect to catalog with success or error message
+     */
+    @PostMapping ("/delete")
+    public String deletePotions (@RequestParam (required = false) List<Long> ids, RedirectAttributes redirectAttributes) {
+        if (ids == null || ids.isEmpty()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Select at least one potion to remove.");
+
+            return "redirect:/catalog";
+        }
+
+        try {
+            int removed = potionService.removePotionsByIds(ids);
+
+            redirectAttributes.addFlashAttribute("successMessage", removed + " potions successfully removed.");
+
+        } catch (PotionNotFoundException e) {
+
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+
+        return "redirect:/catalog";
+    }
+
     /**
      * Displays detailed information about a specific potion.
      * @param id the ID of the potion to view
      * @param model the model to add potion details
      * @param redirectAttributes attributes for redirect messages
-     * @return the details view page, or redirect to catalog if not found
+     * @param webRequest the current request, used for conditional GET handling
+     * @return the details view page, null if the client copy is still valid (304), or redirect to catalog if not found
      */
     @GetMapping ("/details")
-    public String viewPotion (@RequestParam Long id, Model model, RedirectAttributes redirectAttributes) {
+    public String viewPotion (@RequestParam Long id, Model model, RedirectAttributes redirectAttributes,
+                              ServletWebRequest webRequest) {
+        if (isNotModified(webRequest, "details?id=" + id))
+            return null;
+
         try {
             Potion potion = potionService.findPotionById(id);
             
@@ -123,4 +236,41 @@ public class PotionController {
         }
     }
 
+    /**
+     * Builds the link to a neighbouring catalog page, keeping only the filter criteria that are set.
+     * @param filter the current filter
+     * @param cursorName "after" or "before"
+     * @param cursor the cursor ID
+     * @param size the page size
+     * @return the catalog URL, relative to the application context
+     */
+    private static String catalogUrl (PotionFilter filter, String cursorName, Long cursor, int size) {
+        return UriComponentsBuilder.fromPath("/catalog")
+            .queryParam(cursorName, cursor)
+            .queryParam("size", size)
+            .queryParamIfPresent("namePrefix", Optional.ofNullable(filter.namePrefix()))
+            .queryParamIfPresent("legal", Optional.ofNullable(filter.legal()))
+            .queryParamIfPresent("minRisk", Optional.ofNullable(filter.minRisk()))
+            .queryParamIfPresent("maxRisk", Optional.ofNullable(filter.maxRisk()))
+            .encode()
+            .toUriString();
+    }
+
+    /**
+     * Answers conditional GETs from the inventory version, before any query or rendering happens.
+     * Pages carrying flash messages are always rendered, since the client copy would not show them.
+     * @param webRequest the current request
+     * @param view identifies the view and its parameters
+     * @return true if a 304 Not Modified has been prepared and nothing else must be done
+     */
+    private boolean isNotModified (ServletWebRequest webRequest, String view) {
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        Map<String, ?> flashMap = RequestContextUtils.getInputFlashMap(webRequest.getRequest());
+        if (flashMap != null && !flashMap.isEmpty())
+            return false;
+
+        return webRequest.checkNotModified(inventoryVersion.etag(view), inventoryVersion.lastModified());
+    }
+
 }
\ No newline at end of file
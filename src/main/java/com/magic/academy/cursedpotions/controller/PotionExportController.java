@@ -0,0 +1,56 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.util.Locale;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.magic.academy.cursedpotions.service.PotionExportService;
+import com.magic.academy.cursedpotions.service.PotionExportService.Format;
+
+/**
+ * Controller for downloading the complete potions inventory.
+ */
+@Controller
+public class PotionExportController {
+
+    /** Service that streams the inventory. */
+    private final PotionExportService potionExportService;
+
+    /**
+     * Constructs the controller with the required service dependency.
+     * @param potionExportService the export service to use
+     */
+    public PotionExportController (PotionExportService potionExportService) {
+        this.potionExportService = potionExportService;
+    }
+
+    /**
+     * Streams the whole inventory as a downloadable file.
+     * @param format the output format (csv or ndjson)
+     * @return the response whose body is written directly from the database cursor, or 400 for an unknown format
+     */
+    @GetMapping ("/export")
+    public ResponseEntity<StreamingResponseBody> exportInventory (@RequestParam (defaultValue = "csv") String format) {
+        Format exportFormat;
+        try {
+            exportFormat = Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> potionExportService.exportInventory(exportFormat, out);
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("potions." + exportFormat.getExtension()).build().toString())
+            .body(body);
+    }
+}
@@ -0,0 +1,61 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionImportResult;
+import com.magic.academy.cursedpotions.service.PotionImportService;
+
+/**
+ * Controller for bulk loading potion catalogs, either as a JSON list or as an uploaded CSV file.
+ */
+@RestController
+public class PotionImportController {
+
+    /** Service that performs the batched import. */
+    private final PotionImportService potionImportService;
+
+    /**
+     * Constructs the controller with the required service dependency.
+     * @param potionImportService the import service to use
+     */
+    public PotionImportController (PotionImportService potionImportService) {
+        this.potionImportService = potionImportService;
+    }
+
+    /**
+     * Imports a JSON list of potions.
+     * @param potions the potions to import
+     * @return the import summary
+     */
+    @PostMapping (value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public PotionImportResult importPotions (@RequestBody List<Potion> potions) {
+        return potionImportService.importPotions(potions);
+    }
+
+    /**
+     * Imports an uploaded CSV file with name, effect and levelOfRisk columns.
+     * @param file the CSV file
+     * @return the import summary, or 400 if the file cannot be parsed
+     */
+    @PostMapping (value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<PotionImportResult> importCsv (@RequestParam MultipartFile file) throws IOException {
+        List<Potion> potions;
+        try {
+            potions = potionImportService.parseCsv(file.getInputStream());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(potionImportService.importPotions(potions));
+    }
+}
@@ -0,0 +1,48 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.util.List;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.magic.academy.cursedpotions.model.PotionSearchHit;
+import com.magic.academy.cursedpotions.service.PotionSearchService;
+
+/**
+ * Controller for the full-text search over the potions.
+ */
+@Controller
+public class PotionSearchController {
+
+    /** Service that ranks the potions against a query. */
+    private final PotionSearchService potionSearchService;
+
+    /**
+     * Constructs the controller with the required service dependency.
+     * @param potionSearchService the search service to use
+     */
+    public PotionSearchController (PotionSearchService potionSearchService) {
+        this.potionSearchService = potionSearchService;
+    }
+
+    /**
+     * Displays the potions matching a free-text query, most relevant first.
+     * @param q the query, matched against the names and effects
+     * @param limit maximum number of results
+     * @param model the model to add attributes to
+     * @return the name of the search view
+     */
+    @GetMapping ("/search")
+    public String search (@RequestParam (defaultValue = "") String q,
+                          @RequestParam (defaultValue = "" + PotionSearchService.DEFAULT_LIMIT) int limit,
+                          Model model) {
+        List<PotionSearchHit> hits = q.isBlank() ? List.of() : potionSearchService.search(q, limit);
+
+        model.addAttribute("q", q);
+        model.addAttribute("hits", hits);
+        model.addAttribute("indexReady", potionSearchService.isReady());
+        return "search";
+    }
+}
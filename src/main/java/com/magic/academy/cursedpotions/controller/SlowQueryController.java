@@ -0,0 +1,51 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.magic.academy.cursedpotions.config.SlowQueryLog;
+import com.magic.academy.cursedpotions.model.SlowStatement;
+
+/**
+ * Controller exposing the slowest SQL statements recorded by the slow-query log.
+ */
+@RestController
+@RequestMapping ("/sql/slow")
+public class SlowQueryController {
+
+    /** Log holding the slowest statements. */
+    private final SlowQueryLog slowQueryLog;
+
+    /**
+     * Constructs the controller with the slow-query log.
+     * @param slowQueryLog the log to read
+     */
+    public SlowQueryController (SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Lists the slowest statements recorded since startup or the last reset.
+     * @return the statements, slowest first, with their parameters and calling method
+     */
+    @GetMapping
+    public List<SlowStatement> slowStatements () {
+        return slowQueryLog.getSlowest();
+    }
+
+    /**
+     * Forgets the recorded statements, e.g. before measuring a change.
+     * @return 204
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> reset () {
+        slowQueryLog.reset();
+
+        return ResponseEntity.noContent().build();
+    }
+}
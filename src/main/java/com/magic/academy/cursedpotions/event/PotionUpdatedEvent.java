@@ -0,0 +1,12 @@
+package com.magic.academy.cursedpotions.event;
+
+import com.magic.academy.cursedpotions.model.PotionSummary;
+
+/**
+ * Published when a potion is edited.
+ * Listeners interested in committed data should use @TransactionalEventListener with fallbackExecution.
+ * @param before the summary of the potion right before the update
+ * @param after the summary of the potion after the update, with its audited legality
+ * @param effect the new effect description, or null if it did not change
+ */
+public record PotionUpdatedEvent (PotionSummary before, PotionSummary after, String effect) { }
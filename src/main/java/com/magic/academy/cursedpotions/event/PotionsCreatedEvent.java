@@ -0,0 +1,12 @@
+package com.magic.academy.cursedpotions.event;
+
+import java.util.List;
+
+import com.magic.academy.cursedpotions.model.Potion;
+
+/**
+ * Published when potions are added to the inventory, either one by one or through a bulk import.
+ * Listeners interested in committed data should use @TransactionalEventListener with fallbackExecution.
+ * @param potions the created potions, with their generated IDs and audited legality
+ */
+public record PotionsCreatedEvent (List<Potion> potions) { }
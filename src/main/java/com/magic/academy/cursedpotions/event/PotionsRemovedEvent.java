@@ -0,0 +1,20 @@
+package com.magic.academy.cursedpotions.event;
+
+import java.util.List;
+
+import com.magic.academy.cursedpotions.model.PotionSummary;
+
+/**
+ * Published when potions are removed from the inventory.
+ * Listeners interested in committed data should use @TransactionalEventListener with fallbackExecution.
+ * @param potions the summaries of the removed potions, as they were right before the removal
+ */
+public record PotionsRemovedEvent (List<PotionSummary> potions) {
+
+    /**
+     * @return the IDs of the removed potions
+     */
+    public List<Long> ids () {
+        return potions.stream().map(PotionSummary::id).toList();
+    }
+}
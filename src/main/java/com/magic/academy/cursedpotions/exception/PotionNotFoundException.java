@@ -1,5 +1,7 @@
 package com.magic.academy.cursedpotions.exception;
 
+import java.util.Collection;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
@@ -16,4 +18,20 @@ public class PotionNotFoundException extends RuntimeException {
     public PotionNotFoundException(Long id) {
         super("Potion with ID " + id + " not found");
     }
+
+    /**
+     * Constructs the exception with the name of the potion that was not found.
+     * @param name the name of the missing potion
+     */
+    public PotionNotFoundException(String name) {
+        super("Potion named " + name + " not found");
+    }
+
+    /**
+     * Constructs the exception for a bulk operation in which some of the requested potions were not found.
+     * @param ids the IDs requested in the bulk operation
+     */
+    public PotionNotFoundException(Collection<Long> ids) {
+        super("Some of the potions with IDs " + ids + " were not found");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.magic.academy.cursedpotions.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a potion is edited from a version that is no longer the current one,
+ * because someone else changed it in the meantime.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class PotionVersionConflictException extends RuntimeException {
+    /**
+     * Constructs the exception with the ID of the potion that changed.
+     * @param id the ID of the potion
+     */
+    public PotionVersionConflictException(Long id) {
+        super("Potion with ID " + id + " was modified by someone else; reload it and try again");
+    }
+}
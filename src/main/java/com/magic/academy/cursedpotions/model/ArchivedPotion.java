@@ -0,0 +1,16 @@
+package com.magic.academy.cursedpotions.model;
+
+import java.time.Instant;
+
+/**
+ * A destroyed potion, as kept in the potions_archive table for the Ministry audits.
+ * @param id the archive entry ID, increasing with every destruction and used as pagination cursor
+ * @param potionId the ID the potion had in the inventory
+ * @param name the potion name
+ * @param effect the documented effect
+ * @param levelOfRisk the risk level, from 1 to 100
+ * @param legal whether the potion was legal when destroyed
+ * @param destroyedAt when the potion was destroyed
+ */
+public record ArchivedPotion (long id, long potionId, String name, String effect, int levelOfRisk, boolean legal,
+                              Instant destroyedAt) { }
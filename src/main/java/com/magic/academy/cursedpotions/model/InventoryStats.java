@@ -0,0 +1,41 @@
+package com.magic.academy.cursedpotions.model;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of the inventory statistics shown in the dashboard.
+ * @param total number of potions
+ * @param legal number of legal potions
+ * @param illegal number of illegal potions
+ * @param riskHistogram number of potions per risk level: position 0 holds level 1 and position 99 level 100
+ */
+public record InventoryStats (long total, long legal, long illegal, long[] riskHistogram) {
+
+    /**
+     * @return the largest bucket of the histogram, useful to scale it (at least 1)
+     */
+    public long maxBucket () {
+        long max = 1;
+        for (long count : riskHistogram)
+            max = Math.max(max, count);
+        return max;
+    }
+
+    @Override
+    public boolean equals (Object other) {
+        return other instanceof InventoryStats stats
+            && total == stats.total && legal == stats.legal && illegal == stats.illegal
+            && Arrays.equals(riskHistogram, stats.riskHistogram);
+    }
+
+    @Override
+    public int hashCode () {
+        return 31 * Long.hashCode(total) + Arrays.hashCode(riskHistogram);
+    }
+
+    @Override
+    public String toString () {
+        return "InventoryStats[total=" + total + ", legal=" + legal + ", illegal=" + illegal
+            + ", riskHistogram=" + Arrays.toString(riskHistogram) + "]";
+    }
+}
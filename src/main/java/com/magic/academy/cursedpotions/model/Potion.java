@@ -1,21 +1,40 @@
 package com.magic.academy.cursedpotions.model;
 import java.util.Objects;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "potions")
+@Table(name = "potions", indexes = {
+    // Filters by legality and risk range; the unique constraint on name already indexes name prefixes
+    @Index(name = "idx_potions_legal_risk", columnList = "legal, levelOfRisk")
+})
+// Read-mostly entity: kept in the second-level cache, with soft locks so that a removal is never served stale
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Potion.CACHE_REGION)
+@NaturalIdCache(region = Potion.NATURAL_ID_CACHE_REGION)
 public class Potion {
 
+    /** Second-level cache region of the potions. */
+    public static final String CACHE_REGION = "potions";
+
+    /** Second-level cache region resolving potion names to IDs. */
+    public static final String NATURAL_ID_CACHE_REGION = "potions-by-name";
+
     /** The unique identifier of the potion. */
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,6 +43,7 @@ public class Potion {
     /** The name of the potion. */
     @NotBlank(message = "The potion name cannot be empty")
     @Size(max = 100, message = "The name must be less than 100 characters")
+    @NaturalId
     @Column(nullable = false, unique = true, length = 100)
     private String name;
 
@@ -43,6 +63,11 @@ public class Potion {
     @Column(nullable = false)
     private boolean legal;
 
+    /** Optimistic lock version, increased by every update. */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     public Potion () { }
 
     public Potion (String name, String effect, int levelOfRisk) {
@@ -64,12 +89,14 @@ public class Potion {
     public String getEffect () { return effect; }
     public int getLevelOfRisk () { return levelOfRisk; }
     public boolean isLegal () { return legal; }
+    public long getVersion () { return version; }
 
     public void setName (String name) { this.name = name; }
     public void setId (Long id) { this.id = id; }
     public void setEffect (String effect) { this.effect = effect; }
     public void setLevelOfRisk (int levelOfRisk) { this.levelOfRisk = levelOfRisk; }
     public void setLegal (boolean legal) { this.legal = legal; }
+    public void setVersion (long version) { this.version = version; }
 
     /**
      * Compares this potion with another object for equality based on all attributes.
@@ -0,0 +1,25 @@
+package com.magic.academy.cursedpotions.model;
+
+import java.time.Instant;
+
+/**
+ * A committed inventory change, as recorded in the potion_changes table and sent by the change feed.
+ * @param id the change ID, increasing with every change and used to resume the feed
+ * @param type what happened
+ * @param potion the summary of the created, removed or updated potion, or null for a RESYNC
+ * @param changedAt when the change was recorded
+ */
+public record PotionChange (long id, Type type, PotionSummary potion, Instant changedAt) {
+
+    /** Kinds of change. */
+    public enum Type {
+        /** A potion was created. */
+        CREATED,
+        /** A potion was removed. */
+        REMOVED,
+        /** A potion was edited. */
+        UPDATED,
+        /** Too many potions changed to list them; clients should reload the catalog. */
+        RESYNC
+    }
+}
@@ -0,0 +1,23 @@
+package com.magic.academy.cursedpotions.model;
+
+/**
+ * Complete public representation of a potion returned by the JSON API.
+ * @param id the potion ID
+ * @param name the potion name
+ * @param effect the description of what the potion does
+ * @param levelOfRisk the risk level, from 1 to 100
+ * @param legal whether the potion is legal
+ * @param version the version to send back when updating the potion
+ */
+public record PotionDetails (Long id, String name, String effect, int levelOfRisk, boolean legal, long version) {
+
+    /**
+     * Builds the representation of a potion.
+     * @param potion the potion entity
+     * @return its public representation
+     */
+    public static PotionDetails of (Potion potion) {
+        return new PotionDetails(potion.getId(), potion.getName(), potion.getEffect(), potion.getLevelOfRisk(), potion.isLegal(),
+            potion.getVersion());
+    }
+}
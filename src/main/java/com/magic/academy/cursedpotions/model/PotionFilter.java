@@ -0,0 +1,30 @@
+package com.magic.academy.cursedpotions.model;
+
+/**
+ * Criteria to narrow down the catalog. Null components do not filter.
+ * @param legal only legal (true) or illegal (false) potions
+ * @param minRisk minimum risk level, inclusive
+ * @param maxRisk maximum risk level, inclusive
+ * @param namePrefix only potions whose name starts with this text
+ */
+public record PotionFilter (Boolean legal, Integer minRisk, Integer maxRisk, String namePrefix) {
+
+    /** Filter that matches every potion. */
+    public static final PotionFilter NONE = new PotionFilter(null, null, null, null);
+
+    /**
+     * Normalizes a blank name prefix to null, so an empty search box does not filter.
+     */
+    public PotionFilter {
+        if (namePrefix != null && namePrefix.isBlank())
+            namePrefix = null;
+    }
+
+    /**
+     * Tells whether this filter matches every potion.
+     * @return true if no criterion is set
+     */
+    public boolean isEmpty () {
+        return legal == null && minRisk == null && maxRisk == null && namePrefix == null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.magic.academy.cursedpotions.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk potion import.
+ * @param imported the number of potions inserted
+ * @param duplicateNames names skipped because they already exist in the inventory or appear twice in the import
+ * @param invalidRows descriptions of the rows rejected by validation
+ */
+public record PotionImportResult (int imported, List<String> duplicateNames, List<String> invalidRows) { }
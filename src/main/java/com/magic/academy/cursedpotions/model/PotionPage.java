@@ -0,0 +1,16 @@
+package com.magic.academy.cursedpotions.model;
+
+import java.util.List;
+
+/**
+ * A single page of the catalog obtained through keyset (seek) pagination on the potion ID.
+ * @param potions the potions in this page, ordered by ascending ID
+ * @param size the requested page size
+ * @param previousCursor the ID to seek before to reach the previous page, or null if this is the first page
+ * @param nextCursor the ID to seek after to reach the next page, or null if this is the last page
+ */
+public record PotionPage (List<Potion> potions, int size, Long previousCursor, Long nextCursor) {
+
+    public boolean hasPrevious () { return previousCursor != null; }
+    public boolean hasNext () { return nextCursor != null; }
+}
@@ -0,0 +1,26 @@
+package com.magic.academy.cursedpotions.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Partial update of a potion. Null components are left unchanged; the name cannot be changed.
+ * @param effect the new effect description
+ * @param levelOfRisk the new risk level, from 1 to 100; the legality is audited again
+ * @param version the version of the potion the change is based on
+ */
+public record PotionPatch (
+    @Pattern (regexp = "(?s).*\\S.*", message = "The effect description cannot be empty")
+    @Size (max = 500, message = "The effect must be less than 500 characters")
+    String effect,
+
+    @Min (value = 1, message = "Risk level must be at least 1")
+    @Max (value = 100, message = "Risk level cannot exceed 100")
+    Integer levelOfRisk,
+
+    @NotNull (message = "The version of the potion being edited is required")
+    Long version) {
+}
@@ -0,0 +1,9 @@
+package com.magic.academy.cursedpotions.model;
+
+/**
+ * Number of potions sharing a risk level and legality, as aggregated by the database.
+ * @param levelOfRisk the risk level, from 1 to 100
+ * @param legal whether the counted potions are legal
+ * @param count the number of potions
+ */
+public record PotionRiskCount (int levelOfRisk, boolean legal, long count) { }
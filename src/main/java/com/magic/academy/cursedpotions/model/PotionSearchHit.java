@@ -0,0 +1,8 @@
+package com.magic.academy.cursedpotions.model;
+
+/**
+ * A potion found by the full-text search, with its relevance score.
+ * @param potion the matching potion
+ * @param score the BM25 relevance of the potion for the query; higher is better
+ */
+public record PotionSearchHit (Potion potion, double score) { }
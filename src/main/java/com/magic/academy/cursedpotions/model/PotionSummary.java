@@ -0,0 +1,11 @@
+package com.magic.academy.cursedpotions.model;
+
+/**
+ * Lightweight read-only view of a potion for listings, without the effect description.
+ * Queried directly as a projection, so no Potion entity is hydrated or tracked.
+ * @param id the potion ID
+ * @param name the potion name
+ * @param legal whether the potion is legal
+ * @param levelOfRisk the risk level, from 1 to 100
+ */
+public record PotionSummary (Long id, String name, boolean legal, int levelOfRisk) { }
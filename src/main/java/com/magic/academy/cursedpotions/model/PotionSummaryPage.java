@@ -0,0 +1,11 @@
+package com.magic.academy.cursedpotions.model;
+
+import java.util.List;
+
+/**
+ * A page of potion summaries obtained through keyset pagination on the potion ID.
+ * @param potions the summaries in this page, ordered by ascending ID
+ * @param size the requested page size
+ * @param nextCursor the ID to seek after to reach the next page, or null if this is the last page
+ */
+public record PotionSummaryPage (List<PotionSummary> potions, int size, Long nextCursor) { }
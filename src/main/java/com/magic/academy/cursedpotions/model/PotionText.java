@@ -0,0 +1,10 @@
+package com.magic.academy.cursedpotions.model;
+
+/**
+ * Read-only view of the searchable text of a potion.
+ * Queried directly as a projection, so no Potion entity is hydrated or tracked.
+ * @param id the potion ID
+ * @param name the potion name
+ * @param effect the effect description
+ */
+public record PotionText (Long id, String name, String effect) { }
@@ -0,0 +1,13 @@
+package com.magic.academy.cursedpotions.model;
+
+import java.time.Instant;
+
+/**
+ * A SQL statement that took longer than the slow-query threshold.
+ * @param executedAt when the statement finished
+ * @param elapsedMillis execution time in milliseconds
+ * @param sql the statement text, with placeholders
+ * @param parameters the bound parameters, one bracketed group per batch entry
+ * @param caller the application method that ran it, e.g. PotionService.addPotion
+ */
+public record SlowStatement (Instant executedAt, long elapsedMillis, String sql, String parameters, String caller) { }
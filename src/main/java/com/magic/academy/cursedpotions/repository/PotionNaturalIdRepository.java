@@ -0,0 +1,22 @@
+package com.magic.academy.cursedpotions.repository;
+
+import java.util.Optional;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.magic.academy.cursedpotions.model.Potion;
+
+/**
+ * Lookups of potions by their natural ID, the unique name.
+ */
+public interface PotionNaturalIdRepository {
+
+    /**
+     * Loads a potion by its exact name through the natural-ID cache, so repeated lookups
+     * are resolved without querying the database.
+     * @param name the potion name
+     * @return the potion, or empty if there is none with that name
+     */
+    @Transactional (readOnly = true)
+    public Optional<Potion> loadByName (String name);
+}
@@ -0,0 +1,27 @@
+package com.magic.academy.cursedpotions.repository;
+
+import java.util.Optional;
+
+import org.hibernate.Session;
+
+import com.magic.academy.cursedpotions.model.Potion;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Implementation of the natural-ID lookups on top of the Hibernate session.
+ */
+class PotionNaturalIdRepositoryImpl implements PotionNaturalIdRepository {
+
+    /** Entity manager bound to the current transaction. */
+    private final EntityManager entityManager;
+
+    PotionNaturalIdRepositoryImpl (EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<Potion> loadByName (String name) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Potion.class).loadOptional(name);
+    }
+}
@@ -1,15 +1,137 @@
 package com.magic.academy.cursedpotions.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionRiskCount;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+import com.magic.academy.cursedpotions.model.PotionText;
+
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository interface for performing CRUD operations on Potion entities.
 */
 @Repository
-public interface PotionRepository extends JpaRepository<Potion, Long> {
-    
+public interface PotionRepository extends JpaRepository<Potion, Long>, JpaSpecificationExecutor<Potion>,
+                                          PotionNaturalIdRepository, PotionWriteRepository {
+
+    /**
+     * Checks whether a potion with the given name exists.
+     * @param name the potion name
+     * @return true if a potion has that name
+     */
     public boolean existsByName (String name);
-}
\ No newline at end of file
+
+    /**
+     * Checks many names at once against the inventory.
+     * @param names the names to look up
+     * @return the names among the given ones that already belong to a potion
+     */
+    @Query ("select p.name from Potion p where p.name in :names")
+    public List<String> findExistingNames (@Param ("names") Collection<String> names);
+
+    /**
+     * Retrieves the first potions of the catalog ordered by ID.
+     * @param limit maximum number of potions to return
+     * @return the potions with the lowest IDs
+     */
+    @QueryHints (@QueryHint (name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    public List<Potion> findAllByOrderByIdAsc (Limit limit);
+
+    /**
+     * Seeks forward in the catalog: potions with an ID greater than the given one, ordered by ID.
+     * @param id the last ID already seen
+     * @param limit maximum number of potions to return
+     * @return the potions following the given ID
+     */
+    @QueryHints (@QueryHint (name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    public List<Potion> findByIdGreaterThanOrderByIdAsc (Long id, Limit limit);
+
+    /**
+     * Seeks backward in the catalog: potions with an ID lower than the given one, ordered by descending ID.
+     * @param id the first ID already seen
+     * @param limit maximum number of potions to return
+     * @return the potions preceding the given ID, closest first
+     */
+    @QueryHints (@QueryHint (name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    public List<Potion> findByIdLessThanOrderByIdDesc (Long id, Limit limit);
+
+    /**
+     * Retrieves the first potions matching some criteria, pushing filter, order and limit down to SQL.
+     * @param specification the criteria (see PotionSpecifications)
+     * @param sort the order of the results
+     * @param limit maximum number of potions to return
+     * @return the matching potions
+     */
+    public default List<Potion> findMatching (Specification<Potion> specification, Sort sort, Limit limit) {
+        return findBy(specification, query -> query.sortBy(sort).limit(limit.max()).all());
+    }
+
+    /**
+     * Retrieves the summaries of the first potions of the catalog ordered by ID.
+     * @param limit maximum number of summaries to return
+     * @return the summaries of the potions with the lowest IDs
+     */
+    @QueryHints (@QueryHint (name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    public List<PotionSummary> findSummariesByOrderByIdAsc (Limit limit);
+
+    /**
+     * Seeks forward in the catalog returning only summaries.
+     * @param id the last ID already seen
+     * @param limit maximum number of summaries to return
+     * @return the summaries of the potions following the given ID
+     */
+    @QueryHints (@QueryHint (name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    public List<PotionSummary> findSummariesByIdGreaterThanOrderByIdAsc (Long id, Limit limit);
+
+    /**
+     * Finds the summaries of the given potions; unknown IDs are skipped.
+     * @param ids the potion IDs
+     * @return the summaries of the existing potions
+     */
+    public List<PotionSummary> findSummariesByIdIn (Collection<Long> ids);
+
+    /**
+     * Counts the potions per risk level and legality in a single GROUP BY,
+     * answered from the (legal, level_of_risk) index.
+     * @return one count per risk level and legality present in the inventory
+     */
+    @Query ("select new com.magic.academy.cursedpotions.model.PotionRiskCount(p.levelOfRisk, p.legal, count(p)) "
+        + "from Potion p group by p.levelOfRisk, p.legal")
+    public List<PotionRiskCount> countByRiskAndLegality ();
+
+    /**
+     * Streams every potion ordered by ID, fetching rows from the database in chunks.
+     * Must be consumed inside a transaction and closed afterwards.
+     * @return a stream over the whole inventory
+     */
+    @QueryHints ({
+        @QueryHint (name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint (name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        // A full scan would only churn the second-level cache
+        @QueryHint (name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    public Stream<Potion> streamAllByOrderByIdAsc ();
+
+    /**
+     * Streams the searchable text of every potion ordered by ID, fetching rows in chunks.
+     * Must be consumed inside a transaction and closed afterwards.
+     * @return a stream over the names and effects of the whole inventory
+     */
+    @QueryHints (@QueryHint (name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    public Stream<PotionText> streamTextsByOrderByIdAsc ();
+}
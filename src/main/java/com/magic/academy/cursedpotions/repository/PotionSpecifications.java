@@ -0,0 +1,69 @@
+package com.magic.academy.cursedpotions.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionFilter;
+
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Query criteria on potions, written so they can be resolved with the indexes declared on the potions table:
+ * legality and risk range use (legal, level_of_risk), the name prefix uses the unique index on name.
+ */
+public final class PotionSpecifications {
+
+    private PotionSpecifications () { }
+
+    /**
+     * Builds the criteria matching a catalog filter.
+     * @param filter the filter to apply
+     * @return the specification of the potions matching the filter
+     */
+    public static Specification<Potion> matching (PotionFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filter.legal() != null)
+                predicates.add(cb.equal(root.get("legal"), filter.legal()));
+            if (filter.minRisk() != null)
+                predicates.add(cb.greaterThanOrEqualTo(root.get("levelOfRisk"), filter.minRisk()));
+            if (filter.maxRisk() != null)
+                predicates.add(cb.lessThanOrEqualTo(root.get("levelOfRisk"), filter.maxRisk()));
+            if (filter.namePrefix() != null)
+                predicates.add(cb.like(root.get("name"), escapeLike(filter.namePrefix()) + "%", '\\'));
+
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Potions with an ID greater than the given one (forward keyset seek).
+     * @param id the last ID already seen
+     * @return the specification
+     */
+    public static Specification<Potion> idGreaterThan (Long id) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    /**
+     * Potions with an ID lower than the given one (backward keyset seek).
+     * @param id the first ID already seen
+     * @return the specification
+     */
+    public static Specification<Potion> idLessThan (Long id) {
+        return (root, query, cb) -> cb.lessThan(root.get("id"), id);
+    }
+
+    /**
+     * Escapes the LIKE wildcards of a user supplied text, so it is matched literally.
+     * @param text the raw text
+     * @return the text with %, _ and \ escaped
+     */
+    private static String escapeLike (String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,46 @@
+package com.magic.academy.cursedpotions.repository;
+
+import java.util.Collection;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.magic.academy.cursedpotions.model.PotionSummary;
+
+/**
+ * Single-statement writes on potions that keep the second-level cache warm. Hibernate runs its own update
+ * and delete statements as bulk operations, which drop every cached potion and name; these run over JDBC
+ * instead and only drop the entries of the potions they change.
+ */
+public interface PotionWriteRepository {
+
+    /**
+     * Updates a potion with a single UPDATE statement, without loading it first, only if it is still at
+     * the given version. Null values leave their column unchanged. The version is increased, so a second
+     * update based on the same version matches no row. Only that potion is evicted from the second-level cache.
+     * @param id the ID of the potion to update
+     * @param version the version the change is based on
+     * @param effect the new effect, or null
+     * @param levelOfRisk the new risk level, or null
+     * @param legal the legality audited for the new risk level, or null
+     * @return the number of updated rows (0 if the potion does not exist or is at another version)
+     */
+    @Transactional
+    public int updateIfVersionMatches (Long id, long version, String effect, Integer levelOfRisk, Boolean legal);
+
+    /**
+     * Deletes potions with a single DELETE statement, without loading them first. Only those potions and
+     * their names are evicted from the second-level and natural-ID caches.
+     * @param potions the summaries of the potions to delete, which give their IDs and names
+     * @return the number of deleted rows
+     */
+    @Transactional
+    public int deleteReturningCount (Collection<PotionSummary> potions);
+
+    /**
+     * Tells Hibernate that potions were inserted behind its back, e.g. by the JDBC batches of the import:
+     * the cached query results over the potions table are invalidated when the transaction completes.
+     * Cached potions and names are kept, since no existing row changed.
+     */
+    @Transactional
+    public void invalidateCachedQueries ();
+}
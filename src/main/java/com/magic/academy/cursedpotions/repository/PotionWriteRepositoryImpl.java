@@ -0,0 +1,123 @@
+package com.magic.academy.cursedpotions.repository;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.cache.spi.access.CachedDomainDataAccess;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.TransactionCompletionCallbacks.AfterCompletionCallback;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Implementation of the single-statement writes over JDBC, in the transaction of the entity manager.
+ * Before each statement the cache entries it affects are soft-locked and the potions table is marked as
+ * being invalidated, as Hibernate does for the entities it writes itself: until the transaction completes
+ * nobody reads or stores those entries, and cached queries over the table are not used. On completion the
+ * entries are released, which leaves them out of the cache until they are loaded again, and the cached
+ * query results are invalidated.
+ */
+class PotionWriteRepositoryImpl implements PotionWriteRepository {
+
+    private static final String UPDATE_SQL = "UPDATE potions SET effect = COALESCE(?, effect), "
+        + "level_of_risk = COALESCE(?, level_of_risk), legal = COALESCE(?, legal), version = version + 1 "
+        + "WHERE id = ? AND version = ?";
+
+    private static final int[] UPDATE_TYPES = { Types.VARCHAR, Types.INTEGER, Types.BOOLEAN, Types.BIGINT, Types.BIGINT };
+
+    /** Entity manager bound to the current transaction. */
+    private final EntityManager entityManager;
+
+    /** Runs the statements on the connection of the current transaction. */
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Same template with named parameters, to expand the ID lists. */
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    PotionWriteRepositoryImpl (EntityManager entityManager, JdbcTemplate jdbcTemplate) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    public int updateIfVersionMatches (Long id, long version, String effect, Integer levelOfRisk, Boolean legal) {
+        // The name is the immutable natural ID, so its resolution stays valid
+        lockUntilCompletion(List.of(id), List.of());
+        return jdbcTemplate.update(UPDATE_SQL, new Object[] { effect, levelOfRisk, legal, id, version }, UPDATE_TYPES);
+    }
+
+    @Override
+    public int deleteReturningCount (Collection<PotionSummary> potions) {
+        if (potions.isEmpty())
+            return 0;
+
+        List<Long> ids = potions.stream().map(PotionSummary::id).toList();
+        lockUntilCompletion(ids, potions.stream().map(PotionSummary::name).toList());
+        return namedJdbcTemplate.update("DELETE FROM potions WHERE id IN (:ids)", Map.of("ids", ids));
+    }
+
+    @Override
+    public void invalidateCachedQueries () {
+        lockUntilCompletion(List.of(), List.of());
+    }
+
+    /**
+     * Flushes the pending changes of the session, soft-locks the cache entries of the given potions and names
+     * and pre-invalidates the potions table, releasing both when the transaction completes.
+     * @param ids the IDs of the potions about to change
+     * @param names the names whose resolution to an ID is about to change
+     */
+    private void lockUntilCompletion (Collection<Long> ids, Collection<String> names) {
+        // Hibernate flushes before its own statements too, so they see the changes made through the session
+        entityManager.flush();
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        SessionFactoryImplementor factory = session.getFactory();
+        EntityPersister persister = factory.getMappingMetamodel().getEntityDescriptor(Potion.class);
+        List<AfterCompletionCallback> releases = new ArrayList<>();
+
+        EntityDataAccess entities = persister.getCacheAccessStrategy();
+        if (entities != null) {
+            for (Long id : ids)
+                releases.add(lock(session, entities, entities.generateCacheKey(id, persister, factory, null)));
+        }
+
+        NaturalIdDataAccess naturalIds = persister.getNaturalIdCacheAccessStrategy();
+        if (naturalIds != null) {
+            for (String name : names) {
+                Object naturalId = persister.getNaturalIdMapping().normalizeInput(name);
+                releases.add(lock(session, naturalIds, naturalIds.generateCacheKey(naturalId, persister, session)));
+            }
+        }
+
+        TimestampsCache timestamps = factory.getCache().getTimestampsCache();
+        if (timestamps != null) {
+            String[] spaces = persister.getPropertySpaces();
+            timestamps.preInvalidate(spaces, session);
+            releases.add((success, completed) -> timestamps.invalidate(spaces, completed));
+        }
+
+        for (AfterCompletionCallback release : releases)
+            session.getTransactionCompletionCallbacks().registerCallback(release);
+    }
+
+    private static AfterCompletionCallback lock (SessionImplementor session, CachedDomainDataAccess access, Object key) {
+        SoftLock lock = access.lockItem(session, key, null);
+        return (success, completed) -> access.unlockItem(completed, key, lock);
+    }
+}
@@ -0,0 +1,62 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 parser: comma separated fields, optionally quoted, with doubled quotes as escapes.
+ */
+final class CsvParser {
+
+    private CsvParser () { }
+
+    /**
+     * Parses CSV content into records, skipping blank lines.
+     * @param content the whole CSV text
+     * @return the records, each one as a list of fields
+     */
+    static List<List<String>> parse (String content) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < content.length() && content.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < content.length() && content.charAt(i + 1) == '\n')
+                    i++;
+                endRecord(records, fields, field);
+                fields = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        endRecord(records, fields, field);
+
+        return records;
+    }
+
+    private static void endRecord (List<List<String>> records, List<String> fields, StringBuilder field) {
+        fields.add(field.toString());
+        field.setLength(0);
+
+        if (fields.size() > 1 || !fields.get(0).isBlank())
+            records.add(fields);
+    }
+}
@@ -0,0 +1,303 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.magic.academy.cursedpotions.event.PotionUpdatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsCreatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsRemovedEvent;
+import com.magic.academy.cursedpotions.model.InventoryStats;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionRiskCount;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+/**
+ * In-memory aggregates of the inventory: legal and illegal counts and a histogram of the risk levels.
+ * Seeded once at startup with a single GROUP BY and updated by the committed inventory changes,
+ * so reading them costs the same whatever the size of the table. A periodic reconciliation compares
+ * them with the database and corrects any drift, e.g. rows written by other tools.
+ * <p>
+ * A change is announced before its transaction commits and counted once it has, both under the same lock
+ * the reconciliation takes to compare and correct. A reconciliation that overlaps an announced change, or
+ * during which a change is counted, is skipped: its GROUP BY may or may not include that change, and
+ * correcting the aggregates with it could count the change twice or lose it. Skips are counted and logged,
+ * with a warning when they keep happening, since a reconciliation that never runs never corrects a drift.
+ * <p>
+ * Only the changes committed through this instance are counted as they happen: with several instances
+ * writing, the changes made through the others show up when a reconciliation corrects the figures, up to
+ * one interval late.
+ */
+@Component
+public class InventoryStatistics implements SmartInitializingSingleton {
+
+    /** Reconciliations skipped in a row after which each further skip is logged as a warning. */
+    private static final int SKIPS_BEFORE_WARNING = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryStatistics.class);
+
+    /** Number of legal potions. */
+    private final LongAdder legal = new LongAdder();
+
+    /** Number of illegal potions. */
+    private final LongAdder illegal = new LongAdder();
+
+    /** Number of potions per risk level, from 1 (position 0) to 100 (position 99). */
+    private final LongAdder[] riskHistogram = new LongAdder[100];
+
+    /** Repository used to seed and reconcile the aggregates. */
+    private final PotionRepository potionRepository;
+
+    /** Serializes counting the committed changes with the comparison and correction of a reconciliation. */
+    private final ReentrantLock changes = new ReentrantLock();
+
+    /** Changes whose transaction is committing but has not completed yet; guarded by changes. */
+    private int pending;
+
+    /** Changes counted so far, which tells a reconciliation whether any was counted meanwhile; guarded by changes. */
+    private long counted;
+
+    /** Reconciliations skipped since startup; guarded by changes. */
+    private long skipped;
+
+    /** Reconciliations skipped since the last one that compared the aggregates; guarded by changes. */
+    private int skippedInARow;
+
+    /**
+     * Constructs the statistics store.
+     * @param potionRepository repository used to seed and reconcile the aggregates
+     */
+    public InventoryStatistics (PotionRepository potionRepository) {
+        this.potionRepository = potionRepository;
+        for (int i = 0; i < riskHistogram.length; i++)
+            riskHistogram[i] = new LongAdder();
+    }
+
+    /**
+     * Seeds the aggregates before the application starts serving requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated () {
+        apply(aggregate(potionRepository.countByRiskAndLegality()));
+        log.info("Inventory statistics seeded with {} potions", legal.sum() + illegal.sum());
+    }
+
+    /**
+     * Returns the current statistics without touching the database.
+     * @return a snapshot of the aggregates
+     */
+    public InventoryStats snapshot () {
+        long[] histogram = new long[riskHistogram.length];
+        for (int i = 0; i < histogram.length; i++)
+            histogram[i] = riskHistogram[i].sum();
+
+        long legalCount = legal.sum();
+        long illegalCount = illegal.sum();
+        return new InventoryStats(legalCount + illegalCount, legalCount, illegalCount, histogram);
+    }
+
+    /**
+     * Counts the created potions, with the legality decided by the risk audit.
+     * @param event the created potions
+     */
+    @TransactionalEventListener (phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPotionsCreated (PotionsCreatedEvent event) {
+        countOnCommit(() -> {
+            for (Potion potion : event.potions())
+                count(potion.getLevelOfRisk(), potion.isLegal(), 1);
+        });
+    }
+
+    /**
+     * Discounts the removed potions.
+     * @param event the summaries of the removed potions
+     */
+    @TransactionalEventListener (phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPotionsRemoved (PotionsRemovedEvent event) {
+        countOnCommit(() -> {
+            for (PotionSummary potion : event.potions())
+                count(potion.levelOfRisk(), potion.legal(), -1);
+        });
+    }
+
+    /**
+     * Moves the edited potion to its new risk level and legality.
+     * @param event the potion before and after the edit
+     */
+    @TransactionalEventListener (phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPotionUpdated (PotionUpdatedEvent event) {
+        countOnCommit(() -> {
+            count(event.before().levelOfRisk(), event.before().legal(), -1);
+            count(event.after().levelOfRisk(), event.after().legal(), 1);
+        });
+    }
+
+    /**
+     * Compares the aggregates with the database and corrects them if they have drifted.
+     * The check is skipped when a change is committing or gets counted while the database is being read.
+     * @return true if the aggregates had drifted and were corrected
+     */
+    @Scheduled (initialDelayString = "${potions.stats.reconcile-interval:PT5M}",
+                fixedDelayString = "${potions.stats.reconcile-interval:PT5M}")
+    public boolean reconcile () {
+        long countedBefore;
+        changes.lock();
+        try {
+            if (pending > 0)
+                return skip("a change was committing");
+            countedBefore = counted;
+        } finally {
+            changes.unlock();
+        }
+
+        // Outside the lock, so committing changes do not wait for the query
+        InventoryStats actual = aggregate(potionRepository.countByRiskAndLegality());
+
+        changes.lock();
+        try {
+            if (pending > 0 || counted != countedBefore)
+                return skip("a change was committed while the database was read");
+
+            skippedInARow = 0;
+            InventoryStats current = snapshot();
+            if (current.equals(actual))
+                return false;
+
+            log.warn("Inventory statistics drifted from the database ({} potions counted, {} stored); correcting them",
+                current.total(), actual.total());
+            apply(new InventoryStats(actual.total() - current.total(), actual.legal() - current.legal(),
+                actual.illegal() - current.illegal(), difference(actual.riskHistogram(), current.riskHistogram())));
+            return true;
+        } finally {
+            changes.unlock();
+        }
+    }
+
+    /**
+     * @return the reconciliations skipped since startup because a change overlapped them
+     */
+    public long getSkippedReconciliations () {
+        changes.lock();
+        try {
+            return skipped;
+        } finally {
+            changes.unlock();
+        }
+    }
+
+    /**
+     * Records a skipped reconciliation, warning once several were skipped in a row. Called under the lock.
+     * @param reason why the reconciliation was skipped
+     * @return false, as the aggregates were not corrected
+     */
+    private boolean skip (String reason) {
+        skipped++;
+        skippedInARow++;
+        if (skippedInARow >= SKIPS_BEFORE_WARNING)
+            log.warn("Inventory statistics reconciliation skipped {} times in a row; last time {}", skippedInARow, reason);
+        else
+            log.debug("Inventory statistics reconciliation skipped: {}", reason);
+        return false;
+    }
+
+    /**
+     * Counts a change once its transaction commits, announcing it as pending until the transaction completes.
+     * Without a transaction the change is counted right away.
+     * @param change the counting of the change
+     */
+    private void countOnCommit (Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            countNow(change, false);
+            return;
+        }
+
+        changes.lock();
+        try {
+            pending++;
+        } finally {
+            changes.unlock();
+        }
+        // Registered during the commit, it is only called back on completion
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion (int status) {
+                countNow(status == STATUS_COMMITTED ? change : null, true);
+            }
+        });
+    }
+
+    /**
+     * Counts a change under the lock.
+     * @param change the counting of the change, or null if it was not committed
+     * @param wasPending whether the change had been announced as pending
+     */
+    private void countNow (Runnable change, boolean wasPending) {
+        changes.lock();
+        try {
+            if (wasPending)
+                pending--;
+            if (change != null) {
+                change.run();
+                counted++;
+            }
+        } finally {
+            changes.unlock();
+        }
+    }
+
+    /**
+     * Adds a delta to the aggregates of one potion.
+     * @param levelOfRisk the potion risk level
+     * @param isLegal whether the potion is legal
+     * @param delta 1 for a new potion, -1 for a removed one
+     */
+    private void count (int levelOfRisk, boolean isLegal, long delta) {
+        (isLegal ? legal : illegal).add(delta);
+        if (levelOfRisk >= 1 && levelOfRisk <= riskHistogram.length)
+            riskHistogram[levelOfRisk - 1].add(delta);
+    }
+
+    /**
+     * Adds deltas to every aggregate. Readers are not blocked, since adders only accumulate.
+     * @param delta the amounts to add
+     */
+    private void apply (InventoryStats delta) {
+        legal.add(delta.legal());
+        illegal.add(delta.illegal());
+        for (int i = 0; i < riskHistogram.length; i++)
+            riskHistogram[i].add(delta.riskHistogram()[i]);
+    }
+
+    private static InventoryStats aggregate (List<PotionRiskCount> counts) {
+        long legalCount = 0;
+        long illegalCount = 0;
+        long[] histogram = new long[100];
+        for (PotionRiskCount count : counts) {
+            if (count.legal())
+                legalCount += count.count();
+            else
+                illegalCount += count.count();
+            if (count.levelOfRisk() >= 1 && count.levelOfRisk() <= histogram.length)
+                histogram[count.levelOfRisk() - 1] += count.count();
+        }
+        return new InventoryStats(legalCount + illegalCount, legalCount, illegalCount, histogram);
+    }
+
+    private static long[] difference (long[] minuend, long[] subtrahend) {
+        long[] difference = new long[minuend.length];
+        for (int i = 0; i < difference.length; i++)
+            difference[i] = minuend[i] - subtrahend[i];
+        return difference;
+    }
+}
@@ -0,0 +1,93 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Version counter of the inventory, bumped on every change.
+ * Views derived from the inventory use it as a validator for conditional GETs, so an unchanged
+ * inventory can be answered with 304 Not Modified without touching the database.
+ * The counter lives in memory and restarts at 0 on every boot, so the ETags also carry a random epoch drawn
+ * at startup: an ETag issued by an earlier process, or by another instance, never matches the current one.
+ * Changes written through another instance do not bump this counter, so its clients could still be answered
+ * 304 for a view another instance has changed.
+ */
+@Component
+public class InventoryVersion {
+
+    /** Random tag of this process, so versions counted by different processes are never confused. */
+    private final String epoch = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+
+    /** Current version, increased after each change. */
+    private final AtomicLong version = new AtomicLong();
+
+    /** Time of the last change, in epoch milliseconds (initially the startup time). */
+    private volatile long lastModified = System.currentTimeMillis();
+
+    /**
+     * Records that the inventory has changed. Inside a transaction the bump is deferred until commit,
+     * so a new version is never paired with data that readers cannot see yet.
+     */
+    public void bump () {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit () {
+                    increment();
+                }
+            });
+        } else {
+            increment();
+        }
+    }
+
+    /**
+     * Returns the current version.
+     * @return the number of changes since startup
+     */
+    public long current () {
+        return version.get();
+    }
+
+    /**
+     * Returns the time of the last change.
+     * @return epoch milliseconds of the last change
+     */
+    public long lastModified () {
+        return lastModified;
+    }
+
+    private void increment () {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Builds a weak ETag for a view of the inventory at the current version of this process. It is weak because
+     * the same page may be sent gzip-compressed or not, and the server only compresses responses without a strong ETag.
+     * The view is identified by the first 128 bits of its SHA-256, so two views can only share an ETag, and answer
+     * each other's conditional GETs with 304, if their digests collide.
+     * @param view identifies the view and its parameters (e.g. "catalog?after=10&size=24")
+     * @return the quoted ETag value
+     */
+    public String etag (String view) {
+        return "W/\"" + epoch + "-" + current() + "-" + digest(view) + "\"";
+    }
+
+    private static String digest (String view) {
+        try {
+            byte[] sha256 = MessageDigest.getInstance("SHA-256").digest(view.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha256, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every Java platform supports SHA-256", e);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the potion names and effects, ranked with BM25.
+ * Documents get consecutive ordinals, so every postings list is sorted and the per-document data
+ * lives in primitive arrays. Removed documents are only marked; once they are a noticeable share of
+ * the index they are purged from the postings and the live documents are renumbered, so the arrays
+ * follow the live potions instead of every potion ever indexed. This class is not thread-safe:
+ * callers must guard it.
+ */
+final class InvertedIndex {
+
+    /** BM25 term frequency saturation. */
+    private static final double K1 = 1.2;
+
+    /** BM25 document length normalization. */
+    private static final double B = 0.75;
+
+    /** Weight of a term found in the name, relative to one found in the effect. */
+    static final int NAME_WEIGHT = 3;
+
+    /** Share of removed documents that triggers the purge of the postings and the renumbering. */
+    private static final double PURGE_RATIO = 0.2;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "in", "is", "it", "its",
+        "of", "on", "or", "that", "the", "this", "to", "was", "were", "will", "with");
+
+    /** A ranked search result: the potion ID and its BM25 score. */
+    record Hit (long id, double score) { }
+
+    /** A tokenized document, ready to be added to the index. */
+    record Document (long id, Map<String, Integer> termFrequencies, int length) { }
+
+    /** Descending score, then ascending ID so that ties are stable. */
+    private static final Comparator<Hit> RANKING =
+        Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id);
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> ordinalsById = new HashMap<>();
+    private final BitSet removed = new BitSet();
+
+    private long[] ids = new long[1024];
+    private int[] lengths = new int[1024];
+    private int ordinals;
+    private int removedCount;
+    private long totalLength;
+
+    /**
+     * Splits a text into lowercase, accent-free index terms, dropping the stop words.
+     * @param text the text to tokenize, possibly null
+     * @return the terms, in text order
+     */
+    static List<String> tokenize (String text) {
+        if (text == null || text.isBlank())
+            return List.of();
+
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> terms = new ArrayList<>();
+        for (String token : NON_WORD.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token))
+                terms.add(token);
+        }
+        return terms;
+    }
+
+    /**
+     * Tokenizes a potion, weighting the terms of its name over those of its effect.
+     * @param id the potion ID
+     * @param name the potion name
+     * @param effect the potion effect
+     * @return the document to add to the index
+     */
+    static Document document (long id, String name, String effect) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String term : tokenize(name)) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String term : tokenize(effect)) {
+            frequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+        return new Document(id, frequencies, length);
+    }
+
+    /**
+     * @return the number of indexed potions
+     */
+    int size () {
+        return ordinalsById.size();
+    }
+
+    /**
+     * @return the number of ordinals in use, those of the indexed potions plus the removed ones not purged yet
+     */
+    int ordinals () {
+        return ordinals;
+    }
+
+    /**
+     * @param id a potion ID
+     * @return true if the potion is indexed
+     */
+    boolean contains (long id) {
+        return ordinalsById.containsKey(id);
+    }
+
+    /**
+     * Adds a document, replacing the previous version of the same potion if there was one.
+     * @param document the tokenized potion
+     */
+    void add (Document document) {
+        remove(document.id());
+
+        int ordinal = ordinals++;
+        if (ordinal == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+        }
+        ids[ordinal] = document.id();
+        lengths[ordinal] = document.length();
+        ordinalsById.put(document.id(), ordinal);
+        totalLength += document.length();
+
+        document.termFrequencies().forEach((term, frequency) ->
+            postings.computeIfAbsent(term, t -> new Postings()).add(ordinal, frequency));
+    }
+
+    /**
+     * Removes a potion from the index; unknown IDs are ignored.
+     * @param id the potion ID
+     */
+    void remove (long id) {
+        Integer ordinal = ordinalsById.remove(id);
+        if (ordinal == null)
+            return;
+
+        removed.set(ordinal);
+        removedCount++;
+        totalLength -= lengths[ordinal];
+
+        if (removedCount > 1024 && removedCount > PURGE_RATIO * ordinals)
+            purge();
+    }
+
+    /**
+     * Ranks the indexed potions against a free-text query. Every query term contributes to the score,
+     * so potions matching more terms, rarer terms or terms in their name come first. Document frequencies
+     * still count the removed documents that have not been purged yet, as Lucene does until a merge.
+     * @param query the free-text query
+     * @param limit maximum number of hits
+     * @return the best hits, by descending score
+     */
+    List<Hit> search (String query, int limit) {
+        int documents = size();
+        if (documents == 0 || limit <= 0)
+            return List.of();
+
+        List<Postings> matched = new ArrayList<>();
+        long candidates = 0;
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                matched.add(list);
+                candidates += list.size;
+            }
+        }
+        if (matched.isEmpty())
+            return List.of();
+
+        double averageLength = Math.max(1.0, (double) totalLength / documents);
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+
+        if (candidates < ordinals / 16) {
+            // Few candidates: accumulate them sparsely
+            Map<Integer, Double> scores = new HashMap<>();
+            for (Postings list : matched) {
+                double idf = idf(documents, list.size);
+                for (int i = 0; i < list.size; i++) {
+                    int ordinal = list.ordinals[i];
+                    if (!removed.get(ordinal))
+                        scores.merge(ordinal, bm25(idf, list.frequencies[i], ordinal, averageLength), Double::sum);
+                }
+            }
+            scores.forEach((ordinal, score) -> offer(best, ordinal, score, limit));
+        } else {
+            // Common terms: one score slot per ordinal is cheaper than boxing most of the index
+            double[] scores = new double[ordinals];
+            for (Postings list : matched) {
+                double idf = idf(documents, list.size);
+                for (int i = 0; i < list.size; i++) {
+                    int ordinal = list.ordinals[i];
+                    scores[ordinal] += bm25(idf, list.frequencies[i], ordinal, averageLength);
+                }
+            }
+            for (int ordinal = 0; ordinal < ordinals; ordinal++) {
+                if (scores[ordinal] > 0 && !removed.get(ordinal))
+                    offer(best, ordinal, scores[ordinal], limit);
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    private static double idf (int documents, int frequency) {
+        return Math.log(1 + (documents - Math.min(frequency, documents) + 0.5) / (frequency + 0.5));
+    }
+
+    private double bm25 (double idf, int frequency, int ordinal, double averageLength) {
+        double norm = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+        return idf * frequency * (K1 + 1) / (frequency + norm);
+    }
+
+    /**
+     * Keeps the candidate if it beats the worst of the current top hits. The comparison comes first,
+     * so the bulk of a broad query is discarded without allocating anything.
+     */
+    private void offer (PriorityQueue<Hit> best, int ordinal, double score, int limit) {
+        if (best.size() == limit) {
+            Hit worst = best.peek();
+            if (score < worst.score() || (score == worst.score() && ids[ordinal] > worst.id()))
+                return;
+        }
+        best.add(new Hit(ids[ordinal], score));
+        if (best.size() > limit)
+            best.poll();
+    }
+
+    /**
+     * Drops the removed documents from every postings list and renumbers the live ones consecutively.
+     * The new ordinals keep the order of the old ones, so the postings lists stay sorted, and the
+     * per-document arrays shrink back when most of their slots were freed.
+     */
+    private void purge () {
+        int[] renumbered = new int[ordinals];
+        int live = 0;
+        for (int ordinal = 0; ordinal < ordinals; ordinal++) {
+            if (removed.get(ordinal)) {
+                renumbered[ordinal] = -1;
+            } else {
+                renumbered[ordinal] = live;
+                ids[live] = ids[ordinal];
+                lengths[live] = lengths[ordinal];
+                live++;
+            }
+        }
+        postings.values().removeIf(list -> list.purge(renumbered) == 0);
+        ordinalsById.replaceAll((id, ordinal) -> renumbered[ordinal]);
+
+        ordinals = live;
+        int capacity = Math.max(1024, 2 * live);
+        if (capacity < ids.length) {
+            ids = Arrays.copyOf(ids, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        removed.clear();
+        removedCount = 0;
+    }
+
+    /**
+     * Growable postings list of one term: document ordinals in ascending order and their term frequencies.
+     */
+    private static final class Postings {
+        private int[] ordinals = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        void add (int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        /**
+         * Drops the removed documents and moves the others to their new ordinals.
+         * @param renumbered the new ordinal of each old one, or -1 for a removed document
+         * @return the number of documents left in the list
+         */
+        int purge (int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = renumbered[ordinals[i]];
+                if (ordinal >= 0) {
+                    ordinals[kept] = ordinal;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return kept;
+        }
+    }
+}
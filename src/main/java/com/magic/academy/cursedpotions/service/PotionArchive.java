@@ -0,0 +1,121 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.magic.academy.cursedpotions.model.ArchivedPotion;
+
+/**
+ * The potions_archive table, where destroyed potions are kept for the Ministry audits.
+ * Potions are copied there by the same transaction that deletes them, so the potions table only holds
+ * the live inventory and its size does not grow with the number of potions ever destroyed.
+ * Entries older than the retention are purged in small chunks, each in its own short statement,
+ * so the purge never holds locks on the archive for long.
+ */
+@Component
+public class PotionArchive {
+
+    private static final String ARCHIVE_SQL =
+        "INSERT INTO potions_archive (potion_id, name, effect, level_of_risk, legal, destroyed_at)"
+        + " SELECT id, name, effect, level_of_risk, legal, :destroyedAt FROM potions WHERE id IN (:ids) ORDER BY id";
+
+    private static final String SELECT_AFTER_SQL =
+        "SELECT id, potion_id, name, effect, level_of_risk, legal, destroyed_at FROM potions_archive"
+        + " WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String SELECT_EXPIRED_SQL =
+        "SELECT id FROM potions_archive WHERE destroyed_at < ? ORDER BY id LIMIT ?";
+
+    private static final Logger log = LoggerFactory.getLogger(PotionArchive.class);
+
+    /** Template used for the statements on the table. */
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Same template with named parameters, for the statements taking ID lists. */
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /** Time a destroyed potion is kept in the archive. */
+    private final Duration retention;
+
+    /** Maximum number of entries deleted by each purge statement. */
+    private final int purgeChunkSize;
+
+    /**
+     * Constructs the archive.
+     * @param jdbcTemplate template used for the statements on the table
+     * @param retention time a destroyed potion is kept in the archive
+     * @param purgeChunkSize maximum number of entries deleted by each purge statement
+     */
+    public PotionArchive (JdbcTemplate jdbcTemplate,
+                          @Value ("${potions.archive.retention:P3650D}") Duration retention,
+                          @Value ("${potions.archive.purge-chunk-size:1000}") int purgeChunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.retention = retention;
+        this.purgeChunkSize = purgeChunkSize;
+    }
+
+    /**
+     * Copies potions to the archive with a single INSERT ... SELECT, in the current transaction, so that
+     * deleting them afterwards in the same transaction moves them. IDs not in the inventory are ignored.
+     * @param ids the IDs of the potions about to be deleted
+     * @return the number of archived potions
+     */
+    public int archive (Collection<Long> ids) {
+        if (ids.isEmpty())
+            return 0;
+
+        return namedJdbcTemplate.update(ARCHIVE_SQL,
+            Map.of("destroyedAt", Timestamp.from(Instant.now()), "ids", ids));
+    }
+
+    /**
+     * Reads the archived potions following an archive entry ID.
+     * @param afterId the last entry already seen, or null to start from the beginning
+     * @param limit maximum number of entries to read
+     * @return the entries, in destruction order
+     */
+    public List<ArchivedPotion> findAfter (Long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_AFTER_SQL, PotionArchive::mapArchivedPotion, afterId == null ? 0 : afterId, limit);
+    }
+
+    /**
+     * Deletes the entries older than the retention, one chunk of IDs per statement.
+     * @return the number of deleted entries
+     */
+    @Scheduled (initialDelayString = "${potions.archive.purge-interval:PT6H}",
+                fixedDelayString = "${potions.archive.purge-interval:PT6H}")
+    public int purge () {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        int deleted = 0;
+        List<Long> chunk;
+        do {
+            chunk = jdbcTemplate.queryForList(SELECT_EXPIRED_SQL, Long.class, cutoff, purgeChunkSize);
+            if (!chunk.isEmpty())
+                deleted += namedJdbcTemplate.update("DELETE FROM potions_archive WHERE id IN (:ids)", Map.of("ids", chunk));
+        } while (chunk.size() == purgeChunkSize);
+
+        if (deleted > 0)
+            log.info("Purged {} archived potions destroyed more than {} ago", deleted, retention);
+        return deleted;
+    }
+
+    private static ArchivedPotion mapArchivedPotion (ResultSet rs, int rowNum) throws SQLException {
+        return new ArchivedPotion(rs.getLong("id"), rs.getLong("potion_id"), rs.getString("name"), rs.getString("effect"),
+            rs.getInt("level_of_risk"), rs.getBoolean("legal"), rs.getTimestamp("destroyed_at").toInstant());
+    }
+}
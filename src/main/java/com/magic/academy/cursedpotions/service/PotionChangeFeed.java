@@ -0,0 +1,396 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.magic.academy.cursedpotions.event.PotionUpdatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsCreatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsRemovedEvent;
+import com.magic.academy.cursedpotions.model.PotionChange;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+
+/**
+ * Server-sent feed of the inventory changes, so dashboards can follow the catalog without polling it.
+ * Every change is recorded in the PotionChangeLog before its transaction commits and pushed to the
+ * subscribers once it has committed. Each SSE event carries the change ID, so a reconnecting client
+ * resumes from its Last-Event-ID with the changes it missed.
+ * <p>
+ * Subscribers hold no thread while idle: each one is an async response with a bounded buffer, drained by
+ * a short-lived virtual thread when there is something to send. A subscriber whose buffer fills up, or
+ * whose resume point is too old, gets its pending changes dropped and a "resync" event instead, telling
+ * it to reload the catalog.
+ * <p>
+ * The change IDs are assigned when the outbox row is inserted, not when its transaction commits, so a
+ * change may commit before another with a lower ID. A committed change is therefore held back until every
+ * lower ID recorded by this instance has committed or rolled back, and the replay stops at the same point:
+ * subscribers always get the changes in ID order, and a client resuming from its last ID never skips one
+ * that committed later. The changes written through another instance are never pushed to the subscribers
+ * of this one, and since the hold-back only knows the IDs recorded here, a resuming client could also skip
+ * a lower ID another instance commits later.
+ */
+@Component
+public class PotionChangeFeed implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PotionChangeFeed.class);
+
+    /** Outbox where the changes are recorded and read back on resume. */
+    private final PotionChangeLog changeLog;
+
+    /** Number of changes buffered per subscriber, and largest change listed potion by potion. */
+    private final int bufferCapacity;
+
+    /** Current subscribers. */
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /** Virtual threads sending the buffered changes, one per subscriber with something to send. */
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Number of resync events sent instead of the changes a subscriber could not receive. */
+    private final Counter resyncs;
+
+    /** ID of the latest change pushed to the subscribers, sent with the resync events. */
+    private volatile long latestId;
+
+    /** Orders the outbox inserts with the registration of their IDs, and the publication of the changes. */
+    private final ReentrantLock ordering = new ReentrantLock();
+
+    /** IDs recorded by transactions that have not completed yet; guarded by ordering. */
+    private final NavigableSet<Long> uncommitted = new TreeSet<>();
+
+    /** Committed changes held back behind an uncommitted lower ID; guarded by ordering. */
+    private final NavigableMap<Long, PotionChange> heldBack = new TreeMap<>();
+
+    /**
+     * Constructs the feed.
+     * @param changeLog outbox where the changes are recorded
+     * @param bufferCapacity number of changes buffered per subscriber
+     * @param meterRegistry registry of the subscriber and resync metrics
+     */
+    public PotionChangeFeed (PotionChangeLog changeLog, @Value ("${potions.changes.subscriber-buffer:256}") int bufferCapacity,
+                             MeterRegistry meterRegistry) {
+        this.changeLog = changeLog;
+        this.bufferCapacity = bufferCapacity;
+        this.resyncs = Counter.builder("potions.changes.resyncs")
+            .description("Resync events sent to change feed subscribers that fell behind")
+            .register(meterRegistry);
+        meterRegistry.gauge("potions.changes.subscribers", subscribers, Set::size);
+    }
+
+    /**
+     * Reads the latest change ID once the schema has been migrated.
+     */
+    @Override
+    public void afterSingletonsInstantiated () {
+        latestId = Math.max(latestId, changeLog.latestId());
+    }
+
+    /**
+     * Registers a subscriber. If it resumes from a change ID, the changes it missed are sent first.
+     * @param emitter the SSE response of the subscriber
+     * @param lastEventId the ID of the last change the subscriber received, or null for a new subscriber
+     */
+    public void subscribe (SseEmitter emitter, Long lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, bufferCapacity);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Registered before reading the missed changes, so none committed meanwhile is lost;
+        // it is held as draining until the replay is sent, so live changes wait behind it
+        subscribers.add(subscriber);
+        try {
+            emitter.send(SseEmitter.event().comment("connected"));
+            if (lastEventId != null)
+                replay(subscriber, lastEventId);
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            return;
+        }
+        release(subscriber);
+    }
+
+    /**
+     * @return the number of current subscribers
+     */
+    public int getSubscriberCount () {
+        return subscribers.size();
+    }
+
+    /**
+     * Records the created potions in the outbox, in the transaction creating them.
+     * @param event the created potions
+     */
+    @TransactionalEventListener (phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPotionsCreated (PotionsCreatedEvent event) {
+        record(PotionChange.Type.CREATED, event.potions().stream()
+            .map(potion -> new PotionSummary(potion.getId(), potion.getName(), potion.isLegal(), potion.getLevelOfRisk()))
+            .toList());
+    }
+
+    /**
+     * Records the removed potions in the outbox, in the transaction removing them.
+     * @param event the summaries of the removed potions
+     */
+    @TransactionalEventListener (phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPotionsRemoved (PotionsRemovedEvent event) {
+        record(PotionChange.Type.REMOVED, event.potions());
+    }
+
+    /**
+     * Records the edited potion in the outbox, in the transaction updating it.
+     * @param event the potion before and after the edit
+     */
+    @TransactionalEventListener (phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPotionUpdated (PotionUpdatedEvent event) {
+        record(PotionChange.Type.UPDATED, List.of(event.after()));
+    }
+
+    /**
+     * Sends a comment to every subscriber, so that idle connections are not closed by proxies and
+     * the ones closed by the client are detected and dropped.
+     */
+    @Scheduled (fixedDelayString = "${potions.changes.heartbeat-interval:PT30S}")
+    public void heartbeat () {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    @Override
+    public void destroy () {
+        for (Subscriber subscriber : subscribers)
+            subscriber.emitter.complete();
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Writes the changes to the outbox and pushes them to the subscribers after commit, in ID order.
+     * Changes too large to fit a subscriber buffer are recorded as a single resync.
+     */
+    private void record (PotionChange.Type type, List<PotionSummary> potions) {
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        List<PotionChange> changes;
+
+        // The insert and the registration of its IDs are atomic, so a lower ID is always known
+        // as uncommitted before a higher one can be published
+        ordering.lock();
+        try {
+            changes = (potions.size() > bufferCapacity)
+                ? List.of(changeLog.appendResync())
+                : changeLog.append(type, potions);
+            if (!inTransaction) {
+                completed(changes, true);
+                return;
+            }
+            for (PotionChange change : changes)
+                uncommitted.add(change.id());
+        } finally {
+            ordering.unlock();
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion (int status) {
+                ordering.lock();
+                try {
+                    completed(changes, status == STATUS_COMMITTED);
+                } finally {
+                    ordering.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Marks the changes of a transaction as committed or rolled back, and publishes every committed change
+     * no longer preceded by an uncommitted one. Called with the ordering lock held.
+     */
+    private void completed (List<PotionChange> changes, boolean committed) {
+        for (PotionChange change : changes) {
+            uncommitted.remove(change.id());
+            if (committed)
+                heldBack.put(change.id(), change);
+        }
+
+        NavigableMap<Long, PotionChange> ready = uncommitted.isEmpty()
+            ? heldBack
+            : heldBack.headMap(uncommitted.first(), false);
+        if (!ready.isEmpty()) {
+            publish(List.copyOf(ready.values()));
+            ready.clear();
+        }
+    }
+
+    /**
+     * Gets the first ID the replay must not send yet, because it or a lower ID has not committed.
+     */
+    private long replayLimit () {
+        ordering.lock();
+        try {
+            return uncommitted.isEmpty() ? Long.MAX_VALUE : uncommitted.first();
+        } finally {
+            ordering.unlock();
+        }
+    }
+
+    /**
+     * Buffers committed changes for every subscriber. A subscriber whose buffer is full loses its
+     * pending changes and is sent a resync instead.
+     */
+    private void publish (List<PotionChange> changes) {
+        for (PotionChange change : changes)
+            latestId = Math.max(latestId, change.id());
+
+        for (Subscriber subscriber : subscribers) {
+            for (PotionChange change : changes) {
+                if (!subscriber.buffer.offer(change)) {
+                    subscriber.buffer.clear();
+                    subscriber.resyncDue = true;
+                }
+            }
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Sends the changes following the resume point, or a resync if they are too many or already purged.
+     * The replay stops before the first uncommitted ID: the changes after it reach the subscriber live,
+     * in order, once it commits.
+     */
+    private void replay (Subscriber subscriber, long lastEventId) throws IOException {
+        long limit = replayLimit();
+        List<PotionChange> missed = changeLog.findAfter(lastEventId, bufferCapacity + 1).stream()
+            .filter(change -> change.id() < limit)
+            .toList();
+        if (missed.size() > bufferCapacity || !changeLog.isRetainedAfter(lastEventId)) {
+            sendResync(subscriber, Math.max(latestId, changeLog.latestId()));
+            return;
+        }
+
+        subscriber.replayed = missed.stream().map(PotionChange::id).collect(Collectors.toSet());
+        for (PotionChange change : missed)
+            send(subscriber, change);
+    }
+
+    /**
+     * Starts a sender for the subscriber unless one is already running.
+     */
+    private void schedule (Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true))
+            senders.execute(() -> drain(subscriber));
+    }
+
+    /**
+     * Lets the next change start a sender, starting one now if changes arrived while it was held.
+     */
+    private void release (Subscriber subscriber) {
+        subscriber.draining.set(false);
+        if (subscriber.hasPending())
+            schedule(subscriber);
+    }
+
+    /**
+     * Sends whatever the subscriber has pending. Runs on at most one thread per subscriber at a time.
+     */
+    private void drain (Subscriber subscriber) {
+        try {
+            do {
+                if (subscriber.resyncDue) {
+                    subscriber.resyncDue = false;
+                    sendResync(subscriber, latestId);
+                }
+                if (subscriber.heartbeatDue) {
+                    subscriber.heartbeatDue = false;
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+                PotionChange change;
+                while ((change = subscriber.buffer.poll()) != null) {
+                    if (subscriber.replayed == null || !subscriber.replayed.contains(change.id()))
+                        send(subscriber, change);
+                }
+                subscriber.draining.set(false);
+            } while (subscriber.hasPending() && subscriber.draining.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            // The client has gone; the emitter callbacks may not fire for a connection closed mid-write
+            log.debug("Dropping change feed subscriber: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private static void send (Subscriber subscriber, PotionChange change) throws IOException {
+        subscriber.emitter.send(SseEmitter.event()
+            .id(Long.toString(change.id()))
+            .name(change.type().name().toLowerCase(Locale.ROOT))
+            .data(change.potion(), MediaType.APPLICATION_JSON));
+    }
+
+    private void sendResync (Subscriber subscriber, long changeId) throws IOException {
+        resyncs.increment();
+        subscriber.emitter.send(SseEmitter.event()
+            .id(Long.toString(changeId))
+            .name("resync")
+            .data("Reload the catalog"));
+    }
+
+    /**
+     * A connected client: its response, the changes waiting to be sent and the flags of its sender.
+     */
+    private static final class Subscriber {
+
+        final SseEmitter emitter;
+
+        /** Changes waiting to be sent; a linked queue, so idle subscribers hold no preallocated array. */
+        final BlockingQueue<PotionChange> buffer;
+
+        /** Set while a thread is sending to this subscriber; starts set until the replay is sent. */
+        final AtomicBoolean draining = new AtomicBoolean(true);
+
+        volatile boolean resyncDue;
+        volatile boolean heartbeatDue;
+
+        /** IDs sent by the replay, skipped if they also arrive live; only touched by the draining thread. */
+        Set<Long> replayed;
+
+        Subscriber (SseEmitter emitter, int bufferCapacity) {
+            this.emitter = emitter;
+            this.buffer = new LinkedBlockingQueue<>(bufferCapacity);
+        }
+
+        boolean hasPending () {
+            return resyncDue || heartbeatDue || !buffer.isEmpty();
+        }
+    }
+}
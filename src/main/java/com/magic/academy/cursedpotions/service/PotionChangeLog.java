@@ -0,0 +1,180 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.magic.academy.cursedpotions.model.PotionChange;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+
+/**
+ * The potion_changes table, an outbox of the inventory changes written in the same transaction as
+ * the change itself. Its increasing IDs let a change feed subscriber resume where it left off.
+ * Changes older than the retention are purged, always keeping the latest one so that the
+ * oldest retained ID tells whether a resume point is still covered.
+ */
+@Component
+public class PotionChangeLog {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO potion_changes (change_type, potion_id, name, legal, level_of_risk, changed_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_AFTER_SQL =
+        "SELECT id, change_type, potion_id, name, legal, level_of_risk, changed_at FROM potion_changes"
+        + " WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final Logger log = LoggerFactory.getLogger(PotionChangeLog.class);
+
+    /** Template used for every statement on the table. */
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Time a change is kept for subscribers resuming the feed. */
+    private final Duration retention;
+
+    /**
+     * Constructs the change log.
+     * @param jdbcTemplate template used for the statements on the table
+     * @param retention time a change is kept for subscribers resuming the feed
+     */
+    public PotionChangeLog (JdbcTemplate jdbcTemplate, @Value ("${potions.changes.retention:P1D}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+    }
+
+    /**
+     * Records one change per potion with a single JDBC batch, in the current transaction if there is one.
+     * @param type CREATED, REMOVED or UPDATED
+     * @param potions the summaries of the changed potions
+     * @return the recorded changes, with their IDs, in the same order
+     */
+    public List<PotionChange> append (PotionChange.Type type, List<PotionSummary> potions) {
+        Instant now = Instant.now();
+        List<PotionChange> changes = new ArrayList<>(potions.size());
+        for (PotionSummary potion : potions)
+            changes.add(new PotionChange(0, type, potion, now));
+
+        return insert(changes);
+    }
+
+    /**
+     * Records a change telling subscribers to reload the catalog, for changes too large to list.
+     * @return the recorded change, with its ID
+     */
+    public PotionChange appendResync () {
+        return insert(List.of(new PotionChange(0, PotionChange.Type.RESYNC, null, Instant.now()))).get(0);
+    }
+
+    /**
+     * Reads the changes following an ID.
+     * @param afterId the last change already seen
+     * @param limit maximum number of changes to read
+     * @return the changes, in ID order
+     */
+    public List<PotionChange> findAfter (long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_AFTER_SQL, PotionChangeLog::mapChange, afterId, limit);
+    }
+
+    /**
+     * Tells whether every change following an ID is still in the table.
+     * @param afterId the last change already seen
+     * @return false if some of the following changes have been purged
+     */
+    public boolean isRetainedAfter (long afterId) {
+        Long oldest = jdbcTemplate.queryForObject("SELECT MIN(id) FROM potion_changes", Long.class);
+        return oldest == null || afterId >= oldest - 1;
+    }
+
+    /**
+     * @return the ID of the latest recorded change, or 0 if there is none
+     */
+    public long latestId () {
+        Long latest = jdbcTemplate.queryForObject("SELECT MAX(id) FROM potion_changes", Long.class);
+        return latest == null ? 0 : latest;
+    }
+
+    /**
+     * Deletes the changes older than the retention, except the latest one.
+     * @return the number of deleted changes
+     */
+    @Scheduled (initialDelayString = "${potions.changes.purge-interval:PT1H}",
+                fixedDelayString = "${potions.changes.purge-interval:PT1H}")
+    public int purge () {
+        int deleted = jdbcTemplate.update("DELETE FROM potion_changes WHERE changed_at < ? AND id < ?",
+            Timestamp.from(Instant.now().minus(retention)), latestId());
+        if (deleted > 0)
+            log.info("Purged {} potion changes older than {}", deleted, retention);
+        return deleted;
+    }
+
+    /**
+     * Batch-inserts the changes and returns them with their generated IDs.
+     * @param changes the changes to insert, with any ID
+     * @return the inserted changes
+     */
+    private List<PotionChange> insert (List<PotionChange> changes) {
+        if (changes.isEmpty())
+            return changes;
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[] { "id" }),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues (PreparedStatement ps, int i) throws SQLException {
+                    PotionChange change = changes.get(i);
+                    PotionSummary potion = change.potion();
+                    ps.setString(1, change.type().name());
+                    if (potion == null) {
+                        ps.setNull(2, Types.BIGINT);
+                        ps.setNull(3, Types.VARCHAR);
+                        ps.setNull(4, Types.BIT);
+                        ps.setNull(5, Types.INTEGER);
+                    } else {
+                        ps.setLong(2, potion.id());
+                        ps.setString(3, potion.name());
+                        ps.setBoolean(4, potion.legal());
+                        ps.setInt(5, potion.levelOfRisk());
+                    }
+                    ps.setTimestamp(6, Timestamp.from(change.changedAt()));
+                }
+
+                @Override
+                public int getBatchSize () {
+                    return changes.size();
+                }
+            }, keyHolder);
+
+        // The generated keys come back in the same order as the batched rows
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<PotionChange> inserted = new ArrayList<>(changes.size());
+        for (int i = 0; i < changes.size(); i++) {
+            PotionChange change = changes.get(i);
+            long id = ((Number) keys.get(i).values().iterator().next()).longValue();
+            inserted.add(new PotionChange(id, change.type(), change.potion(), change.changedAt()));
+        }
+        return inserted;
+    }
+
+    private static PotionChange mapChange (ResultSet rs, int rowNum) throws SQLException {
+        PotionChange.Type type = PotionChange.Type.valueOf(rs.getString("change_type"));
+        PotionSummary potion = (type == PotionChange.Type.RESYNC) ? null
+            : new PotionSummary(rs.getLong("potion_id"), rs.getString("name"), rs.getBoolean("legal"), rs.getInt("level_of_risk"));
+        return new PotionChange(rs.getLong("id"), type, potion, rs.getTimestamp("changed_at").toInstant());
+    }
+}
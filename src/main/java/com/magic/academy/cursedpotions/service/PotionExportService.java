@@ -0,0 +1,134 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+import jakarta.persistence.EntityManager;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Service for exporting the whole potions inventory for Ministry audits.
+ * Rows are streamed from the database and written one by one, so memory use does not grow with the table.
+ */
+@Service
+public class PotionExportService {
+
+    /** Supported export formats. */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format (String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType () { return contentType; }
+        public String getExtension () { return extension; }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(PotionExportService.class);
+
+    /** Header line of the CSV export. */
+    private static final String CSV_HEADER = "id,name,effect,levelOfRisk,legal";
+
+    /** Repository used to stream the potions. */
+    private final PotionRepository potionRepository;
+
+    /** Entity manager used to detach each exported potion from the persistence context. */
+    private final EntityManager entityManager;
+
+    /** Mapper used to write each potion as a JSON line. */
+    private final JsonMapper jsonMapper;
+
+    /**
+     * Constructs a new PotionExportService.
+     * @param potionRepository repository used to stream the potions
+     * @param entityManager entity manager of the current persistence context
+     * @param jsonMapper mapper used for the NDJSON format
+     */
+    public PotionExportService (PotionRepository potionRepository, EntityManager entityManager, JsonMapper jsonMapper) {
+        this.potionRepository = potionRepository;
+        this.entityManager = entityManager;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Writes every potion of the inventory to the given stream, ordered by ID.
+     * Each potion is detached right after being written so the persistence context stays empty.
+     * @param format the output format
+     * @param out the stream to write to (it is flushed but not closed)
+     * @return the number of exported potions
+     */
+    @Transactional (readOnly = true)
+    public long exportInventory (Format format, OutputStream out) {
+        long start = System.nanoTime();
+        long rows = 0;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<Potion> potions = potionRepository.streamAllByOrderByIdAsc()) {
+            if (format == Format.CSV)
+                writer.write(CSV_HEADER + "\n");
+
+            var iterator = potions.iterator();
+            while (iterator.hasNext()) {
+                Potion potion = iterator.next();
+                writer.write(format == Format.CSV ? toCsv(potion) : jsonMapper.writeValueAsString(potion));
+                writer.write('\n');
+
+                entityManager.detach(potion);
+                rows++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Inventory export interrupted after " + rows + " potions", e);
+        }
+
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+        log.info("Exported {} potions as {} in {} ms ({} rows/s)",
+            rows, format, Math.round(seconds * 1000), Math.round(rows / seconds));
+
+        return rows;
+    }
+
+    /**
+     * Formats a potion as a CSV line (without the line terminator).
+     * @param potion the potion to format
+     * @return the CSV line
+     */
+    private String toCsv (Potion potion) {
+        return potion.getId() + "," + csvField(potion.getName()) + "," + csvField(potion.getEffect()) + ","
+            + potion.getLevelOfRisk() + "," + potion.isLegal();
+    }
+
+    /**
+     * Quotes a CSV field when it contains separators, quotes or line breaks.
+     * @param value the raw value
+     * @return the value ready to be written in a CSV line
+     */
+    private String csvField (String value) {
+        if (value == null)
+            return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,308 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.magic.academy.cursedpotions.event.PotionsCreatedEvent;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionImportResult;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Service for loading whole potion catalogs at once.
+ * Potions are validated and audited in memory, checked for duplicates with one query per chunk
+ * and inserted through JDBC batches, since the IDENTITY IDs of Potion prevent Hibernate from batching inserts.
+ * Because those batches bypass Hibernate, the import invalidates the cached queries over the potions table itself;
+ * the cached potions and names stay, since inserts change none of them.
+ */
+@Service
+public class PotionImportService {
+
+    /** Number of potions checked and inserted per round trip. */
+    public static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO potions (name, effect, level_of_risk, legal) VALUES (?, ?, ?, ?)";
+
+    /** Accents left as separate marks once a name is decomposed. */
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    /** Spaces the collation pads the shorter name with before comparing. */
+    private static final Pattern TRAILING_SPACES = Pattern.compile(" +$");
+
+    private static final Logger log = LoggerFactory.getLogger(PotionImportService.class);
+
+    /** Repository used to look up already existing names. */
+    private final PotionRepository potionRepository;
+
+    /** Template used for the batched inserts. */
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Validator applying the constraints declared on Potion. */
+    private final Validator validator;
+
+    /** Version counter bumped when the import inserts potions. */
+    private final InventoryVersion inventoryVersion;
+
+    /** Publisher of the event announcing the imported potions. */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Constructs a new PotionImportService.
+     * @param potionRepository repository used to look up existing names
+     * @param jdbcTemplate template used for the batched inserts
+     * @param validator validator for the potion constraints
+     * @param inventoryVersion version counter bumped when potions are inserted
+     * @param eventPublisher publisher of the event announcing the imported potions
+     */
+    public PotionImportService (PotionRepository potionRepository, JdbcTemplate jdbcTemplate, Validator validator,
+                                InventoryVersion inventoryVersion, ApplicationEventPublisher eventPublisher) {
+        this.potionRepository = potionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.inventoryVersion = inventoryVersion;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Imports a list of potions in a single transaction.
+     * Invalid potions and duplicated names are skipped and reported; the rest are inserted. A name taken by
+     * a concurrent writer after the check is reported as a duplicate too, instead of failing the import.
+     * @param potions the potions to import (their ID and legality are ignored)
+     * @return the summary of the import
+     */
+    @Transactional
+    public PotionImportResult importPotions (List<Potion> potions) {
+        long start = System.nanoTime();
+        List<String> invalidRows = new ArrayList<>();
+        List<String> duplicateNames = new ArrayList<>();
+        List<Potion> accepted = new ArrayList<>(potions.size());
+        Set<String> seenNames = new HashSet<>();
+
+        for (int row = 0; row < potions.size(); row++) {
+            Potion potion = potions.get(row);
+
+            Set<ConstraintViolation<Potion>> violations = validator.validate(potion);
+            if (!violations.isEmpty()) {
+                invalidRows.add("Row " + (row + 1) + ": " + violations.iterator().next().getMessage());
+                continue;
+            }
+            if (!seenNames.add(normalize(potion.getName()))) {
+                duplicateNames.add(potion.getName());
+                continue;
+            }
+
+            PotionService.auditRisk(potion);
+            accepted.add(potion);
+        }
+
+        int imported = insertAll(accepted, duplicateNames, true).size();
+
+        log.info("Imported {} potions ({} duplicates, {} invalid) in {} ms",
+            imported, duplicateNames.size(), invalidRows.size(), (System.nanoTime() - start) / 1_000_000);
+
+        return new PotionImportResult(imported, duplicateNames, invalidRows);
+    }
+
+    /**
+     * Inserts potions already validated and audited, with distinct names, in a single transaction.
+     * Names that already exist are skipped; the caller tells them apart because they keep a null ID.
+     * This is the write of the group-commit pipeline of PotionWriteBatcher.
+     * @param potions the potions to insert
+     * @return the inserted potions, with their generated IDs
+     * @throws org.springframework.dao.DuplicateKeyException if a name is taken by a concurrent writer
+     *         between the check and the insert; nothing is inserted then
+     */
+    @Transactional
+    public List<Potion> insertNew (List<Potion> potions) {
+        return insertAll(potions, new ArrayList<>(), false);
+    }
+
+    /**
+     * Parses a CSV file with a header line containing at least the name, effect and levelOfRisk columns.
+     * Files produced by the inventory export are accepted as they are.
+     * @param in the CSV content, encoded in UTF-8
+     * @return the parsed potions, in file order
+     * @throws IllegalArgumentException if the header is incomplete or a risk level is not a number
+     */
+    public List<Potion> parseCsv (InputStream in) throws IOException {
+        List<List<String>> records = CsvParser.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        if (records.isEmpty())
+            return List.of();
+
+        List<String> header = records.get(0);
+        int nameColumn = header.indexOf("name");
+        int effectColumn = header.indexOf("effect");
+        int riskColumn = header.indexOf("levelOfRisk");
+        if (nameColumn < 0 || effectColumn < 0 || riskColumn < 0)
+            throw new IllegalArgumentException("The CSV header must contain the name, effect and levelOfRisk columns");
+
+        List<Potion> potions = new ArrayList<>(records.size() - 1);
+        for (int row = 1; row < records.size(); row++) {
+            List<String> fields = records.get(row);
+            try {
+                potions.add(new Potion(fields.get(nameColumn), fields.get(effectColumn),
+                    Integer.parseInt(fields.get(riskColumn).trim())));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Row " + row + " of the CSV is malformed");
+            }
+        }
+        return potions;
+    }
+
+    /**
+     * Inserts the potions chunk by chunk and, if any was inserted, invalidates the cached queries and announces them.
+     * @param potions potions to insert, with unique names among themselves
+     * @param duplicateNames list where the existing names are reported
+     * @param skipTakenNames whether a name taken after the check is reported instead of failing the transaction
+     * @return the inserted potions, with their generated IDs
+     */
+    private List<Potion> insertAll (List<Potion> potions, List<String> duplicateNames, boolean skipTakenNames) {
+        List<Potion> created = new ArrayList<>(potions.size());
+        for (int from = 0; from < potions.size(); from += BATCH_SIZE) {
+            List<Potion> chunk = potions.subList(from, Math.min(from + BATCH_SIZE, potions.size()));
+            insertChunk(chunk, duplicateNames, created, skipTakenNames);
+        }
+        if (!created.isEmpty()) {
+            potionRepository.invalidateCachedQueries();
+            inventoryVersion.bump();
+            eventPublisher.publishEvent(new PotionsCreatedEvent(created));
+        }
+        return created;
+    }
+
+    /**
+     * Skips the names of the chunk that already exist and batch-inserts the rest.
+     * @param chunk potions to insert, with unique names among themselves
+     * @param duplicateNames list where the existing names are reported
+     * @param created list where the inserted potions are collected, with their generated IDs
+     * @param skipTakenNames whether a name taken after the check is reported instead of failing the transaction
+     */
+    private void insertChunk (List<Potion> chunk, List<String> duplicateNames, List<Potion> created,
+                              boolean skipTakenNames) {
+        Set<String> names = chunk.stream().map(Potion::getName).collect(Collectors.toSet());
+        Set<String> existing = potionRepository.findExistingNames(names).stream()
+            .map(PotionImportService::normalize)
+            .collect(Collectors.toSet());
+
+        List<Potion> fresh = new ArrayList<>(chunk.size());
+        for (Potion potion : chunk) {
+            if (existing.contains(normalize(potion.getName())))
+                duplicateNames.add(potion.getName());
+            else
+                fresh.add(potion);
+        }
+
+        if (fresh.isEmpty())
+            return;
+
+        if (!skipTakenNames) {
+            insertBatch(fresh);
+            created.addAll(fresh);
+            return;
+        }
+        try {
+            insertBatchInSavepoint(fresh);
+            created.addAll(fresh);
+        } catch (DuplicateKeyException e) {
+            // A concurrent writer took a name after the check: the batch was undone, find the name row by row
+            for (Potion potion : fresh) {
+                try {
+                    insertBatchInSavepoint(List.of(potion));
+                    created.add(potion);
+                } catch (DuplicateKeyException taken) {
+                    duplicateNames.add(potion.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts the potions in one JDBC batch inside a savepoint of the current transaction, so that a failed
+     * batch leaves none of its rows behind while the rest of the transaction goes on.
+     * @param potions the potions to insert
+     * @throws DuplicateKeyException if one of the names is already taken; nothing is inserted then
+     */
+    private void insertBatchInSavepoint (List<Potion> potions) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            Savepoint savepoint = con.setSavepoint();
+            try {
+                insertBatch(potions);
+            } catch (RuntimeException e) {
+                con.rollback(savepoint);
+                throw e;
+            }
+            con.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+
+    /**
+     * Inserts the potions in one JDBC batch and sets their generated IDs.
+     * @param potions the potions to insert
+     */
+    private void insertBatch (List<Potion> potions) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[] { "id" }),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues (PreparedStatement ps, int i) throws SQLException {
+                    Potion potion = potions.get(i);
+                    ps.setString(1, potion.getName());
+                    ps.setString(2, potion.getEffect());
+                    ps.setInt(3, potion.getLevelOfRisk());
+                    ps.setBoolean(4, potion.isLegal());
+                }
+
+                @Override
+                public int getBatchSize () {
+                    return potions.size();
+                }
+            }, keyHolder);
+
+        // The generated keys come back in the same order as the batched rows
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < potions.size() && i < keys.size(); i++)
+            potions.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+    }
+
+    /**
+     * Normalizes a name the way the collation of the name column compares it in the unique index: ignoring
+     * case, accents and trailing spaces. Names it still tells apart but the collation does not are caught by
+     * the unique index when they are inserted.
+     * @param name the potion name
+     * @return the comparison key
+     */
+    private static String normalize (String name) {
+        String decomposed = Normalizer.normalize(name.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return TRAILING_SPACES.matcher(COMBINING_MARKS.matcher(decomposed).replaceAll("")).replaceAll("");
+    }
+}
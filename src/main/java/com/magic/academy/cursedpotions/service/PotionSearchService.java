@@ -0,0 +1,286 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.magic.academy.cursedpotions.event.PotionUpdatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsCreatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsRemovedEvent;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionSearchHit;
+import com.magic.academy.cursedpotions.model.PotionText;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+/**
+ * Service for full-text search over the potion names and effects.
+ * The inverted index lives in memory: it is rebuilt at startup from a streamed read of the table,
+ * tokenizing in parallel, and kept in sync afterwards by the committed inventory changes.
+ * Only the changes committed through this instance reach the index: potions created or edited through
+ * another instance are not found, or found by their old effect, until this one rebuilds its index on restart.
+ */
+@Service
+public class PotionSearchService {
+
+    /** Number of hits returned when the caller does not ask for a specific amount. */
+    public static final int DEFAULT_LIMIT = 20;
+
+    /** Largest number of hits a single search can return. */
+    public static final int MAX_LIMIT = 100;
+
+    /** Number of potions tokenized together by each rebuild task. */
+    private static final int REBUILD_BATCH = 5_000;
+
+    private static final Logger log = LoggerFactory.getLogger(PotionSearchService.class);
+
+    /** Repository used to stream the texts and to load the hits. */
+    private final PotionRepository potionRepository;
+
+    /** Transaction around the rebuild stream, read-write so that it reads from the primary. */
+    private final TransactionTemplate rebuildTransaction;
+
+    /** Guards the index: searches share it, changes and the final swap of a rebuild take it exclusively. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Current index, guarded by the lock. */
+    private InvertedIndex index = new InvertedIndex();
+
+    /** Changes applied while a rebuild is running, replayed on the rebuilt index; null otherwise. */
+    private List<Consumer<InvertedIndex>> pendingChanges;
+
+    /** Whether the index has been fully built at least once. */
+    private volatile boolean ready;
+
+    /**
+     * Constructs a new PotionSearchService.
+     * @param potionRepository repository used to stream the texts and to load the hits
+     * @param transactionManager transaction manager for the rebuild stream
+     */
+    public PotionSearchService (PotionRepository potionRepository, PlatformTransactionManager transactionManager) {
+        this.potionRepository = potionRepository;
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Searches the potions whose name or effect match the query, best matches first.
+     * @param query the free-text query
+     * @param limit maximum number of hits, clamped between 1 and MAX_LIMIT
+     * @return the matching potions with their scores, by descending relevance
+     */
+    @Transactional (readOnly = true)
+    public List<PotionSearchHit> search (String query, int limit) {
+        List<InvertedIndex.Hit> hits;
+        lock.readLock().lock();
+        try {
+            hits = index.search(query, Math.clamp(limit, 1, MAX_LIMIT));
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (hits.isEmpty())
+            return List.of();
+
+        Map<Long, Potion> potions = potionRepository.findAllById(hits.stream().map(InvertedIndex.Hit::id).toList())
+            .stream()
+            .collect(Collectors.toMap(Potion::getId, Function.identity()));
+
+        // A potion removed between the lookup and the load is simply left out
+        return hits.stream()
+            .filter(hit -> potions.containsKey(hit.id()))
+            .map(hit -> new PotionSearchHit(potions.get(hit.id()), hit.score()))
+            .toList();
+    }
+
+    /**
+     * @return true once the index has been built from the database
+     */
+    public boolean isReady () {
+        return ready;
+    }
+
+    /**
+     * @return the number of indexed potions
+     */
+    public int getIndexedCount () {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts the initial build in the background, so the application does not wait for it to serve requests.
+     * Until it finishes, searches only see the potions created since startup.
+     */
+    @EventListener (ApplicationReadyEvent.class)
+    public void rebuildOnStartup () {
+        Thread.ofPlatform().name("potion-search-rebuild").daemon().start(() -> {
+            try {
+                rebuildIndex();
+            } catch (RuntimeException e) {
+                log.error("Could not build the potion search index", e);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the index from a streamed read of the whole table. The rows are read sequentially
+     * and tokenized in parallel, batch by batch; changes committed meanwhile are replayed on the new
+     * index before it replaces the current one.
+     * <p>
+     * The table is read from the primary, even when there is a read replica: the replayed changes were
+     * committed on the primary, and a lagging replica could still return a potion one of them removed,
+     * which would then stay in the index.
+     * @return the number of indexed potions, or -1 if another rebuild was already running
+     */
+    public int rebuildIndex () {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null)
+                return -1;
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        InvertedIndex rebuilt = null;
+        try {
+            rebuilt = rebuildTransaction.execute(status -> {
+                // Nothing is written, and a rollback does not pin the reads of the other clients to the primary
+                status.setRollbackOnly();
+                try (Stream<PotionText> texts = potionRepository.streamTextsByOrderByIdAsc()) {
+                    return build(texts);
+                }
+            });
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rebuilt != null) {
+                    for (Consumer<InvertedIndex> change : pendingChanges)
+                        change.accept(rebuilt);
+                    index = rebuilt;
+                    ready = true;
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        log.info("Indexed {} potions for search in {} ms", rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+        return rebuilt.size();
+    }
+
+    /**
+     * Adds the created potions to the index once their transaction has committed.
+     * @param event the created potions
+     */
+    @TransactionalEventListener (fallbackExecution = true)
+    public void onPotionsCreated (PotionsCreatedEvent event) {
+        List<InvertedIndex.Document> documents = event.potions().stream()
+            .filter(potion -> potion.getId() != null)
+            .map(potion -> InvertedIndex.document(potion.getId(), potion.getName(), potion.getEffect()))
+            .toList();
+        if (!documents.isEmpty())
+            apply(target -> documents.forEach(target::add));
+    }
+
+    /**
+     * Removes the deleted potions from the index once their transaction has committed.
+     * @param event the removed potion IDs
+     */
+    @TransactionalEventListener (fallbackExecution = true)
+    public void onPotionsRemoved (PotionsRemovedEvent event) {
+        apply(target -> event.ids().forEach(target::remove));
+    }
+
+    /**
+     * Reindexes an edited potion once its transaction has committed, if its effect changed.
+     * @param event the potion before and after the edit, with its new effect
+     */
+    @TransactionalEventListener (fallbackExecution = true)
+    public void onPotionUpdated (PotionUpdatedEvent event) {
+        if (event.effect() == null)
+            return;
+
+        InvertedIndex.Document document = InvertedIndex.document(event.after().id(), event.after().name(), event.effect());
+        apply(target -> {
+            target.remove(document.id());
+            target.add(document);
+        });
+    }
+
+    /**
+     * Applies a change to the current index, recording it for the rebuilt index if a rebuild is running.
+     * @param change the change to apply
+     */
+    private void apply (Consumer<InvertedIndex> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (pendingChanges != null)
+                pendingChanges.add(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Builds a new index, keeping at most two batches per worker in flight so memory stays bounded.
+     * Batches are merged in reading order, so the ordinals follow the IDs.
+     * @param texts the potions to index, by ascending ID
+     * @return the new index
+     */
+    private static InvertedIndex build (Stream<PotionText> texts) {
+        int workers = Runtime.getRuntime().availableProcessors();
+        InvertedIndex built = new InvertedIndex();
+        Deque<CompletableFuture<List<InvertedIndex.Document>>> inFlight = new ArrayDeque<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            List<PotionText> batch = new ArrayList<>(REBUILD_BATCH);
+            for (PotionText text : (Iterable<PotionText>) texts::iterator) {
+                batch.add(text);
+                if (batch.size() == REBUILD_BATCH) {
+                    inFlight.add(tokenizeAsync(batch, executor));
+                    batch = new ArrayList<>(REBUILD_BATCH);
+                    if (inFlight.size() >= 2 * workers)
+                        inFlight.poll().join().forEach(built::add);
+                }
+            }
+            inFlight.add(tokenizeAsync(batch, executor));
+            while (!inFlight.isEmpty())
+                inFlight.poll().join().forEach(built::add);
+        }
+        return built;
+    }
+
+    private static CompletableFuture<List<InvertedIndex.Document>> tokenizeAsync (List<PotionText> batch,
+                                                                              ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> batch.stream()
+            .map(text -> InvertedIndex.document(text.id(), text.name(), text.effect()))
+            .toList(), executor);
+    }
+}
@@ -1,95 +1,387 @@
 package com.magic.academy.cursedpotions.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
+import com.magic.academy.cursedpotions.event.PotionsCreatedEvent;
+import com.magic.academy.cursedpotions.event.PotionUpdatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsRemovedEvent;
 import com.magic.academy.cursedpotions.exception.PotionAlreadyExistsException;
 import com.magic.academy.cursedpotions.exception.PotionNotFoundException;
+import com.magic.academy.cursedpotions.exception.PotionVersionConflictException;
 import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionFilter;
+import com.magic.academy.cursedpotions.model.PotionPage;
+import com.magic.academy.cursedpotions.model.PotionPatch;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+import com.magic.academy.cursedpotions.model.PotionSummaryPage;
 import com.magic.academy.cursedpotions.repository.PotionRepository;
+import com.magic.academy.cursedpotions.repository.PotionSpecifications;
 
 /**
  * Service for managing potions inventory and operations.
+ * Every public method is timed in the potions.service metric, tagged with its name.
  */
 @Service
+@Timed (value = "potions.service", description = "Time spent in PotionService methods", histogram = true)
 public class PotionService {
 
+    /** Number of potions shown per catalog page when no size is requested. */
+    public static final int DEFAULT_PAGE_SIZE = 24;
+
+    /** Upper bound for the catalog page size, so a single request cannot load the whole table. */
+    public static final int MAX_PAGE_SIZE = 100;
+
     /**
      * Repository used to persist and query potions.
      */
     private final PotionRepository potionRepository;
 
+    /**
+     * Version counter bumped on every inventory change.
+     */
+    private final InventoryVersion inventoryVersion;
+
+    /**
+     * Publisher of the inventory change events.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Group-commit pipeline used for creations when it is enabled.
+     */
+    private final PotionWriteBatcher writeBatcher;
+
+    /**
+     * Transaction wrapping a single creation, so the listeners recording it before commit join it.
+     */
+    private final TransactionOperations transactionOperations;
+
+    /**
+     * Archive the removed potions are moved to.
+     */
+    private final PotionArchive potionArchive;
+
     /**
      * Constructs a new PotionService with the given repository.
      * @param potionRepository repository used for potion persistence and queries
+     * @param inventoryVersion version counter bumped on every inventory change
+     * @param eventPublisher publisher of the inventory change events
+     * @param writeBatcher group-commit pipeline used for creations when it is enabled
+     * @param transactionOperations transaction wrapping a single creation
+     * @param potionArchive archive the removed potions are moved to
      */
-    public PotionService (PotionRepository potionRepository) {
+    public PotionService (PotionRepository potionRepository, InventoryVersion inventoryVersion,
+                          ApplicationEventPublisher eventPublisher, PotionWriteBatcher writeBatcher,
+                          TransactionOperations transactionOperations, PotionArchive potionArchive) {
         this.potionRepository = potionRepository;
+        this.inventoryVersion = inventoryVersion;
+        this.eventPublisher = eventPublisher;
+        this.writeBatcher = writeBatcher;
+        this.transactionOperations = transactionOperations;
+        this.potionArchive = potionArchive;
     }
 
     /**
-     * Adds a new potion to the inventory after validation and risk audit.
+     * Adds a new potion to the inventory after risk audit.
+     * Name uniqueness is enforced by the unique constraint on the name column, so the insert needs no
+     * prior existence check and two concurrent creations of the same name cannot both succeed.
+     * With potions.write-batching.enabled the potion is handed to the PotionWriteBatcher instead, which
+     * commits it together with the other creations arriving at the same time.
      * @param potion the potion to add
      * @throws PotionAlreadyExistsException if name already exists
-     * @throws InvalidRiskException if risk level is invalid
      */
     public void addPotion (Potion potion) {
-        validatePotion(potion);
         auditRisk(potion);
 
-        potionRepository.save(potion);
+        if (writeBatcher.isEnabled()) {
+            writeBatcher.create(potion);
+            return;
+        }
+
+        try {
+            transactionOperations.executeWithoutResult(status -> {
+                potionRepository.save(potion);
+                inventoryVersion.bump();
+                eventPublisher.publishEvent(new PotionsCreatedEvent(List.of(potion)));
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (!isUniqueViolation(e))
+                throw e;
+
+            throw new PotionAlreadyExistsException();
+        }
     }
 
     /**
      * Retrieves all potions from the inventory.
      * @return a list of all potions
      */
+    @Transactional (readOnly = true)
     public List<Potion> getInventory () {
         return potionRepository.findAll();
     }
 
     /**
-     * Finds a potion by its ID.
+     * Retrieves one page of the inventory using keyset pagination on the potion ID.
+     * Each page is a single indexed range scan, so its cost does not depend on how deep the page is.
+     * @param after return the potions following this ID, or null to start from the beginning
+     * @param before return the potions preceding this ID (takes precedence over after), or null
+     * @param size the requested page size, clamped to 1..MAX_PAGE_SIZE
+     * @return the requested page with the cursors for its neighbouring pages
+     */
+    @Transactional (readOnly = true)
+    public PotionPage getInventoryPage (Long after, Long before, int size) {
+        return getInventoryPage(PotionFilter.NONE, after, before, size);
+    }
+
+    /**
+     * Retrieves one page of the potions matching a filter using keyset pagination on the potion ID.
+     * The filter, order and limit are all part of the SQL query, so only the page rows are read.
+     * @param filter the criteria the potions must match
+     * @param after return the potions following this ID, or null to start from the beginning
+     * @param before return the potions preceding this ID (takes precedence over after), or null
+     * @param size the requested page size, clamped to 1..MAX_PAGE_SIZE
+     * @return the requested page with the cursors for its neighbouring pages
+     */
+    @Transactional (readOnly = true)
+    public PotionPage getInventoryPage (PotionFilter filter, Long after, Long before, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        Limit limit = Limit.of(pageSize + 1);
+
+        if (before != null) {
+            List<Potion> rows = new ArrayList<>(seekBackward(filter, before, limit));
+            if (rows.isEmpty())
+                return getInventoryPage(filter, null, null, pageSize);
+
+            boolean hasPrevious = rows.size() > pageSize;
+            List<Potion> potions = rows.subList(0, Math.min(rows.size(), pageSize));
+            Collections.reverse(potions);
+
+            Long previousCursor = hasPrevious ? potions.get(0).getId() : null;
+            return new PotionPage(List.copyOf(potions), pageSize, previousCursor, potions.get(potions.size() - 1).getId());
+        }
+
+        List<Potion> rows = seekForward(filter, after, limit);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<Potion> potions = rows.subList(0, Math.min(rows.size(), pageSize));
+
+        Long previousCursor = null;
+        if (after != null)
+            previousCursor = potions.isEmpty() ? after + 1 : potions.get(0).getId();
+        Long nextCursor = hasNext ? potions.get(potions.size() - 1).getId() : null;
+
+        return new PotionPage(List.copyOf(potions), pageSize, previousCursor, nextCursor);
+    }
+
+    /**
+     * Retrieves one page of potion summaries (without effects) using keyset pagination on the potion ID.
+     * @param after return the summaries following this ID, or null to start from the beginning
+     * @param size the requested page size, clamped to 1..MAX_PAGE_SIZE
+     * @return the requested page with the cursor for the next one
+     */
+    @Transactional (readOnly = true)
+    public PotionSummaryPage getInventorySummaries (Long after, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<PotionSummary> rows = (after == null)
+            ? potionRepository.findSummariesByOrderByIdAsc(limit)
+            : potionRepository.findSummariesByIdGreaterThanOrderByIdAsc(after, limit);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<PotionSummary> potions = List.copyOf(rows.subList(0, Math.min(rows.size(), pageSize)));
+        Long nextCursor = hasNext ? potions.get(potions.size() - 1).id() : null;
+
+        return new PotionSummaryPage(potions, pageSize, nextCursor);
+    }
+
+    /**
+     * Finds a potion by its ID. The potion is read from the second-level cache, where it stays until it is
+     * edited or removed.
      * @param id the potion ID
      * @return the potion with the given ID
      * @throws PotionNotFoundException if potion not found
      */
+    @Transactional (readOnly = true)
     public Potion findPotionById (Long id) {
         return potionRepository.findById(id)
             .orElseThrow(() -> new PotionNotFoundException(id));
     }
 
     /**
-     * Removes a potion from the inventory by ID.
+     * Finds a potion by its exact name. The name is resolved to an ID through the natural-ID cache and
+     * the potion is then read from the second-level cache, so repeated lookups do not reach the database.
+     * @param name the potion name
+     * @return the potion
+     * @throws PotionNotFoundException if there is no potion with that name
+     */
+    @Transactional (readOnly = true)
+    public Potion findPotionByName (String name) {
+        return potionRepository.loadByName(name)
+            .orElseThrow(() -> new PotionNotFoundException(name));
+    }
+
+    /**
+     * Edits a potion with a single UPDATE statement that only matches the version the change is based on,
+     * so concurrent edits fail instead of overwriting each other. The legality is audited again when the
+     * risk level changes. Its summary is read first by primary key, so the update event can tell what changed.
+     * Only this potion is evicted from the second-level cache.
+     * @param id the potion ID
+     * @param patch the fields to change and the version they are based on
+     * @return the new version of the potion
+     * @throws PotionNotFoundException if potion not found
+     * @throws PotionVersionConflictException if the potion is no longer at the given version
+     */
+    @Transactional
+    public long updatePotion (Long id, PotionPatch patch) {
+        List<PotionSummary> found = potionRepository.findSummariesByIdIn(List.of(id));
+        if (found.isEmpty())
+            throw new PotionNotFoundException(id);
+
+        Boolean legal = (patch.levelOfRisk() == null) ? null : isLegal(patch.levelOfRisk());
+        if (potionRepository.updateIfVersionMatches(id, patch.version(), patch.effect(), patch.levelOfRisk(), legal) == 0)
+            throw new PotionVersionConflictException(id);
+
+        PotionSummary before = found.get(0);
+        PotionSummary after = (legal == null) ? before
+            : new PotionSummary(id, before.name(), legal, patch.levelOfRisk());
+        inventoryVersion.bump();
+        eventPublisher.publishEvent(new PotionUpdatedEvent(before, after, patch.effect()));
+        return patch.version() + 1;
+    }
+
+    /**
+     * Removes a potion from the inventory by ID with a single DELETE statement, after copying it to the
+     * archive in the same transaction. Its summary is read first by primary key, so the removal event
+     * can tell its risk and legality.
      * @param id the potion ID
      * @throws PotionNotFoundException if potion not found
      */
+    @Transactional
     public void removePotionById (Long id) {
-        if (!potionRepository.existsById(id))
+        List<PotionSummary> removed = potionRepository.findSummariesByIdIn(List.of(id));
+        if (removed.isEmpty())
             throw new PotionNotFoundException(id);
-    
-        potionRepository.deleteById(id); 
+
+        potionArchive.archive(List.of(id));
+        if (potionRepository.deleteReturningCount(removed) == 0)
+            throw new PotionNotFoundException(id);
+
+        inventoryVersion.bump();
+        eventPublisher.publishEvent(new PotionsRemovedEvent(removed));
     }
 
     /**
-     * Validates potion risk level and name uniqueness.
-     * @param potion the potion to validate
-     * @throws InvalidRiskException if risk level outside 1-100 range
-     * @throws PotionAlreadyExistsException if name already exists
+     * Removes many potions at once with a single DELETE statement, after reading their summaries for the removal event
+     * and copying them to the archive in the same transaction. Either all of them are removed or, if any ID does
+     * not exist, none is.
+     * @param ids the potion IDs
+     * @return the number of removed potions
+     * @throws PotionNotFoundException if any potion is not found
      */
-    private void validatePotion (Potion potion) {
-        if (potionRepository.existsByName(potion.getName())) {
-            throw new PotionAlreadyExistsException();
+    @Transactional
+    public int removePotionsByIds (Collection<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.isEmpty())
+            return 0;
+
+        List<PotionSummary> summaries = potionRepository.findSummariesByIdIn(distinctIds);
+        if (summaries.size() < distinctIds.size())
+            throw new PotionNotFoundException(distinctIds);
+
+        potionArchive.archive(distinctIds);
+        int removed = potionRepository.deleteReturningCount(summaries);
+        if (removed < distinctIds.size())
+            throw new PotionNotFoundException(distinctIds);
+
+        inventoryVersion.bump();
+        eventPublisher.publishEvent(new PotionsRemovedEvent(summaries));
+        return removed;
+    }
+
+    /**
+     * Reads the potions following a cursor in ascending ID order.
+     * @param filter the criteria the potions must match
+     * @param after the last ID already seen, or null to start from the beginning
+     * @param limit maximum number of potions to read
+     * @return the potions read
+     */
+    private List<Potion> seekForward (PotionFilter filter, Long after, Limit limit) {
+        if (filter.isEmpty()) {
+            return (after == null)
+                ? potionRepository.findAllByOrderByIdAsc(limit)
+                : potionRepository.findByIdGreaterThanOrderByIdAsc(after, limit);
         }
+
+        Specification<Potion> specification = PotionSpecifications.matching(filter);
+        if (after != null)
+            specification = specification.and(PotionSpecifications.idGreaterThan(after));
+
+        return potionRepository.findMatching(specification, Sort.by("id").ascending(), limit);
+    }
+
+    /**
+     * Reads the potions preceding a cursor in descending ID order (closest first).
+     * @param filter the criteria the potions must match
+     * @param before the first ID already seen
+     * @param limit maximum number of potions to read
+     * @return the potions read
+     */
+    private List<Potion> seekBackward (PotionFilter filter, Long before, Limit limit) {
+        if (filter.isEmpty())
+            return potionRepository.findByIdLessThanOrderByIdDesc(before, limit);
+
+        Specification<Potion> specification = PotionSpecifications.matching(filter)
+            .and(PotionSpecifications.idLessThan(before));
+
+        return potionRepository.findMatching(specification, Sort.by("id").descending(), limit);
+    }
+
+    /**
+     * Tells whether a data integrity error was caused by a unique constraint (the potion name).
+     * @param e the translated persistence error
+     * @return true if a unique constraint was violated
+     */
+    private static boolean isUniqueViolation (DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation)
+                return violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE;
+        }
+        return false;
     }
 
     /**
      * Determines legality based on risk level (legal if risk <= 90).
+     * Shared with the bulk import so both paths apply the same Ministry rule.
      * @param potion the potion to audit
      */
-    private void auditRisk (Potion potion) {
-        int levelOfRisk = potion.getLevelOfRisk();
-        potion.setLegal(levelOfRisk <= 90);
+    static void auditRisk (Potion potion) {
+        potion.setLegal(isLegal(potion.getLevelOfRisk()));
+    }
+
+    /**
+     * Applies the Ministry rule to a risk level.
+     * @param levelOfRisk the risk level
+     * @return true if a potion with that risk is legal
+     */
+    private static boolean isLegal (int levelOfRisk) {
+        return levelOfRisk <= 90;
     }
 }
\ No newline at end of file
@@ -0,0 +1,321 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import com.magic.academy.cursedpotions.config.ReadYourWritesFilter;
+import com.magic.academy.cursedpotions.exception.PotionAlreadyExistsException;
+import com.magic.academy.cursedpotions.model.Potion;
+
+/**
+ * Group-commit pipeline for potion creation, enabled with potions.write-batching.enabled.
+ * Callers queue their potion and wait; a single writer thread takes what is queued, up to
+ * max-batch-size potions or whatever arrived within max-delay of the first one, and inserts it
+ * in one transaction with one JDBC batch. Each caller then gets its own result: it returns once its
+ * potion is committed, or throws PotionAlreadyExistsException if the name existed or was taken by
+ * an earlier potion of the same batch. No caller waits longer than max-wait, and if the writer stops,
+ * whether on shutdown or because it failed, whatever it can no longer write is failed instead of left waiting.
+ * <p>
+ * The batch commits on the writer thread, outside any request, so the read-your-writes pinning of the
+ * client that created the potion is applied on the caller's thread once its potion is committed.
+ * <p>
+ * Under a burst of creations this turns one transaction per request into one per batch, at the cost
+ * of up to max-delay of added latency when traffic is light.
+ */
+@Component
+public class PotionWriteBatcher implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PotionWriteBatcher.class);
+
+    /** Time the idle writer waits for a creation before checking whether it should stop. */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    /** Service performing the batched insert in its own transaction. */
+    private final PotionImportService potionImportService;
+
+    /** Pins the reads of the creating client to the primary, when a read replica is configured. */
+    private final ObjectProvider<ReadYourWritesFilter> readYourWrites;
+
+    /** Whether creations go through the pipeline instead of their own transaction. */
+    private final boolean enabled;
+
+    /** Largest number of potions written in one transaction. */
+    private final int maxBatchSize;
+
+    /** Longest time the first potion of a batch waits for others to join it. */
+    private final long maxDelayNanos;
+
+    /** Longest time a caller waits to queue its potion and for its batch to be committed. */
+    private final long maxWaitNanos;
+
+    /** Creations waiting for the writer; callers wait up to max-wait when it is full. */
+    private final BlockingQueue<PendingCreation> queue;
+
+    /** Thread writing the batches, or null when the pipeline is disabled. */
+    private final Thread writer;
+
+    /** Cleared on shutdown or when the writer exits, after which no creation is accepted. */
+    private volatile boolean running;
+
+    /**
+     * Constructs the pipeline and, if enabled, starts its writer thread.
+     * @param potionImportService service performing the batched insert
+     * @param readYourWrites pins the reads of the creating client to the primary, if a replica is configured
+     * @param enabled whether creations go through the pipeline
+     * @param maxBatchSize largest number of potions written in one transaction
+     * @param maxDelay longest time the first potion of a batch waits for others
+     * @param queueCapacity number of creations that can wait for the writer
+     * @param maxWait longest time a caller waits for its potion to be committed
+     */
+    public PotionWriteBatcher (PotionImportService potionImportService,
+                               ObjectProvider<ReadYourWritesFilter> readYourWrites,
+                               @Value ("${potions.write-batching.enabled:false}") boolean enabled,
+                               @Value ("${potions.write-batching.max-batch-size:256}") int maxBatchSize,
+                               @Value ("${potions.write-batching.max-delay:2ms}") Duration maxDelay,
+                               @Value ("${potions.write-batching.queue-capacity:10000}") int queueCapacity,
+                               @Value ("${potions.write-batching.max-wait:10s}") Duration maxWait) {
+        this.potionImportService = potionImportService;
+        this.readYourWrites = readYourWrites;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxWaitNanos = maxWait.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        if (enabled) {
+            running = true;
+            writer = Thread.ofPlatform().name("potion-write-batcher").daemon().start(this::writeBatches);
+        } else {
+            writer = null;
+        }
+    }
+
+    /**
+     * @return true if creations should go through the pipeline
+     */
+    public boolean isEnabled () {
+        return enabled;
+    }
+
+    /**
+     * Queues an audited potion and waits until its batch is committed. On success the potion has its ID.
+     * The insert runs in the writer's transaction, not in any transaction of the caller.
+     * @param potion the potion to create
+     * @throws PotionAlreadyExistsException if the name already exists
+     * @throws IllegalStateException if the pipeline is disabled, stopped or failed, or did not commit the
+     *         potion within max-wait; in the last case the potion may still be written
+     */
+    public void create (Potion potion) {
+        if (!running)
+            throw new IllegalStateException("The potion write pipeline is not running");
+
+        PendingCreation creation = new PendingCreation(potion, new CompletableFuture<>());
+        long deadline = System.nanoTime() + maxWaitNanos;
+        try {
+            if (!queue.offer(creation, maxWaitNanos, TimeUnit.NANOSECONDS))
+                throw new IllegalStateException("The potion write pipeline is full");
+            // A writer that has stopped no longer drains the queue, so the creation is taken back
+            if (!running && queue.remove(creation))
+                throw new IllegalStateException("The potion write pipeline is not running");
+
+            creation.result().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the potion to be written", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new IllegalStateException("The potion write pipeline failed", e.getCause());
+        } catch (TimeoutException e) {
+            if (queue.remove(creation))
+                throw new IllegalStateException("The potion write pipeline did not take the potion in time", e);
+            throw new IllegalStateException("Timed out waiting for the potion to be committed; it may still be written", e);
+        }
+        // On the caller's thread, where the filter knows the client of the request
+        readYourWrites.ifAvailable(ReadYourWritesFilter::wrote);
+    }
+
+    @Override
+    public void destroy () throws InterruptedException {
+        if (writer == null)
+            return;
+
+        running = false;
+        writer.join();
+    }
+
+    /**
+     * Loop of the writer thread. On shutdown it writes what is still queued before exiting; if it exits
+     * on an error instead, the creations it was holding or that are still queued are failed.
+     */
+    private void writeBatches () {
+        List<PendingCreation> batch = new ArrayList<>(maxBatchSize);
+        try {
+            try {
+                while (running) {
+                    collectBatch(batch);
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                // The flag is not restored: the thread ends below, and the remaining writes need a usable connection
+                log.warn("Potion write pipeline interrupted, writing the {} queued potions", batch.size() + queue.size());
+            }
+
+            do {
+                write(batch);
+            } while (queue.drainTo(batch, maxBatchSize) > 0);
+        } finally {
+            running = false;
+            failPending(batch);
+        }
+    }
+
+    /**
+     * Fails the creations the stopped writer will never write: the given ones and those still queued.
+     * Callers queueing after this see the writer stopped and take their creation back.
+     * @param batch creations taken by the writer and not completed
+     */
+    private void failPending (List<PendingCreation> batch) {
+        queue.drainTo(batch);
+        if (batch.isEmpty())
+            return;
+
+        log.error("Potion write pipeline stopped with {} potions not written", batch.size());
+        IllegalStateException stopped = new IllegalStateException("The potion write pipeline stopped before writing the potion");
+        for (PendingCreation creation : batch)
+            creation.result().completeExceptionally(stopped);
+        batch.clear();
+    }
+
+    /**
+     * Waits for a first creation, then for more until the batch is full or max-delay has passed.
+     * Returns with an empty batch if nothing arrives for a while, so the loop can notice a shutdown.
+     * @param batch list receiving the creations
+     */
+    private void collectBatch (List<PendingCreation> batch) throws InterruptedException {
+        PendingCreation first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null)
+            return;
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+
+        while (batch.size() < maxBatchSize) {
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0)
+                continue;
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                break;
+            PendingCreation next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null)
+                break;
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Writes a batch and completes every creation in it, then clears the list.
+     * @param batch the creations to write
+     */
+    private void write (List<PendingCreation> batch) {
+        if (batch.isEmpty())
+            return;
+
+        try {
+            List<PendingCreation> unique = rejectRepeatedNames(batch);
+            try {
+                complete(unique, potionImportService.insertNew(potions(unique)));
+            } catch (DuplicateKeyException e) {
+                // A name was taken by another writer between the check and the insert: retry one by one
+                for (PendingCreation creation : unique)
+                    writeAlone(creation);
+            }
+        } catch (RuntimeException | Error e) {
+            log.error("Could not write a batch of {} potions", batch.size(), e);
+            for (PendingCreation creation : batch)
+                creation.result().completeExceptionally(e);
+            if (e instanceof Error error)
+                throw error;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Fails every creation whose name appears earlier in the same batch; the first one wins.
+     * @param batch the creations to check
+     * @return the creations with a name not seen before in the batch
+     */
+    private static List<PendingCreation> rejectRepeatedNames (List<PendingCreation> batch) {
+        Set<String> names = new HashSet<>();
+        List<PendingCreation> unique = new ArrayList<>(batch.size());
+        for (PendingCreation creation : batch) {
+            if (names.add(creation.potion().getName().toLowerCase(Locale.ROOT)))
+                unique.add(creation);
+            else
+                creation.result().completeExceptionally(new PotionAlreadyExistsException());
+        }
+        return unique;
+    }
+
+    /**
+     * Writes a single creation in its own transaction.
+     * @param creation the creation to write
+     */
+    private void writeAlone (PendingCreation creation) {
+        try {
+            complete(List.of(creation), potionImportService.insertNew(List.of(creation.potion())));
+        } catch (DuplicateKeyException e) {
+            creation.result().completeExceptionally(new PotionAlreadyExistsException());
+        } catch (RuntimeException e) {
+            creation.result().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Completes the creations: the inserted potions succeed, the skipped ones already existed.
+     * @param creations the creations written
+     * @param inserted the potions actually inserted
+     */
+    private static void complete (List<PendingCreation> creations, List<Potion> inserted) {
+        Set<Potion> created = Collections.newSetFromMap(new IdentityHashMap<>());
+        created.addAll(inserted);
+
+        for (PendingCreation creation : creations) {
+            if (created.contains(creation.potion()))
+                creation.result().complete(null);
+            else
+                creation.result().completeExceptionally(new PotionAlreadyExistsException());
+        }
+    }
+
+    private static List<Potion> potions (List<PendingCreation> creations) {
+        return creations.stream().map(PendingCreation::potion).toList();
+    }
+
+    /**
+     * A potion waiting to be written and the result its caller is waiting for.
+     */
+    private record PendingCreation (Potion potion, CompletableFuture<Void> result) {
+    }
+}
@@ -0,0 +1,44 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Adds the index used by the catalog filters on legality and risk range and by the inventory statistics.
+ * Databases adopted through the baseline may already have it, since ddl-auto=update created it from the
+ * entity once the filters were added, and MySQL has no CREATE INDEX IF NOT EXISTS: the index is only
+ * created when the table does not have it yet.
+ */
+public class V2__Index_potions_legal_risk extends BaseJavaMigration {
+
+    private static final String INDEX = "idx_potions_legal_risk";
+
+    @Override
+    public void migrate (Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        if (hasIndex(connection))
+            return;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX " + INDEX + " ON potions (legal, level_of_risk)");
+        }
+    }
+
+    private static boolean hasIndex (Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String table = metaData.storesUpperCaseIdentifiers() ? "POTIONS" : "potions";
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false, false)) {
+            while (indexes.next()) {
+                if (INDEX.equalsIgnoreCase(indexes.getString("INDEX_NAME")))
+                    return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,12 @@
+-- Esquema inicial del inventario, el mismo que generaba ddl-auto=update en la versión anterior a las migraciones.
+-- Las bases de datos creadas antes de las migraciones se marcan como versión 1 (baseline) sin ejecutar este script,
+-- así que todo lo añadido después (índices incluidos) va en las migraciones siguientes, que sí se ejecutan en ellas.
+CREATE TABLE potions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    effect VARCHAR(500) NOT NULL,
+    level_of_risk INT NOT NULL,
+    legal BIT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_potions_name UNIQUE (name)
+) ENGINE = InnoDB;
@@ -0,0 +1,16 @@
+-- Registro de cambios del inventario (outbox) que alimenta el feed /catalog/changes.
+-- Cada fila se escribe en la misma transacción que el cambio, así que su ID sirve para reanudar el feed.
+-- potion_id, name, legal y level_of_risk son nulos en los cambios RESYNC (lotes demasiado grandes para listarlos).
+CREATE TABLE potion_changes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    change_type VARCHAR(10) NOT NULL,
+    potion_id BIGINT,
+    name VARCHAR(100),
+    legal BIT,
+    level_of_risk INT,
+    changed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- Purga de los cambios más antiguos que la retención
+CREATE INDEX idx_potion_changes_changed_at ON potion_changes (changed_at);
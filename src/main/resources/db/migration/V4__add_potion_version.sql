@@ -0,0 +1,3 @@
+-- Versión para el bloqueo optimista de las ediciones: cada UPDATE la incrementa y exige la que leyó el cliente.
+-- Las filas existentes y las insertadas por la importación JDBC empiezan en 0.
+ALTER TABLE potions ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
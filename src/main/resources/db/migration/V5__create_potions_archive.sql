@@ -0,0 +1,17 @@
+-- Archivo de las pociones destruidas, para las auditorías del Ministerio.
+-- Las filas se copian desde potions en la misma transacción que las borra, así que la tabla caliente
+-- solo contiene el inventario vivo. El nombre no es único: una poción destruida puede volver a prepararse.
+CREATE TABLE potions_archive (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    potion_id BIGINT NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    effect VARCHAR(500) NOT NULL,
+    level_of_risk INT NOT NULL,
+    legal BIT NOT NULL,
+    destroyed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- Consultas de auditoría por poción y purga por antigüedad
+CREATE INDEX idx_potions_archive_potion_id ON potions_archive (potion_id);
+CREATE INDEX idx_potions_archive_destroyed_at ON potions_archive (destroyed_at);
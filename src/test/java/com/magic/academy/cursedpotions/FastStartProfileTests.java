@@ -0,0 +1,28 @@
+package com.magic.academy.cursedpotions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+@SpringBootTest
+@ActiveProfiles ("fast-start")
+class FastStartProfileTests {
+
+	@Autowired
+	private PotionRepository potionRepository;
+
+	@Test
+	void contextLoads_WithoutSchemaIntrospection_ShouldWorkOnTheMigratedSchema() {
+		Potion potion = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+
+		assertEquals("Felix Felicis", potionRepository.findById(potion.getId()).orElseThrow().getName());
+
+		potionRepository.delete(potion);
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+public class AdmissionControlFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /** Lets the write held by holdWrite finish. */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Thread heldWrite;
+
+    @AfterEach
+    public void tearDown () throws InterruptedException {
+        release.countDown();
+        if (heldWrite != null)
+            heldWrite.join();
+    }
+
+    @Test
+    public void doFilter_WhenTheWriteBudgetIsTaken_ShouldRejectWritesWithRetryAfter () throws Exception {
+        // Arrange
+        AdmissionControlFilter filter = filter(2, 0.5, Duration.ofSeconds(1));
+        holdWrite(filter, "POST", "/create");
+
+        // Act
+        MockHttpServletResponse sameEndpoint = perform(filter, "POST", "/create");
+        MockHttpServletResponse otherEndpoint = perform(filter, "GET", "/delete");
+
+        // Assert
+        assertEquals(503, sameEndpoint.getStatus());
+        assertEquals("2", sameEndpoint.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(503, otherEndpoint.getStatus(), "The write budget should be shared by every write endpoint");
+        assertEquals(1.0, meterRegistry.get("potions.admission.rejected").tag("endpoint", "POST /create").counter().count());
+    }
+
+    @Test
+    public void doFilter_WhenWritesAreAtTheLimit_ShouldStillLetReadsThrough () throws Exception {
+        // Arrange
+        AdmissionControlFilter filter = filter(2, 0.5, Duration.ofSeconds(1));
+        holdWrite(filter, "POST", "/create");
+
+        // Act
+        MockHttpServletResponse catalog = perform(filter, "GET", "/catalog");
+        MockHttpServletResponse details = perform(filter, "GET", "/api/potions/1");
+
+        // Assert
+        assertEquals(200, catalog.getStatus());
+        assertEquals(200, details.getStatus());
+    }
+
+    @Test
+    public void doFilter_WithWritesSlowerThanTheTarget_ShouldCutTheEndpointLimit () throws Exception {
+        // Arrange
+        AdmissionControlFilter filter = filter(10, 0, Duration.ofMillis(1));
+        FilterChain slowChain = (request, response) -> sleep(5);
+
+        // Act
+        for (int i = 0; i < 3; i++)
+            filter.doFilter(request("POST", "/create"), new MockHttpServletResponse(), slowChain);
+
+        // Assert
+        double limit = meterRegistry.get("potions.admission.limit").tag("endpoint", "POST /create").gauge().value();
+        assertTrue(limit < 10, "The limit should have been cut from 10, but is " + limit);
+    }
+
+    private AdmissionControlFilter filter (int poolSize, double readReservedShare, Duration latencyTarget) {
+        return new AdmissionControlFilter(true, List.of("POST /create", "GET /delete"), poolSize, readReservedShare,
+            latencyTarget, Duration.ofMillis(20), Duration.ofSeconds(2), meterRegistry);
+    }
+
+    /**
+     * Starts a write that holds its permits until the test ends.
+     */
+    private void holdWrite (AdmissionControlFilter filter, String method, String path) throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        heldWrite = Thread.ofPlatform().start(() -> {
+            try {
+                filter.doFilter(request(method, path), new MockHttpServletResponse(), (request, response) -> {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        entered.await();
+    }
+
+    private static MockHttpServletResponse perform (AdmissionControlFilter filter, String method, String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, path), response, (request, res) -> { });
+        return response;
+    }
+
+    private static MockHttpServletRequest request (String method, String path) {
+        return new MockHttpServletRequest(method, path);
+    }
+
+    private static void sleep (long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ConnectionBulkheadTest {
+
+    @Mock
+    private DataSource pool;
+
+    private ConnectionBulkhead bulkhead;
+
+    private final ExecutorService waiters = Executors.newVirtualThreadPerTaskExecutor();
+
+    @BeforeEach
+    public void setUp () throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        bulkhead = new ConnectionBulkhead(pool, 1, 1, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    public void tearDown () {
+        waiters.shutdownNow();
+    }
+
+    @Test
+    public void getConnection_WhenThePoolIsTaken_ShouldWaitUntilAConnectionIsClosed () throws Exception {
+        // Arrange
+        Connection taken = bulkhead.getConnection();
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(this::connection, waiters);
+        awaitWaiting(1);
+
+        // Act
+        boolean servedBeforeTheClose = waiting.isDone();
+        taken.close();
+
+        // Assert
+        assertFalse(servedBeforeTheClose);
+        assertNotNull(waiting.get(10, TimeUnit.SECONDS));
+        verify(pool, times(2)).getConnection();
+    }
+
+    @Test
+    public void getConnection_WhenTheWaitingRoomIsFull_ShouldFailAtOnce () throws Exception {
+        // Arrange
+        bulkhead.getConnection();
+        CompletableFuture.supplyAsync(this::connection, waiters);
+        awaitWaiting(1);
+
+        // Act y Assert
+        assertThrows(SQLTransientConnectionException.class, bulkhead::getConnection);
+        verify(pool, times(1)).getConnection();
+    }
+
+    @Test
+    public void getConnection_WhenTheConnectionIsClosedTwice_ShouldGiveBackASinglePermit () throws Exception {
+        // Arrange
+        Connection first = bulkhead.getConnection();
+        first.close();
+        first.close();
+        bulkhead.getConnection();
+
+        // Act y Assert
+        CompletableFuture.supplyAsync(this::connection, waiters);
+        awaitWaiting(1);
+        assertEquals(1, bulkhead.getWaiting());
+    }
+
+    private Connection connection () {
+        try {
+            return bulkhead.getConnection();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void awaitWaiting (int threads) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (bulkhead.getWaiting() < threads && System.nanoTime() < deadline)
+            Thread.sleep(10);
+    }
+}
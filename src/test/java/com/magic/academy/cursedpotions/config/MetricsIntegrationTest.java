@@ -0,0 +1,77 @@
+package com.magic.academy.cursedpotions.config;
+
+import static org.hamcrest.Matchers.containsString;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void request_ShouldRecordServiceTimeAndSqlStatementCount () throws Exception {
+        Potion potion = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+
+        mockMvc.perform(get("/delete").param("id", potion.getId().toString()))
+
+            .andExpect(status().is3xxRedirection());
+
+        Timer removal = meterRegistry.find("potions.service").tag("method", "removePotionById").timer();
+        assertNotNull(removal);
+        assertEquals(1, removal.count());
+
+        DistributionSummary statements = meterRegistry.find("potions.sql.statements")
+            .tag("method", "GET").tag("uri", "/delete").summary();
+        assertNotNull(statements);
+        assertEquals(1, statements.count());
+        // The summary read, the archive INSERT ... SELECT, the DELETE and the change outbox INSERT
+        assertEquals(4, statements.totalAmount());
+    }
+
+    @Test
+    public void prometheus_ShouldExposeApplicationHibernateAndPoolMetrics () throws Exception {
+        mockMvc.perform(get("/catalog"));
+
+        mockMvc.perform(get("/actuator/prometheus"))
+
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("potions_service_seconds_bucket")))
+            .andExpect(content().string(containsString("potions_sql_statements_bucket")))
+            .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+            .andExpect(content().string(containsString("hibernate_statements_total")))
+            .andExpect(content().string(containsString("hikaricp_connections_active")));
+
+        assertTrue(meterRegistry.find("hibernate.sessions.open").meters().size() > 0);
+    }
+}
@@ -0,0 +1,241 @@
+package com.magic.academy.cursedpotions.config;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+import com.magic.academy.cursedpotions.service.PotionSearchService;
+import com.magic.academy.cursedpotions.service.PotionService;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Two embedded databases stand in for the primary and the replica. Nothing replicates between them,
+ * so the database a statement went to can be told from the rows it sees. MockMvc does not keep cookies,
+ * so a request that passes on the cookie of an earlier response comes from the same client, and one that
+ * does not comes from another client.
+ */
+@SpringBootTest (properties = {
+    "spring.datasource.url=" + ReadWriteRoutingIntegrationTest.PRIMARY_URL,
+    "potions.datasource.replica.url=" + ReadWriteRoutingIntegrationTest.REPLICA_URL,
+    "potions.datasource.replica.username=sa",
+    "potions.datasource.replica.password=",
+    "potions.datasource.replica.read-your-writes-window=" + ReadWriteRoutingIntegrationTest.WINDOW_MILLIS + "ms"
+})
+@AutoConfigureMockMvc
+public class ReadWriteRoutingIntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final long WINDOW_MILLIS = 1000;
+
+    static {
+        // In production replication brings the schema over; here the replica is migrated by hand
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PotionService potionService;
+
+    @Autowired
+    private PotionSearchService potionSearchService;
+
+    @Autowired
+    @Qualifier ("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier ("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void setUp () throws InterruptedException {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        // Let the read-your-writes window of the previous test expire
+        Thread.sleep(WINDOW_MILLIS + 100);
+    }
+
+    @AfterEach
+    public void cleanUp () {
+        primary.update("DELETE FROM potions");
+        replica.update("DELETE FROM potions");
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @Test
+    public void readOnlyTransaction_ShouldReadFromTheReplica () {
+        // Arrange
+        replica.update("INSERT INTO potions (name, effect, level_of_risk, legal) VALUES ('Replica only', 'Lag', 10, TRUE)");
+
+        // Act
+        var summaries = potionService.getInventorySummaries(null, 10).potions();
+
+        // Assert
+        assertEquals("Replica only", summaries.stream().map(PotionSummary::name).findFirst().orElseThrow());
+    }
+
+    @Test
+    public void addPotion_ShouldWriteToThePrimaryOnly () {
+        // Act
+        potionService.addPotion(new Potion("Felix Felicis", "Liquid luck", 40));
+
+        // Assert
+        assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM potions", Integer.class));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM potions", Integer.class));
+    }
+
+    @Test
+    public void catalog_RightAfterCreating_ShouldShowThePotionFromThePrimary () throws Exception {
+        Cookie primaryUntil = createFelixFelicis();
+
+        mockMvc.perform(get("/catalog").cookie(primaryUntil))
+
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Felix Felicis")));
+    }
+
+    @Test
+    public void catalog_OfAnotherClientRightAfterCreating_ShouldStillReadFromTheReplica () throws Exception {
+        replica.update("INSERT INTO potions (name, effect, level_of_risk, legal) VALUES ('Replica only', 'Lag', 10, TRUE)");
+        createFelixFelicis();
+
+        mockMvc.perform(get("/catalog"))
+
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Replica only")))
+            .andExpect(content().string(not(containsString("Felix Felicis"))));
+
+        replica.update("INSERT INTO potions (name, effect, level_of_risk, legal) VALUES ('Felix Felicis', 'Liquid luck', 40, TRUE)");
+
+        mockMvc.perform(get("/catalog"))
+
+            .andExpect(content().string(containsString("Felix Felicis")));
+    }
+
+    @Test
+    public void catalog_AfterTheWindow_ShouldGoBackToTheReplica () throws Exception {
+        Cookie primaryUntil = createFelixFelicis();
+        Thread.sleep(WINDOW_MILLIS + 100);
+
+        mockMvc.perform(get("/catalog").cookie(primaryUntil))
+
+            .andExpect(status().isOk())
+            .andExpect(content().string(not(containsString("Felix Felicis"))));
+    }
+
+    @Test
+    public void catalog_OfAnotherClientWhileTheReplicaLags_ShouldKeepTheQueriesCachedByTheWriter () throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Renders the catalog once, so the requests below fit in the window
+        mockMvc.perform(get("/catalog"));
+        Cookie primaryUntil = createFelixFelicis();
+        mockMvc.perform(get("/catalog").cookie(primaryUntil));
+        mockMvc.perform(get("/catalog"));
+        long puts = statistics.getQueryCachePutCount();
+
+        mockMvc.perform(get("/catalog").cookie(primaryUntil))
+
+            .andExpect(content().string(containsString("Felix Felicis")));
+        assertEquals(puts, statistics.getQueryCachePutCount());
+    }
+
+    @Test
+    public void getPotion_OfAnotherClientWhileTheReplicaLags_ShouldNotBeCached () throws Exception {
+        for (JdbcTemplate database : new JdbcTemplate[] { primary, replica })
+            database.update("INSERT INTO potions (id, name, effect, level_of_risk, legal) VALUES (7000, 'Felix Felicis', 'Liquid luck', 40, TRUE)");
+        mockMvc.perform(patch("/api/potions/7000")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"levelOfRisk\": 95, \"version\": 0}"))
+
+            .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/potions/7000"))
+
+            .andExpect(jsonPath("$.levelOfRisk").value(40));
+
+        replica.update("UPDATE potions SET level_of_risk = 95, legal = FALSE, version = 1 WHERE id = 7000");
+
+        mockMvc.perform(get("/api/potions/7000"))
+
+            .andExpect(jsonPath("$.levelOfRisk").value(95));
+    }
+
+    @Test
+    public void readOnlyTransaction_AfterAWriteOutsideARequest_ShouldStayOnTheReplica () {
+        // Arrange
+        potionService.addPotion(new Potion("Felix Felicis", "Liquid luck", 40));
+
+        // Act
+        var summaries = potionService.getInventorySummaries(null, 10).potions();
+
+        // Assert
+        assertTrue(summaries.isEmpty());
+    }
+
+    @Test
+    public void rebuildSearchIndex_ShouldReadFromThePrimary () throws InterruptedException {
+        // Arrange
+        primary.update("INSERT INTO potions (name, effect, level_of_risk, legal) VALUES ('Felix Felicis', 'Liquid luck', 40, TRUE)");
+        for (JdbcTemplate database : new JdbcTemplate[] { primary, replica })
+            database.update("INSERT INTO potions (name, effect, level_of_risk, legal) VALUES ('Polyjuice', 'Shape shifting', 70, TRUE)");
+
+        // Act (the startup build may still be running)
+        int indexed;
+        while ((indexed = potionSearchService.rebuildIndex()) < 0)
+            Thread.sleep(10);
+
+        // Assert
+        assertEquals(2, indexed);
+        assertEquals(2, potionSearchService.getIndexedCount());
+    }
+
+    /**
+     * Creates a potion through the form, as one client.
+     * @return the cookie that pins the reads of that client to the primary
+     */
+    private Cookie createFelixFelicis () throws Exception {
+        Cookie primaryUntil = mockMvc.perform(post("/create")
+                .param("name", "Felix Felicis")
+                .param("effect", "Liquid luck")
+                .param("levelOfRisk", "40"))
+            .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(primaryUntil);
+        return primaryUntil;
+    }
+}
@@ -0,0 +1,74 @@
+package com.magic.academy.cursedpotions.config;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Same setup as ReadWriteRoutingIntegrationTest, with creations going through the write batcher,
+ * whose transaction commits on the writer thread rather than on the request thread.
+ */
+@SpringBootTest (properties = {
+    "spring.datasource.url=" + ReadWriteRoutingWithBatchingIntegrationTest.PRIMARY_URL,
+    "potions.datasource.replica.url=" + ReadWriteRoutingWithBatchingIntegrationTest.REPLICA_URL,
+    "potions.datasource.replica.username=sa",
+    "potions.datasource.replica.password=",
+    "potions.write-batching.enabled=true"
+})
+@AutoConfigureMockMvc
+public class ReadWriteRoutingWithBatchingIntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:batching_primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:batching_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    static {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier ("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @AfterEach
+    public void cleanUp () {
+        new JdbcTemplate(primaryDataSource).update("DELETE FROM potions");
+    }
+
+    @Test
+    public void catalog_RightAfterABatchedCreation_ShouldShowThePotionFromThePrimary () throws Exception {
+        Cookie primaryUntil = mockMvc.perform(post("/create")
+                .param("name", "Felix Felicis")
+                .param("effect", "Liquid luck")
+                .param("levelOfRisk", "40"))
+
+            .andExpect(status().is3xxRedirection())
+            .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+        assertNotNull(primaryUntil);
+        assertEquals(1, new JdbcTemplate(primaryDataSource).queryForObject("SELECT COUNT(*) FROM potions", Integer.class));
+        mockMvc.perform(get("/catalog").cookie(primaryUntil))
+
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Felix Felicis")));
+    }
+}
@@ -0,0 +1,77 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.magic.academy.cursedpotions.model.SlowStatement;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+public class SlowQueryLogTest {
+
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ofMillis(100), 2);
+
+    @AfterEach
+    public void tearDown () {
+        slowQueryLog.destroy();
+    }
+
+    @Test
+    public void afterQuery_WithFastStatement_ShouldNotRecordIt () {
+        // Act
+        slowQueryLog.afterQuery(execution(99), List.of(query("select 1")));
+
+        // Assert
+        assertTrue(slowQueryLog.getSlowest().isEmpty());
+    }
+
+    @Test
+    public void afterQuery_WithSlowStatement_ShouldRecordItWithItsParameters () throws Exception {
+        // Arrange
+        QueryInfo query = query("select * from potions where name = ? and level_of_risk > ?");
+        query.getParametersList().add(List.of(
+            new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                new Object[] { 1, "Felix Felicis" }),
+            new ParameterSetOperation(PreparedStatement.class.getMethod("setNull", int.class, int.class),
+                new Object[] { 2, java.sql.Types.INTEGER })));
+
+        // Act
+        slowQueryLog.afterQuery(execution(150), List.of(query));
+
+        // Assert
+        SlowStatement statement = slowQueryLog.getSlowest().get(0);
+        assertEquals(150, statement.elapsedMillis());
+        assertEquals("[1=Felix Felicis, 2=null]", statement.parameters());
+    }
+
+    @Test
+    public void getSlowest_WithMoreSlowStatementsThanTheTopSize_ShouldKeepTheSlowestFirst () {
+        // Act
+        for (long elapsed : List.of(300L, 100L, 500L, 200L))
+            slowQueryLog.afterQuery(execution(elapsed), List.of(query("select " + elapsed)));
+
+        // Assert
+        List<Long> kept = new ArrayList<>();
+        slowQueryLog.getSlowest().forEach(statement -> kept.add(statement.elapsedMillis()));
+        assertEquals(List.of(500L, 300L), kept);
+    }
+
+    private static ExecutionInfo execution (long elapsedMillis) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsedMillis);
+        return execution;
+    }
+
+    private static QueryInfo query (String sql) {
+        return new QueryInfo(sql);
+    }
+}
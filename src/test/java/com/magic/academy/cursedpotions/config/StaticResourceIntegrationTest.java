@@ -0,0 +1,90 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+@SpringBootTest (webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+public class StaticResourceIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ResourceUrlProvider resourceUrlProvider;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void layout_ShouldLinkTheBundledBootstrapThroughAVersionedUrl () throws Exception {
+        mockMvc.perform(get("/create"))
+
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("href=\"" + bootstrapUrl() + "\"")))
+            .andExpect(content().string(not(containsString("cdn.jsdelivr.net"))));
+    }
+
+    @Test
+    public void versionedStylesheet_ShouldBeCachedAsImmutable () throws Exception {
+        mockMvc.perform(get(bootstrapUrl()))
+
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"));
+    }
+
+    @Test
+    public void versionedStylesheet_WithBrotliAccepted_ShouldServeThePrecompressedVariant () throws Exception {
+        mockMvc.perform(get(bootstrapUrl()).header("Accept-Encoding", "gzip, deflate, br"))
+
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Encoding", "br"))
+            .andExpect(header().string("Vary", containsString("Accept-Encoding")));
+    }
+
+    @Test
+    public void renderedPage_WithGzipAccepted_ShouldBeCompressed () throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/catalog"))
+                .header("Accept-Encoding", "gzip")
+                .build();
+
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+            assertEquals(200, response.statusCode());
+            assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        }
+    }
+
+    @Test
+    public void resourceUrlProvider_ShouldOnlyResolveTheStylesheets () {
+        List<String> patterns = List.copyOf(resourceUrlProvider.getHandlerMap().keySet());
+
+        assertEquals(List.of("/css/**"), patterns, "Page links such as /details?id=1 should not be looked up on the classpath");
+    }
+
+    private String bootstrapUrl () {
+        String url = resourceUrlProvider.getForLookupPath("/css/bootstrap.min.css");
+        assertNotEquals("/css/bootstrap.min.css", url, "The URL should carry the content hash");
+        return url;
+    }
+}
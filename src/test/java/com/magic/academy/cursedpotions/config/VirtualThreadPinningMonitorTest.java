@@ -0,0 +1,42 @@
+package com.magic.academy.cursedpotions.config;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class VirtualThreadPinningMonitorTest {
+
+    private final VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10));
+
+    @AfterEach
+    public void tearDown () {
+        monitor.stop();
+    }
+
+    @Test
+    public void start_WhenAVirtualThreadBlocksInsideSynchronized_ShouldReportThePinning () throws Exception {
+        // Arrange
+        Object lock = new Object();
+        monitor.start();
+
+        // Act
+        Thread.ofVirtual().start(() -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join();
+
+        // Assert
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (monitor.getPinnedEventCount() == 0 && System.nanoTime() < deadline)
+            Thread.sleep(100);
+
+        assertTrue(monitor.getPinnedEventCount() > 0, "The pinned virtual thread should have been reported");
+    }
+}
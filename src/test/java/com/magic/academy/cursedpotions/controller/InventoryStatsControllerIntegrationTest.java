@@ -0,0 +1,82 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+import com.magic.academy.cursedpotions.service.InventoryStatistics;
+import com.magic.academy.cursedpotions.service.PotionImportService;
+import com.magic.academy.cursedpotions.service.PotionService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class InventoryStatsControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PotionService potionService;
+
+    @Autowired
+    private PotionImportService potionImportService;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @Autowired
+    private InventoryStatistics inventoryStatistics;
+
+    @BeforeEach
+    public void setUp () {
+        // Other tests clean the table behind the service's back
+        potionRepository.deleteAll();
+        inventoryStatistics.reconcile();
+    }
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void getStats_AfterAddsImportAndRemoval_ShouldCountWithoutQueryingTheTable () throws Exception {
+        Potion removed = new Potion("Felix Felicis", "Liquid luck", 40);
+        potionService.addPotion(removed);
+        potionService.addPotion(new Potion("Polyjuice", "Transformation", 40));
+        potionImportService.importPotions(List.of(new Potion("Draught of Living Death", "Eternal sleep", 95)));
+        potionService.removePotionById(removed.getId());
+
+        mockMvc.perform(get("/stats").accept(MediaType.APPLICATION_JSON))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(2))
+            .andExpect(jsonPath("$.legal").value(1))
+            .andExpect(jsonPath("$.illegal").value(1))
+            .andExpect(jsonPath("$.riskHistogram[39]").value(1))
+            .andExpect(jsonPath("$.riskHistogram[94]").value(1));
+    }
+
+    @Test
+    public void showStats_ShouldRenderTheDashboard () throws Exception {
+        mockMvc.perform(get("/stats"))
+
+            .andExpect(status().isOk())
+            .andExpect(view().name("stats"))
+            .andExpect(model().attributeExists("stats"));
+    }
+}
@@ -0,0 +1,202 @@
+package com.magic.academy.cursedpotions.controller;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PotionApiControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void listPotions_ShouldReturnSummariesWithoutEffectAndNextCursor () throws Exception {
+        Potion first = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+        potionRepository.save(new Potion(null, "Polyjuice", "Transformation", 50, true));
+
+        mockMvc.perform(get("/api/potions").param("size", "1"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.potions", hasSize(1)))
+            .andExpect(jsonPath("$.potions[0].name").value("Felix Felicis"))
+            .andExpect(jsonPath("$.potions[0].levelOfRisk").value(40))
+            .andExpect(jsonPath("$.potions[0].effect").doesNotExist())
+            .andExpect(jsonPath("$.nextCursor").value(first.getId()));
+    }
+
+    @Test
+    public void listPotions_ShouldBeSmallerThanTheRenderedCatalog () throws Exception {
+        for (int i = 0; i < 20; i++)
+            potionRepository.save(new Potion(null, "Potion " + i, "A long documented effect ".repeat(15), 1 + i, true));
+
+        int jsonBytes = mockMvc.perform(get("/api/potions"))
+            .andReturn().getResponse().getContentAsByteArray().length;
+        int htmlBytes = mockMvc.perform(get("/catalog"))
+            .andReturn().getResponse().getContentAsByteArray().length;
+
+        assertTrue(jsonBytes * 5 < htmlBytes, "JSON listing (" + jsonBytes + " B) should be far smaller than HTML (" + htmlBytes + " B)");
+    }
+
+    @Test
+    public void getPotion_WithExistingId_ShouldReturnItsDetails () throws Exception {
+        Potion potion = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+
+        mockMvc.perform(get("/api/potions/" + potion.getId()))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.effect").value("Liquid luck"))
+            .andExpect(jsonPath("$.legal").value(true));
+    }
+
+    @Test
+    public void getPotionByName_WithExistingName_ShouldReturnItsDetails () throws Exception {
+        Potion potion = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+
+        mockMvc.perform(get("/api/potions/by-name/Felix Felicis"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(potion.getId()))
+            .andExpect(jsonPath("$.effect").value("Liquid luck"));
+    }
+
+    @Test
+    public void getPotionByName_WithUnknownName_ShouldReturnNotFound () throws Exception {
+        mockMvc.perform(get("/api/potions/by-name/Unknown potion"))
+
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getPotion_WithNonExistentId_ShouldReturnNotFound () throws Exception {
+        mockMvc.perform(get("/api/potions/-1"))
+
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void createPotion_ShouldAuditLegalityAndReturnCreated () throws Exception {
+        mockMvc.perform(post("/api/potions")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\": \"Draught of Death\", \"effect\": \"Death\", \"levelOfRisk\": 95, \"legal\": true}"))
+
+            .andExpect(status().isCreated())
+            .andExpect(header().exists("Location"))
+            .andExpect(jsonPath("$.legal").value(false));
+
+        assertEquals(1, potionRepository.count());
+    }
+
+    @Test
+    public void createPotion_WithExistentName_ShouldReturnConflict () throws Exception {
+        potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+
+        mockMvc.perform(post("/api/potions")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\": \"Felix Felicis\", \"effect\": \"Luck\", \"levelOfRisk\": 40}"))
+
+            .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void createPotion_WithInvalidRisk_ShouldReturnBadRequest () throws Exception {
+        mockMvc.perform(post("/api/potions")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\": \"Broken\", \"effect\": \"Nothing\", \"levelOfRisk\": 101}"))
+
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void updatePotion_ShouldAuditLegalityAndReturnTheNewVersion () throws Exception {
+        Potion potion = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+
+        mockMvc.perform(get("/api/potions/" + potion.getId()))
+
+            .andExpect(jsonPath("$.levelOfRisk").value(40))
+            .andExpect(jsonPath("$.version").value(0));
+
+        mockMvc.perform(patch("/api/potions/" + potion.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"levelOfRisk\": 95, \"version\": 0}"))
+
+            .andExpect(status().isNoContent())
+            .andExpect(header().string("ETag", "\"1\""));
+
+        mockMvc.perform(get("/api/potions/" + potion.getId()))
+
+            .andExpect(jsonPath("$.effect").value("Liquid luck"))
+            .andExpect(jsonPath("$.levelOfRisk").value(95))
+            .andExpect(jsonPath("$.legal").value(false))
+            .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    public void updatePotion_WithStaleVersion_ShouldReturnConflict () throws Exception {
+        Potion potion = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+        String patch = "{\"effect\": \"Bottled luck\", \"version\": 0}";
+
+        mockMvc.perform(patch("/api/potions/" + potion.getId()).contentType(MediaType.APPLICATION_JSON).content(patch))
+            .andExpect(status().isNoContent());
+
+        mockMvc.perform(patch("/api/potions/" + potion.getId()).contentType(MediaType.APPLICATION_JSON).content(patch))
+            .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void updatePotion_WithNonExistentId_ShouldReturnNotFound () throws Exception {
+        mockMvc.perform(patch("/api/potions/999")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"effect\": \"Bottled luck\", \"version\": 0}"))
+
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void updatePotion_WithoutVersion_ShouldReturnBadRequest () throws Exception {
+        Potion potion = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+
+        mockMvc.perform(patch("/api/potions/" + potion.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"levelOfRisk\": 40}"))
+
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void deletePotion_ShouldReturnNoContentAndThenNotFound () throws Exception {
+        Potion potion = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+
+        mockMvc.perform(delete("/api/potions/" + potion.getId()))
+            .andExpect(status().isNoContent());
+
+        mockMvc.perform(delete("/api/potions/" + potion.getId()))
+            .andExpect(status().isNotFound());
+    }
+}
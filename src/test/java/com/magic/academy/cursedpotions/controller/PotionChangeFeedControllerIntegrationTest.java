@@ -0,0 +1,96 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.time.Duration;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+import com.magic.academy.cursedpotions.service.PotionChangeLog;
+import com.magic.academy.cursedpotions.service.PotionService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PotionChangeFeedControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PotionService potionService;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @Autowired
+    private PotionChangeLog changeLog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM potion_changes");
+    }
+
+    @Test
+    public void changes_WhenPotionIsCreated_ShouldStreamTheCreatedEvent () throws Exception {
+        MvcResult result = mockMvc.perform(get("/catalog/changes"))
+
+            .andExpect(request().asyncStarted())
+            .andExpect(header().string("Content-Type", containsString("text/event-stream")))
+            .andReturn();
+
+        mockMvc.perform(post("/create")
+            .param("name", "Felix Felicis")
+            .param("effect", "Liquid luck")
+            .param("levelOfRisk", "40"));
+
+        String stream = awaitContent(result.getResponse(), "Felix Felicis");
+        assertTrue(stream.contains("event:created"));
+        assertTrue(stream.contains("\"legal\":true"));
+    }
+
+    @Test
+    public void changes_WithLastEventId_ShouldReplayOnlyTheLaterChanges () throws Exception {
+        potionService.addPotion(new Potion("Felix Felicis", "Liquid luck", 40));
+        long seen = changeLog.latestId();
+        Potion draught = new Potion("Draught of Living Death", "Deep sleep", 95);
+        potionService.addPotion(draught);
+        potionService.removePotionById(draught.getId());
+
+        MvcResult result = mockMvc.perform(get("/catalog/changes")
+                .header("Last-Event-ID", seen))
+
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        String stream = awaitContent(result.getResponse(), "event:removed");
+        assertTrue(stream.contains("event:created"));
+        assertTrue(stream.contains("Draught of Living Death"));
+        assertFalse(stream.contains("Felix Felicis"));
+    }
+
+    private static String awaitContent (MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!response.getContentAsString().contains(expected) && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        return response.getContentAsString();
+    }
+}
@@ -1,8 +1,13 @@
 package com.magic.academy.cursedpotions.controller;
 
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +17,9 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -20,7 +27,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.magic.academy.cursedpotions.exception.PotionAlreadyExistsException;
 import com.magic.academy.cursedpotions.exception.PotionNotFoundException;
+import com.magic.academy.cursedpotions.exception.PotionVersionConflictException;
 import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionFilter;
+import com.magic.academy.cursedpotions.model.PotionPage;
+import com.magic.academy.cursedpotions.model.PotionPatch;
+import com.magic.academy.cursedpotions.service.InventoryVersion;
 import com.magic.academy.cursedpotions.service.PotionService;
 
 @SpringBootTest
@@ -33,15 +45,101 @@ public class PotionControllerIntegrationTest {
     @MockitoBean
     private PotionService potionService;
 
+    @Autowired
+    private InventoryVersion inventoryVersion;
+
     @Test
     public void viewCatalog_ShouldReturnCatalogViewAndInventoryModel () throws Exception {
+        when(potionService.getInventoryPage(PotionFilter.NONE, null, null, PotionService.DEFAULT_PAGE_SIZE))
+            .thenReturn(new PotionPage(List.of(), PotionService.DEFAULT_PAGE_SIZE, null, null));
+
         mockMvc.perform(get("/catalog"))
 
             .andExpect(status().isOk())
             .andExpect(view().name("catalog"))
-            .andExpect(model().attributeExists("inventory"));
+            .andExpect(model().attributeExists("inventory"))
+            .andExpect(model().attributeExists("page"));
+    }
+
+    @Test
+    public void viewCatalog_WithCursor_ShouldRequestThatPageAndRenderNavigationLinks () throws Exception {
+        Potion potion = new Potion(11L, "Potion Test", "Test Effect", 1, true);
+        when(potionService.getInventoryPage(PotionFilter.NONE, 10L, null, 1))
+            .thenReturn(new PotionPage(List.of(potion), 1, 11L, 11L));
+
+        mockMvc.perform(get("/catalog").param("after", "10").param("size", "1"))
+
+            .andExpect(status().isOk())
+            .andExpect(view().name("catalog"))
+            .andExpect(model().attribute("inventory", List.of(potion)))
+            .andExpect(content().string(containsString("/catalog?after=11&amp;size=1\"")))
+            .andExpect(content().string(containsString("/catalog?before=11&amp;size=1")));
     }
     
+    @Test
+    public void viewCatalog_WithFilter_ShouldPassItToTheServiceAndKeepItInNavigationLinks () throws Exception {
+        PotionFilter filter = new PotionFilter(false, 95, 100, "Dra");
+        Potion potion = new Potion(11L, "Draught of Death", "Test Effect", 99, false);
+        when(potionService.getInventoryPage(filter, null, null, 1))
+            .thenReturn(new PotionPage(List.of(potion), 1, null, 11L));
+
+        mockMvc.perform(get("/catalog")
+                .param("legal", "false").param("minRisk", "95").param("maxRisk", "100").param("namePrefix", "Dra")
+                .param("size", "1"))
+
+            .andExpect(status().isOk())
+            .andExpect(model().attribute("inventory", List.of(potion)))
+            .andExpect(content().string(containsString(
+                "/catalog?after=11&amp;size=1&amp;namePrefix=Dra&amp;legal=false&amp;minRisk=95&amp;maxRisk=100")));
+    }
+
+    @Test
+    public void viewCatalog_WithCurrentETag_ShouldReturnNotModifiedWithoutQuerying () throws Exception {
+        when(potionService.getInventoryPage(PotionFilter.NONE, null, null, PotionService.DEFAULT_PAGE_SIZE))
+            .thenReturn(new PotionPage(List.of(), PotionService.DEFAULT_PAGE_SIZE, null, null));
+
+        String etag = mockMvc.perform(get("/catalog"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("Last-Modified"))
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/catalog").header("If-None-Match", etag))
+
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        verify(potionService, times(1)).getInventoryPage(PotionFilter.NONE, null, null, PotionService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Test
+    public void viewCatalog_AfterInventoryChange_ShouldRenderAgain () throws Exception {
+        when(potionService.getInventoryPage(PotionFilter.NONE, null, null, PotionService.DEFAULT_PAGE_SIZE))
+            .thenReturn(new PotionPage(List.of(), PotionService.DEFAULT_PAGE_SIZE, null, null));
+
+        String etag = mockMvc.perform(get("/catalog"))
+            .andReturn().getResponse().getHeader("ETag");
+        inventoryVersion.bump();
+
+        mockMvc.perform(get("/catalog").header("If-None-Match", etag))
+
+            .andExpect(status().isOk())
+            .andExpect(view().name("catalog"));
+    }
+
+    @Test
+    public void viewCatalog_WithFlashMessage_ShouldRenderEvenWithCurrentETag () throws Exception {
+        when(potionService.getInventoryPage(PotionFilter.NONE, null, null, PotionService.DEFAULT_PAGE_SIZE))
+            .thenReturn(new PotionPage(List.of(), PotionService.DEFAULT_PAGE_SIZE, null, null));
+
+        String etag = mockMvc.perform(get("/catalog"))
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/catalog").header("If-None-Match", etag).flashAttr("successMessage", "Potion successfully removed."))
+
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Potion successfully removed.")));
+    }
+
     @Test 
     public void showCreationForm_ShouldReturnCreateViewAndPotionModel () throws Exception {
         mockMvc.perform(get("/create"))
@@ -92,6 +190,50 @@ public class PotionControllerIntegrationTest {
             .andExpect(model().attribute("errorMessage", "A potion with this name already exists"));
     }
 
+    @Test 
+    public void showEditForm_WithExistentId_ShouldReturnEditViewAndPotionModel () throws Exception {
+        when(potionService.findPotionById(1L)).thenReturn(new Potion(1L, "Potion Test", "Test Effect", 40, true));
+
+        mockMvc.perform(get("/edit").param("id", "1"))
+
+            .andExpect(status().isOk())
+            .andExpect(view().name("edit"))
+            .andExpect(model().attributeExists("potion"));
+    }
+
+    @Test 
+    public void updatePotion_WithValidData_ShouldUpdateAndRedirectToDetails () throws Exception {
+        mockMvc.perform(post("/edit")
+            .param("id", "1")
+            .param("name", "Potion Test")
+            .param("effect", "New Effect")
+            .param("levelOfRisk", "95")
+            .param("version", "2"))
+
+            .andExpect(status().is3xxRedirection())
+            .andExpect(redirectedUrl("/details?id=1"));
+
+        verify(potionService, times(1)).updatePotion(1L, new PotionPatch("New Effect", 95, 2L));
+    }
+
+    @Test 
+    public void updatePotion_WithStaleVersion_ShouldReturnEditViewAndErrorModel () throws Exception {
+        doThrow(new PotionVersionConflictException(1L))
+            .when(potionService).updatePotion(1L, new PotionPatch("New Effect", 40, 0L));
+
+        mockMvc.perform(post("/edit")
+            .param("id", "1")
+            .param("name", "Potion Test")
+            .param("effect", "New Effect")
+            .param("levelOfRisk", "40")
+            .param("version", "0"))
+
+            .andExpect(status().isOk())
+            .andExpect(view().name("edit"))
+            .andExpect(model().attribute("errorMessage",
+                "Potion with ID 1 was modified by someone else; reload it and try again"));
+    }
+
     @Test 
     public void detelePotion_WithExistentId_ShouldRedirectWithSuccessMessage () throws Exception {
         mockMvc.perform(get("/delete").param("id","1"))
@@ -117,6 +259,41 @@ public class PotionControllerIntegrationTest {
             .andExpect(flash().attribute("errorMessage", "Potion with ID 1 not found"));
     }
 
+    @Test 
+    public void deletePotions_WithExistentIds_ShouldRedirectWithSuccessMessage () throws Exception {
+        when(potionService.removePotionsByIds(List.of(1L, 2L))).thenReturn(2);
+
+        mockMvc.perform(post("/delete").param("ids", "1", "2"))
+
+            .andExpect(status().is3xxRedirection())
+            .andExpect(redirectedUrl("/catalog"))
+
+            .andExpect(flash().attribute("successMessage", "2 potions successfully removed."));
+    }
+
+    @Test 
+    public void deletePotions_WithNonExistentId_ShouldRedirectWithErrorMessage () throws Exception {
+        doThrow(new PotionNotFoundException(List.of(1L, 2L)))
+            .when(potionService).removePotionsByIds(List.of(1L, 2L));
+
+        mockMvc.perform(post("/delete").param("ids", "1", "2"))
+
+            .andExpect(status().is3xxRedirection())
+            .andExpect(redirectedUrl("/catalog"))
+
+            .andExpect(flash().attribute("errorMessage", "Some of the potions with IDs [1, 2] were not found"));
+    }
+
+    @Test 
+    public void deletePotions_WithoutIds_ShouldRedirectWithErrorMessage () throws Exception {
+        mockMvc.perform(post("/delete"))
+
+            .andExpect(status().is3xxRedirection())
+            .andExpect(redirectedUrl("/catalog"))
+
+            .andExpect(flash().attribute("errorMessage", "Select at least one potion to remove."));
+    }
+
     @Test 
     public void viewPotion_WithExistentId_ShouldReturnDetailsViewAndPotionModel () throws Exception {
         Potion potion = new Potion(1L, "Potion Test", "Test Effect", 1, true);
@@ -129,6 +306,21 @@ public class PotionControllerIntegrationTest {
             .andExpect(model().attributeExists("potion"));
     }
 
+    @Test 
+    public void viewPotion_WithCurrentETag_ShouldReturnNotModifiedWithoutQuerying () throws Exception {
+        Potion potion = new Potion(1L, "Potion Test", "Test Effect", 1, true);
+        when(potionService.findPotionById(1L)).thenReturn(potion);
+
+        String etag = mockMvc.perform(get("/details").param("id","1"))
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/details").param("id","1").header("If-None-Match", etag))
+
+            .andExpect(status().isNotModified());
+
+        verify(potionService, times(1)).findPotionById(1L);
+    }
+
     @Test 
     public void viewPotion_WithNonExistentId_ShouldRedirectWithErrorMessage () throws Exception {
         doThrow(new PotionNotFoundException(1L))
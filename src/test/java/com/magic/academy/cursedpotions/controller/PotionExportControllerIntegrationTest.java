@@ -0,0 +1,70 @@
+package com.magic.academy.cursedpotions.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PotionExportControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void exportInventory_AsCsv_ShouldStreamEveryPotion () throws Exception {
+        Potion potion = potionRepository.save(new Potion(null, "Potion Test", "Test Effect", 40, true));
+
+        MvcResult result = mockMvc.perform(get("/export").param("format", "csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"potions.csv\""))
+            .andExpect(content().contentType("text/csv"))
+            .andExpect(content().string("id,name,effect,levelOfRisk,legal\n"
+                + potion.getId() + ",Potion Test,Test Effect,40,true\n"));
+    }
+
+    @Test
+    public void exportInventory_WithUppercaseFormat_ShouldStreamNdjson () throws Exception {
+        MvcResult result = mockMvc.perform(get("/export").param("format", "NDJSON"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"potions.ndjson\""));
+    }
+
+    @Test
+    public void exportInventory_WithUnknownFormat_ShouldReturnBadRequest () throws Exception {
+        mockMvc.perform(get("/export").param("format", "xml"))
+
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,120 @@
+package com.magic.academy.cursedpotions.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PotionImportControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoSpyBean
+    private PotionRepository potionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void importPotions_WithJsonList_ShouldInsertNewPotionsAndReportDuplicates () throws Exception {
+        potionRepository.save(new Potion(null, "Polyjuice", "Transformation", 50, true));
+
+        mockMvc.perform(post("/import")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                [{"name": "Felix Felicis", "effect": "Luck", "levelOfRisk": 40},
+                 {"name": "Polyjuice", "effect": "Transformation", "levelOfRisk": 50},
+                 {"name": "Draught of Death", "effect": "Death", "levelOfRisk": 95}]
+                """))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.duplicateNames[0]").value("Polyjuice"));
+
+        assertEquals(3, potionRepository.count());
+        assertFalse(potionRepository.findAll().stream()
+            .filter(p -> p.getName().equals("Draught of Death")).findFirst().orElseThrow().isLegal());
+    }
+
+    @Test
+    public void importPotions_WhenANameIsTakenAfterTheCheck_ShouldInsertTheRestAndReportIt () throws Exception {
+        TransactionTemplate concurrentWriter = new TransactionTemplate(transactionManager);
+        concurrentWriter.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // None of the names exists yet when they are checked, but Polyjuice is inserted right after
+        doAnswer(invocation -> {
+            concurrentWriter.executeWithoutResult(status -> jdbcTemplate.update(
+                "INSERT INTO potions (name, effect, level_of_risk, legal) VALUES ('Polyjuice', 'Transformation', 50, TRUE)"));
+            return List.of();
+        }).when(potionRepository).findExistingNames(anyCollection());
+
+        mockMvc.perform(post("/import")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                [{"name": "Felix Felicis", "effect": "Luck", "levelOfRisk": 40},
+                 {"name": "Polyjuice", "effect": "Transformation", "levelOfRisk": 50},
+                 {"name": "Draught of Death", "effect": "Death", "levelOfRisk": 95}]
+                """))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.duplicateNames[0]").value("Polyjuice"));
+
+        assertEquals(3, potionRepository.count());
+    }
+
+    @Test
+    public void importCsv_WithUploadedFile_ShouldInsertEveryRow () throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "potions.csv", "text/csv",
+            "name,effect,levelOfRisk\nFelix Felicis,Luck,40\nPolyjuice,Transformation,50\n".getBytes());
+
+        mockMvc.perform(multipart("/import").file(file))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2));
+
+        assertEquals(2, potionRepository.count());
+    }
+
+    @Test
+    public void importCsv_WithMalformedFile_ShouldReturnBadRequest () throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "potions.csv", "text/csv",
+            "name,effect,levelOfRisk\nFelix Felicis,Luck,high\n".getBytes());
+
+        mockMvc.perform(multipart("/import").file(file))
+
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,63 @@
+package com.magic.academy.cursedpotions.controller;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+import static org.hamcrest.Matchers.containsString;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionSearchHit;
+import com.magic.academy.cursedpotions.service.PotionSearchService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PotionSearchControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PotionSearchService potionSearchService;
+
+    @Test
+    public void search_WithQuery_ShouldShowRankedHits () throws Exception {
+        List<PotionSearchHit> hits = List.of(
+            new PotionSearchHit(new Potion(2L, "Cloak Tonic", "Grants invisibility", 70, true), 2.5),
+            new PotionSearchHit(new Potion(1L, "Shadow Draught", "Invisible to mirrors", 95, false), 1.25));
+        when(potionSearchService.search("invisibility", 20)).thenReturn(hits);
+        when(potionSearchService.isReady()).thenReturn(true);
+
+        mockMvc.perform(get("/search").param("q", "invisibility"))
+
+            .andExpect(status().isOk())
+            .andExpect(view().name("search"))
+            .andExpect(model().attribute("hits", hits))
+            .andExpect(content().string(containsString("Cloak Tonic")))
+            .andExpect(content().string(containsString("2.50")));
+    }
+
+    @Test
+    public void search_WithoutQuery_ShouldNotSearch () throws Exception {
+        mockMvc.perform(get("/search"))
+
+            .andExpect(status().isOk())
+            .andExpect(model().attribute("hits", List.of()));
+
+        verify(potionSearchService, never()).search(anyString(), anyInt());
+    }
+}
@@ -0,0 +1,63 @@
+package com.magic.academy.cursedpotions.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+import com.magic.academy.cursedpotions.service.PotionService;
+
+@SpringBootTest (properties = "potions.sql.slow-threshold=0ms")
+@AutoConfigureMockMvc
+public class SlowQueryControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PotionService potionService;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void slowStatements_ShouldReportTheParametersAndTheCallingServiceMethod () throws Exception {
+        mockMvc.perform(delete("/sql/slow"));
+        potionService.addPotion(new Potion("Felix Felicis", "Liquid luck", 40));
+
+        mockMvc.perform(get("/sql/slow"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].caller", hasItem("PotionService.addPotion")))
+            .andExpect(jsonPath("$[*].parameters", hasItem(containsString("Felix Felicis"))));
+    }
+
+    @Test
+    public void reset_ShouldForgetTheRecordedStatements () throws Exception {
+        potionService.addPotion(new Potion("Felix Felicis", "Liquid luck", 40));
+        mockMvc.perform(delete("/sql/slow"))
+            .andExpect(status().isNoContent());
+
+        // Statements of background tasks may be recorded meanwhile, so only this test's own are checked
+        mockMvc.perform(get("/sql/slow"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].parameters", not(hasItem(containsString("Felix Felicis")))));
+    }
+}
@@ -0,0 +1,86 @@
+package com.magic.academy.cursedpotions.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+/**
+ * Runs the migrations, as the application does, against databases created before Flyway was introduced.
+ */
+public class FlywayMigrationsTest {
+
+    private static final String PRE_FLYWAY_SCHEMA = """
+        CREATE TABLE potions (
+            id BIGINT NOT NULL AUTO_INCREMENT,
+            name VARCHAR(100) NOT NULL,
+            effect VARCHAR(500) NOT NULL,
+            level_of_risk INT NOT NULL,
+            legal BIT NOT NULL,
+            PRIMARY KEY (id),
+            CONSTRAINT uk_potions_name UNIQUE (name)
+        )""";
+
+    @Test
+    public void migrate_OnADatabaseFromBeforeTheMigrations_ShouldAddTheLegalRiskIndex () throws SQLException {
+        // Arrange
+        SimpleDriverDataSource dataSource = database();
+        execute(dataSource, PRE_FLYWAY_SCHEMA);
+
+        // Act
+        migrate(dataSource);
+
+        // Assert
+        assertEquals(1, countIndexes(dataSource, "IDX_POTIONS_LEGAL_RISK"));
+    }
+
+    @Test
+    public void migrate_OnADatabaseThatAlreadyHasTheIndex_ShouldKeepIt () throws SQLException {
+        // Arrange
+        SimpleDriverDataSource dataSource = database();
+        execute(dataSource, PRE_FLYWAY_SCHEMA);
+        execute(dataSource, "CREATE INDEX idx_potions_legal_risk ON potions (legal, level_of_risk)");
+
+        // Act
+        migrate(dataSource);
+
+        // Assert
+        assertEquals(1, countIndexes(dataSource, "IDX_POTIONS_LEGAL_RISK"));
+    }
+
+    private static SimpleDriverDataSource database () {
+        return new SimpleDriverDataSource(new org.h2.Driver(),
+            "jdbc:h2:mem:migrations-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static void migrate (SimpleDriverDataSource dataSource) {
+        // Same settings as application.properties
+        Flyway.configure()
+            .dataSource(dataSource)
+            .baselineOnMigrate(true)
+            .baselineVersion("1")
+            .load()
+            .migrate();
+    }
+
+    private static void execute (SimpleDriverDataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int countIndexes (SimpleDriverDataSource dataSource, String name) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = '" + name + "'")) {
+            rows.next();
+            return rows.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.magic.academy.cursedpotions.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionFilter;
+import com.magic.academy.cursedpotions.service.PotionImportService;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+
+/**
+ * Checks with EXPLAIN that the catalog filters are resolved through indexes instead of table scans.
+ * The statements explained are the ones Hibernate generates for the specifications, captured on the
+ * datasource proxy together with their bound parameters.
+ */
+@SpringBootTest
+public class PotionRepositoryIndexTest {
+
+    private static final int POTIONS = 5_000;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @Autowired
+    private PotionImportService potionImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void setUp () {
+        List<Potion> potions = new ArrayList<>(POTIONS);
+        for (int i = 0; i < POTIONS; i++)
+            potions.add(new Potion("Potion " + i, "Effect " + i, 1 + i % 100));
+        potions.add(new Potion("Dragon Draught", "Fire breath", 97));
+
+        potionImportService.importPotions(potions);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void legalityAndRiskFilter_ShouldUseTheLegalRiskIndex () {
+        String plan = explainFindMatching(new PotionFilter(false, 95, 100, null));
+
+        assertTrue(plan.contains("IDX_POTIONS_LEGAL_RISK"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    public void namePrefixFilter_ShouldUseTheNameIndex () {
+        String plan = explainFindMatching(new PotionFilter(null, null, null, "Dra"));
+
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    public void findMatching_WithFilter_ShouldReturnOnlyMatchingPotionsInIdOrder () {
+        PotionFilter filter = new PotionFilter(false, 95, 100, "Dra");
+
+        List<Potion> potions = potionRepository.findMatching(PotionSpecifications.matching(filter),
+            Sort.by("id").ascending(), Limit.of(10));
+
+        assertEquals(1, potions.size());
+        assertEquals("Dragon Draught", potions.get(0).getName());
+    }
+
+    @Test
+    public void findMatching_WithWildcardsInPrefix_ShouldMatchThemLiterally () {
+        PotionFilter filter = new PotionFilter(null, null, null, "%");
+
+        List<Potion> potions = potionRepository.findMatching(PotionSpecifications.matching(filter),
+            Sort.by("id").ascending(), Limit.of(10));
+
+        assertTrue(potions.isEmpty());
+    }
+
+    /**
+     * Runs the catalog query for a filter and explains the statement Hibernate sent for it.
+     */
+    private String explainFindMatching (PotionFilter filter) {
+        QueryInfo query = captureOnlyStatement(() -> potionRepository.findMatching(PotionSpecifications.matching(filter),
+            Sort.by("id").ascending(), Limit.of(10)));
+
+        List<ParameterSetOperation> parameters = query.getParametersList().isEmpty()
+            ? List.of() : query.getParametersList().get(0);
+        return String.join("\n", jdbcTemplate.query("EXPLAIN " + query.getQuery(), statement -> {
+            for (ParameterSetOperation parameter : parameters)
+                statement.setObject((Integer) parameter.getArgs()[0], parameter.getArgs()[1]);
+        }, (row, rowNum) -> row.getString(1)));
+    }
+
+    /**
+     * Records the statements executed on this thread while the work runs.
+     * @return the only statement executed
+     */
+    private QueryInfo captureOnlyStatement (Runnable work) {
+        ChainListener listeners = assertInstanceOf(ProxyDataSource.class, dataSource).getProxyConfig().getQueryListener();
+        List<QueryExecutionListener> previous = List.copyOf(listeners.getListeners());
+        Thread caller = Thread.currentThread();
+        List<QueryInfo> executed = new ArrayList<>();
+        listeners.addListener(new QueryExecutionListener() {
+            @Override
+            public void beforeQuery (ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+
+            @Override
+            public void afterQuery (ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                if (Thread.currentThread() == caller)
+                    executed.addAll(queryInfoList);
+            }
+        });
+        try {
+            work.run();
+        } finally {
+            listeners.setListeners(new ArrayList<>(previous));
+        }
+
+        assertEquals(1, executed.size(), executed.stream().map(QueryInfo::getQuery).toList()::toString);
+        return executed.get(0);
+    }
+}
@@ -0,0 +1,211 @@
+package com.magic.academy.cursedpotions.repository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+import com.magic.academy.cursedpotions.service.PotionImportService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks with the Hibernate statistics that repeated reads are served by the second-level,
+ * natural-ID and query caches, and that writes invalidate only what they change.
+ */
+@SpringBootTest
+public class PotionRepositorySecondLevelCacheTest {
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @Autowired
+    private PotionImportService potionImportService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp () {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void findById_CalledTwice_ShouldReadTheSecondTimeFromTheCache () {
+        // Arrange
+        Long id = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true)).getId();
+        potionRepository.findById(id);
+        long statements = statistics.getPrepareStatementCount();
+
+        // Act
+        Potion potion = potionRepository.findById(id).orElseThrow();
+
+        // Assert
+        assertEquals("Felix Felicis", potion.getName());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void loadByName_CalledTwice_ShouldResolveTheSecondTimeFromTheCaches () {
+        // Arrange
+        Long id = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true)).getId();
+        potionRepository.loadByName("Felix Felicis");
+        long statements = statistics.getPrepareStatementCount();
+        long naturalIdHits = statistics.getNaturalIdCacheHitCount();
+
+        // Act
+        Potion potion = potionRepository.loadByName("Felix Felicis").orElseThrow();
+
+        // Assert
+        assertEquals(id, potion.getId());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getNaturalIdCacheHitCount() > naturalIdHits);
+    }
+
+    @Test
+    public void findAllByOrderByIdAsc_CalledTwice_ShouldAnswerTheSecondTimeFromTheQueryCache () {
+        // Arrange
+        potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+        potionRepository.findAllByOrderByIdAsc(Limit.of(10));
+        long statements = statistics.getPrepareStatementCount();
+
+        // Act
+        List<Potion> page = potionRepository.findAllByOrderByIdAsc(Limit.of(10));
+
+        // Assert
+        assertEquals(1, page.size());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getQueryCacheHitCount() > 0);
+    }
+
+    @Test
+    public void findAllByOrderByIdAsc_AfterAnInsert_ShouldNotServeTheStaleCachedPage () {
+        // Arrange
+        potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+        potionRepository.findAllByOrderByIdAsc(Limit.of(10));
+
+        // Act
+        potionRepository.save(new Potion(null, "Polyjuice", "Transformation", 50, true));
+        List<Potion> page = potionRepository.findAllByOrderByIdAsc(Limit.of(10));
+
+        // Assert
+        assertEquals(2, page.size());
+    }
+
+    @Test
+    public void findAllByOrderByIdAsc_AfterAnImport_ShouldNotServeTheStaleCachedPage () {
+        // Arrange
+        potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+        potionRepository.findAllByOrderByIdAsc(Limit.of(10));
+
+        // Act
+        potionImportService.importPotions(List.of(new Potion("Polyjuice", "Transformation", 50)));
+        List<Potion> page = potionRepository.findAllByOrderByIdAsc(Limit.of(10));
+
+        // Assert
+        assertEquals(2, page.size());
+    }
+
+    @Test
+    public void findById_AfterAnImport_ShouldStillReadThePotionsFromTheCache () {
+        // Arrange
+        Long id = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true)).getId();
+        potionRepository.findById(id);
+
+        // Act
+        potionImportService.importPotions(List.of(new Potion("Polyjuice", "Transformation", 50)));
+        long statements = statistics.getPrepareStatementCount();
+        potionRepository.findById(id);
+
+        // Assert
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findById_AfterARemoval_ShouldNotServeTheStaleCachedPotion () {
+        // Arrange
+        Potion potion = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+        potionRepository.findById(potion.getId());
+
+        // Act
+        potionRepository.deleteReturningCount(List.of(summaryOf(potion)));
+
+        // Assert
+        assertTrue(potionRepository.findById(potion.getId()).isEmpty());
+    }
+
+    @Test
+    public void findById_AfterAnotherPotionIsRemoved_ShouldStillReadFromTheCache () {
+        // Arrange
+        Long id = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true)).getId();
+        Potion other = potionRepository.save(new Potion(null, "Polyjuice", "Transformation", 50, true));
+        potionRepository.findById(id);
+        potionRepository.findById(other.getId());
+
+        // Act
+        potionRepository.deleteReturningCount(List.of(summaryOf(other)));
+        long statements = statistics.getPrepareStatementCount();
+        potionRepository.findById(id);
+
+        // Assert
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findById_AfterAnEdit_ShouldReloadOnlyTheEditedPotion () {
+        // Arrange
+        Long id = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true)).getId();
+        Potion other = potionRepository.save(new Potion(null, "Polyjuice", "Transformation", 50, true));
+        potionRepository.findById(id);
+        potionRepository.findById(other.getId());
+
+        // Act
+        potionRepository.updateIfVersionMatches(other.getId(), other.getVersion(), "Becomes someone else", null, null);
+        long statements = statistics.getPrepareStatementCount();
+        potionRepository.findById(id);
+        long statementsForTheUntouchedPotion = statistics.getPrepareStatementCount() - statements;
+        Potion edited = potionRepository.findById(other.getId()).orElseThrow();
+
+        // Assert
+        assertEquals(0, statementsForTheUntouchedPotion);
+        assertEquals("Becomes someone else", edited.getEffect());
+    }
+
+    @Test
+    public void loadByName_AfterTheNameIsRemovedAndReused_ShouldResolveTheNewPotion () {
+        // Arrange
+        Potion removed = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+        potionRepository.loadByName("Felix Felicis");
+        potionRepository.deleteReturningCount(List.of(summaryOf(removed)));
+
+        // Act
+        Long id = potionRepository.save(new Potion(null, "Felix Felicis", "Bottled luck", 45, true)).getId();
+        Potion potion = potionRepository.loadByName("Felix Felicis").orElseThrow();
+
+        // Assert
+        assertEquals(id, potion.getId());
+    }
+
+    private static PotionSummary summaryOf (Potion potion) {
+        return new PotionSummary(potion.getId(), potion.getName(), potion.isLegal(), potion.getLevelOfRisk());
+    }
+}
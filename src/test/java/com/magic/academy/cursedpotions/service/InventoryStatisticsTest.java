@@ -0,0 +1,172 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.magic.academy.cursedpotions.event.PotionUpdatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsCreatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsRemovedEvent;
+import com.magic.academy.cursedpotions.model.InventoryStats;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionRiskCount;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryStatisticsTest {
+
+    @Mock
+    private PotionRepository potionRepository;
+
+    private InventoryStatistics inventoryStatistics;
+
+    @BeforeEach
+    public void setUp () {
+        inventoryStatistics = new InventoryStatistics(potionRepository);
+    }
+
+    @Test
+    public void snapshot_AfterSeedAndChanges_ShouldReflectEveryChange () {
+        // Arrange
+        when(potionRepository.countByRiskAndLegality()).thenReturn(List.of(
+            new PotionRiskCount(40, true, 3), new PotionRiskCount(95, false, 2)));
+        inventoryStatistics.afterSingletonsInstantiated();
+
+        // Act
+        inventoryStatistics.onPotionsCreated(new PotionsCreatedEvent(List.of(
+            new Potion(10L, "Felix Felicis", "Luck", 40, true), new Potion(11L, "Draught", "Death", 100, false))));
+        inventoryStatistics.onPotionsRemoved(new PotionsRemovedEvent(List.of(
+            new PotionSummary(1L, "Old brew", false, 95))));
+        inventoryStatistics.onPotionUpdated(new PotionUpdatedEvent(
+            new PotionSummary(10L, "Felix Felicis", true, 40), new PotionSummary(10L, "Felix Felicis", false, 95), null));
+        InventoryStats stats = inventoryStatistics.snapshot();
+
+        // Assert
+        assertEquals(6, stats.total());
+        assertEquals(3, stats.legal());
+        assertEquals(3, stats.illegal());
+        assertEquals(3, stats.riskHistogram()[39]);
+        assertEquals(2, stats.riskHistogram()[94]);
+        assertEquals(1, stats.riskHistogram()[99]);
+    }
+
+    @Test
+    public void reconcile_WithDrift_ShouldCorrectTheAggregates () {
+        // Arrange
+        when(potionRepository.countByRiskAndLegality())
+            .thenReturn(List.of())
+            .thenReturn(List.of(new PotionRiskCount(40, true, 2)));
+        inventoryStatistics.afterSingletonsInstantiated();
+        inventoryStatistics.onPotionsCreated(new PotionsCreatedEvent(List.of(
+            new Potion(10L, "Draught", "Death", 95, false))));
+
+        // Act
+        boolean corrected = inventoryStatistics.reconcile();
+
+        // Assert
+        assertTrue(corrected);
+        assertEquals(0, inventoryStatistics.getSkippedReconciliations());
+        InventoryStats stats = inventoryStatistics.snapshot();
+        assertEquals(2, stats.total());
+        assertEquals(2, stats.legal());
+        assertEquals(0, stats.illegal());
+        assertEquals(2, stats.riskHistogram()[39]);
+        assertEquals(0, stats.riskHistogram()[94]);
+    }
+
+    @Test
+    public void reconcile_WhenAChangeIsCountedDuringTheQuery_ShouldSkipTheCorrection () {
+        // Arrange
+        when(potionRepository.countByRiskAndLegality())
+            .thenReturn(List.of())
+            .thenAnswer(invocation -> {
+                commit(inTransaction(() -> inventoryStatistics.onPotionsCreated(new PotionsCreatedEvent(List.of(
+                    new Potion(10L, "Felix Felicis", "Luck", 40, true))))));
+                return List.of(new PotionRiskCount(40, true, 1));
+            });
+        inventoryStatistics.afterSingletonsInstantiated();
+
+        // Act
+        boolean corrected = inventoryStatistics.reconcile();
+
+        // Assert
+        assertFalse(corrected);
+        assertEquals(1, inventoryStatistics.snapshot().total());
+        assertEquals(1, inventoryStatistics.getSkippedReconciliations());
+    }
+
+    @Test
+    public void reconcile_WhenAChangeCommitsAcrossTheQuery_ShouldNotCountItTwice () {
+        // Arrange
+        List<TransactionSynchronization> committing = new ArrayList<>();
+        when(potionRepository.countByRiskAndLegality())
+            .thenReturn(List.of())
+            .thenAnswer(invocation -> {
+                committing.addAll(inTransaction(() -> inventoryStatistics.onPotionsCreated(new PotionsCreatedEvent(List.of(
+                    new Potion(10L, "Felix Felicis", "Luck", 40, true))))));
+                return List.of(new PotionRiskCount(40, true, 1));
+            });
+        inventoryStatistics.afterSingletonsInstantiated();
+
+        // Act
+        boolean corrected = inventoryStatistics.reconcile();
+        commit(committing);
+
+        // Assert
+        assertFalse(corrected);
+        InventoryStats stats = inventoryStatistics.snapshot();
+        assertEquals(1, stats.total());
+        assertEquals(1, stats.riskHistogram()[39]);
+    }
+
+    @Test
+    public void reconcile_WhileAChangeIsCommitting_ShouldSkipTheQuery () {
+        // Arrange
+        when(potionRepository.countByRiskAndLegality()).thenReturn(List.of());
+        inventoryStatistics.afterSingletonsInstantiated();
+        List<TransactionSynchronization> committing = inTransaction(() -> inventoryStatistics.onPotionsRemoved(
+            new PotionsRemovedEvent(List.of(new PotionSummary(1L, "Old brew", false, 95)))));
+
+        // Act
+        boolean corrected = inventoryStatistics.reconcile();
+        rollBack(committing);
+
+        // Assert
+        assertFalse(corrected);
+        assertEquals(0, inventoryStatistics.snapshot().total());
+        verify(potionRepository, times(1)).countByRiskAndLegality();
+        assertEquals(1, inventoryStatistics.getSkippedReconciliations());
+    }
+
+    private static List<TransactionSynchronization> inTransaction (Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void commit (List<TransactionSynchronization> synchronizations) {
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static void rollBack (List<TransactionSynchronization> synchronizations) {
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+}
@@ -0,0 +1,50 @@
+package com.magic.academy.cursedpotions.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import org.junit.jupiter.api.Test;
+
+public class InventoryVersionTest {
+
+    @Test
+    public void etag_ForTheSameViewAndVersion_ShouldBeStableWithinAProcess () {
+        // Arrange
+        InventoryVersion inventoryVersion = new InventoryVersion();
+
+        // Act
+        String first = inventoryVersion.etag("catalog?after=10");
+        String second = inventoryVersion.etag("catalog?after=10");
+
+        // Assert
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void etag_AfterARestart_ShouldNotMatchTheOneIssuedBefore () {
+        // Arrange
+        InventoryVersion beforeRestart = new InventoryVersion();
+        InventoryVersion afterRestart = new InventoryVersion();
+
+        // Act
+        String issued = beforeRestart.etag("catalog?after=10");
+        String current = afterRestart.etag("catalog?after=10");
+
+        // Assert
+        assertEquals(beforeRestart.current(), afterRestart.current());
+        assertNotEquals(issued, current, "Both counters are at 0, but they count changes of different processes");
+    }
+
+    @Test
+    public void etag_ForViewsWithTheSameHashCode_ShouldDiffer () {
+        // Arrange
+        InventoryVersion inventoryVersion = new InventoryVersion();
+        assertEquals("catalog?q=Aa".hashCode(), "catalog?q=BB".hashCode());
+
+        // Act
+        String first = inventoryVersion.etag("catalog?q=Aa");
+        String second = inventoryVersion.etag("catalog?q=BB");
+
+        // Assert
+        assertNotEquals(first, second);
+    }
+}
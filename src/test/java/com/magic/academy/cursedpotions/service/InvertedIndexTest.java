@@ -0,0 +1,106 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class InvertedIndexTest {
+
+    @Test
+    public void tokenize_ShouldLowercaseFoldAccentsAndDropStopWords () {
+        // Act
+        List<String> terms = InvertedIndex.tokenize("The Poción of ETERNAL sleep, for 100 years!");
+
+        // Assert
+        assertEquals(List.of("pocion", "eternal", "sleep", "100", "years"), terms);
+    }
+
+    @Test
+    public void search_ShouldRankMoreAndRarerMatchesFirst () {
+        // Arrange
+        InvertedIndex index = new InvertedIndex();
+        index.add(InvertedIndex.document(1, "Shadow Draught", "Makes the drinker invisible to mirrors"));
+        index.add(InvertedIndex.document(2, "Vanishing Elixir", "Grants invisibility for one hour"));
+        index.add(InvertedIndex.document(3, "Cloak Tonic", "Grants invisibility and eternal silence for one hour"));
+        index.add(InvertedIndex.document(4, "Sleeping Draught", "Causes a long sleep"));
+
+        // Act
+        List<InvertedIndex.Hit> hits = index.search("potions that cause invisibility and silence", 10);
+
+        // Assert
+        assertEquals(List.of(3L, 2L), hits.stream().map(InvertedIndex.Hit::id).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+    }
+
+    @Test
+    public void search_ShouldWeightNameMatchesOverEffectMatches () {
+        // Arrange
+        InvertedIndex index = new InvertedIndex();
+        index.add(InvertedIndex.document(1, "Calming Tea", "Tastes of felix roots"));
+        index.add(InvertedIndex.document(2, "Felix Felicis", "Liquid luck"));
+
+        // Act
+        List<InvertedIndex.Hit> hits = index.search("felix", 10);
+
+        // Assert
+        assertEquals(List.of(2L, 1L), hits.stream().map(InvertedIndex.Hit::id).toList());
+    }
+
+    @Test
+    public void remove_ShouldHideThePotionAndPurgeOnceManyAreRemoved () {
+        // Arrange
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 3000; id++)
+            index.add(InvertedIndex.document(id, "Potion " + id, id % 2 == 0 ? "Even brew" : "Odd brew"));
+
+        // Act
+        for (long id = 2; id <= 3000; id += 2)
+            index.remove(id);
+
+        // Assert
+        assertEquals(1500, index.size());
+        assertFalse(index.contains(2));
+        assertTrue(index.search("even", 10).isEmpty());
+        assertEquals(10, index.search("brew", 10).size());
+        assertTrue(index.search("brew", 10).stream().allMatch(hit -> hit.id() % 2 == 1));
+    }
+
+    @Test
+    public void add_AfterManyReplacements_ShouldReuseTheFreedOrdinals () {
+        // Arrange
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 2000; id++)
+            index.add(InvertedIndex.document(id, "Potion " + id, "Brew of round 0"));
+
+        // Act
+        for (int round = 1; round <= 20; round++) {
+            for (long id = 1; id <= 2000; id++)
+                index.add(InvertedIndex.document(id, "Potion " + id, "Brew of round " + round));
+        }
+
+        // Assert
+        assertEquals(2000, index.size());
+        assertTrue(index.ordinals() < 2 * 2000, "Ordinals in use: " + index.ordinals());
+        assertEquals(List.of(19L), index.search("19", 10).stream().map(InvertedIndex.Hit::id).toList());
+        assertEquals(10, index.search("20", 10).size());
+        assertEquals(1777L, index.search("potion 1777", 1).get(0).id());
+    }
+
+    @Test
+    public void add_WithExistingId_ShouldReplaceThePreviousVersion () {
+        // Arrange
+        InvertedIndex index = new InvertedIndex();
+        index.add(InvertedIndex.document(1, "Felix Felicis", "Liquid luck"));
+
+        // Act
+        index.add(InvertedIndex.document(1, "Felix Felicis", "Bottled fortune"));
+
+        // Assert
+        assertEquals(1, index.size());
+        assertTrue(index.search("luck", 10).isEmpty());
+        assertEquals(1L, index.search("fortune", 10).get(0).id());
+    }
+}
@@ -0,0 +1,111 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.magic.academy.cursedpotions.model.ArchivedPotion;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+@SpringBootTest
+public class PotionArchiveIntegrationTest {
+
+    @Autowired
+    private PotionService potionService;
+
+    @Autowired
+    private PotionArchive potionArchive;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void clearArchive () {
+        // Other tests destroying potions leave their entries behind
+        jdbcTemplate.update("DELETE FROM potions_archive");
+    }
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void removePotionById_ShouldMoveThePotionToTheArchive () {
+        // Arrange
+        Potion potion = potionRepository.save(new Potion(null, "Draught of Death", "Eternal sleep", 95, false));
+
+        // Act
+        potionService.removePotionById(potion.getId());
+
+        // Assert
+        assertFalse(potionRepository.existsById(potion.getId()));
+        ArchivedPotion archived = archived(potion.getId()).get(0);
+        assertEquals("Draught of Death", archived.name());
+        assertEquals("Eternal sleep", archived.effect());
+        assertEquals(95, archived.levelOfRisk());
+        assertFalse(archived.legal());
+    }
+
+    @Test
+    public void removePotionsByIds_ShouldArchiveThemAndLetTheirNamesBeBrewedAgain () {
+        // Arrange
+        Potion potion1 = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+        Potion potion2 = potionRepository.save(new Potion(null, "Polyjuice", "Transformation", 50, true));
+
+        // Act
+        potionService.removePotionsByIds(List.of(potion1.getId(), potion2.getId()));
+        potionService.addPotion(new Potion("Felix Felicis", "Liquid luck, improved", 45));
+
+        // Assert
+        assertEquals(1, potionRepository.count());
+        assertEquals(1, archived(potion1.getId()).size());
+        assertEquals(1, archived(potion2.getId()).size());
+    }
+
+    @Test
+    public void purge_ShouldDeleteOnlyTheExpiredEntriesChunkByChunk () {
+        // Arrange
+        PotionArchive archive = new PotionArchive(jdbcTemplate, Duration.ofDays(1), 2);
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        for (int i = 0; i < 5; i++)
+            insertEntry(i, old);
+        insertEntry(99, Instant.now());
+
+        // Act
+        int purged = archive.purge();
+
+        // Assert
+        assertEquals(5, purged);
+        List<ArchivedPotion> remaining = archive.findAfter(null, 10);
+        assertEquals(1, remaining.size());
+        assertEquals(99, remaining.get(0).potionId());
+        assertTrue(remaining.get(0).destroyedAt().isAfter(old));
+    }
+
+    private List<ArchivedPotion> archived (long potionId) {
+        return potionArchive.findAfter(null, PotionService.MAX_PAGE_SIZE).stream()
+            .filter(entry -> entry.potionId() == potionId)
+            .toList();
+    }
+
+    private void insertEntry (long potionId, Instant destroyedAt) {
+        jdbcTemplate.update("INSERT INTO potions_archive (potion_id, name, effect, level_of_risk, legal, destroyed_at)"
+            + " VALUES (?, ?, 'Effect', 10, TRUE, ?)", potionId, "Potion " + potionId, Timestamp.from(destroyedAt));
+    }
+}
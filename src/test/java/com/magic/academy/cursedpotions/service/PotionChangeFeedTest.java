@@ -0,0 +1,267 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.magic.academy.cursedpotions.event.PotionsRemovedEvent;
+import com.magic.academy.cursedpotions.model.PotionChange;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class PotionChangeFeedTest {
+
+    private static final int BUFFER_CAPACITY = 2;
+
+    @Mock
+    private PotionChangeLog changeLog;
+
+    private PotionChangeFeed changeFeed;
+
+    @BeforeEach
+    public void setUp () {
+        changeFeed = new PotionChangeFeed(changeLog, BUFFER_CAPACITY, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void onPotionsRemoved_WithSubscriber_ShouldSendTheRecordedChange () throws Exception {
+        // Arrange
+        RecordingEmitter emitter = new RecordingEmitter();
+        changeFeed.subscribe(emitter, null);
+        when(changeLog.append(eq(PotionChange.Type.REMOVED), anyList())).thenReturn(List.of(change(7)));
+
+        // Act
+        changeFeed.onPotionsRemoved(new PotionsRemovedEvent(List.of(summary(7))));
+
+        // Assert
+        emitter.awaitEvents(1);
+        assertTrue(emitter.events.get(0).contains("id:7"));
+        assertTrue(emitter.events.get(0).contains("event:removed"));
+    }
+
+    @Test
+    public void onPotionsRemoved_WhenSubscriberFallsBehind_ShouldDropTheBufferAndSendResync () throws Exception {
+        // Arrange
+        RecordingEmitter emitter = new RecordingEmitter();
+        changeFeed.subscribe(emitter, null);
+        emitter.block();
+        when(changeLog.append(eq(PotionChange.Type.REMOVED), anyList()))
+            .thenReturn(List.of(change(1)), List.of(change(2)), List.of(change(3)), List.of(change(4)));
+
+        // Act
+        changeFeed.onPotionsRemoved(new PotionsRemovedEvent(List.of(summary(1))));
+        emitter.awaitBlocked();
+        for (int id = 2; id <= 4; id++)
+            changeFeed.onPotionsRemoved(new PotionsRemovedEvent(List.of(summary(id))));
+        emitter.unblock();
+
+        // Assert
+        emitter.awaitEvents(2);
+        assertTrue(emitter.events.get(0).contains("id:1"));
+        assertTrue(emitter.events.get(1).contains("event:resync"));
+        assertTrue(emitter.events.get(1).contains("id:4"), "The resync should carry the latest change ID");
+        assertEquals(2, emitter.events.size());
+    }
+
+    @Test
+    public void subscribe_WithLastEventId_ShouldReplayTheMissedChanges () throws Exception {
+        // Arrange
+        RecordingEmitter emitter = new RecordingEmitter();
+        when(changeLog.findAfter(5, BUFFER_CAPACITY + 1)).thenReturn(List.of(change(6), change(7)));
+        when(changeLog.isRetainedAfter(5)).thenReturn(true);
+
+        // Act
+        changeFeed.subscribe(emitter, 5L);
+
+        // Assert
+        emitter.awaitEvents(2);
+        assertTrue(emitter.events.get(0).contains("id:6"));
+        assertTrue(emitter.events.get(1).contains("id:7"));
+    }
+
+    @Test
+    public void subscribe_WithPurgedLastEventId_ShouldSendResync () throws Exception {
+        // Arrange
+        RecordingEmitter emitter = new RecordingEmitter();
+        when(changeLog.findAfter(anyLong(), any(Integer.class))).thenReturn(List.of(change(90)));
+        when(changeLog.isRetainedAfter(5)).thenReturn(false);
+        when(changeLog.latestId()).thenReturn(90L);
+
+        // Act
+        changeFeed.subscribe(emitter, 5L);
+
+        // Assert
+        emitter.awaitEvents(1);
+        assertTrue(emitter.events.get(0).contains("event:resync"));
+        assertTrue(emitter.events.get(0).contains("id:90"));
+    }
+
+    @Test
+    public void onPotionsRemoved_WhenAHigherIdCommitsFirst_ShouldHoldItUntilTheLowerOneCommits () throws Exception {
+        // Arrange
+        RecordingEmitter emitter = new RecordingEmitter();
+        changeFeed.subscribe(emitter, null);
+        when(changeLog.append(eq(PotionChange.Type.REMOVED), anyList()))
+            .thenReturn(List.of(change(10)), List.of(change(11)));
+        List<TransactionSynchronization> first = inTransaction(
+            () -> changeFeed.onPotionsRemoved(new PotionsRemovedEvent(List.of(summary(10)))));
+        List<TransactionSynchronization> second = inTransaction(
+            () -> changeFeed.onPotionsRemoved(new PotionsRemovedEvent(List.of(summary(11)))));
+
+        // Act
+        commit(second);
+        emitter.awaitEvents(1);
+        int sentBeforeFirstCommit = emitter.events.size();
+        commit(first);
+
+        // Assert
+        emitter.awaitEvents(2);
+        assertEquals(0, sentBeforeFirstCommit, "Change 11 should wait for change 10");
+        assertTrue(emitter.events.get(0).contains("id:10"));
+        assertTrue(emitter.events.get(1).contains("id:11"));
+    }
+
+    @Test
+    public void subscribe_WhileALowerIdIsUncommitted_ShouldNotReplayPastIt () throws Exception {
+        // Arrange
+        when(changeLog.append(eq(PotionChange.Type.REMOVED), anyList()))
+            .thenReturn(List.of(change(10)), List.of(change(11)));
+        List<TransactionSynchronization> first = inTransaction(
+            () -> changeFeed.onPotionsRemoved(new PotionsRemovedEvent(List.of(summary(10)))));
+        commit(inTransaction(() -> changeFeed.onPotionsRemoved(new PotionsRemovedEvent(List.of(summary(11))))));
+        when(changeLog.findAfter(9, BUFFER_CAPACITY + 1)).thenReturn(List.of(change(11)));
+        when(changeLog.isRetainedAfter(9)).thenReturn(true);
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // Act
+        changeFeed.subscribe(emitter, 9L);
+        emitter.awaitEvents(1);
+        int replayed = emitter.events.size();
+        commit(first);
+
+        // Assert
+        emitter.awaitEvents(2);
+        assertEquals(0, replayed, "Change 11 should not be replayed before change 10 commits");
+        assertTrue(emitter.events.get(0).contains("id:10"));
+        assertTrue(emitter.events.get(1).contains("id:11"));
+        assertEquals(2, emitter.events.size());
+    }
+
+    @Test
+    public void onPotionsRemoved_WhenALowerIdRollsBack_ShouldPublishTheHigherOne () throws Exception {
+        // Arrange
+        RecordingEmitter emitter = new RecordingEmitter();
+        changeFeed.subscribe(emitter, null);
+        when(changeLog.append(eq(PotionChange.Type.REMOVED), anyList()))
+            .thenReturn(List.of(change(10)), List.of(change(11)));
+        List<TransactionSynchronization> first = inTransaction(
+            () -> changeFeed.onPotionsRemoved(new PotionsRemovedEvent(List.of(summary(10)))));
+        List<TransactionSynchronization> second = inTransaction(
+            () -> changeFeed.onPotionsRemoved(new PotionsRemovedEvent(List.of(summary(11)))));
+
+        // Act
+        commit(second);
+        first.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Assert
+        emitter.awaitEvents(1);
+        assertEquals(1, emitter.events.size());
+        assertTrue(emitter.events.get(0).contains("id:11"));
+    }
+
+    /**
+     * Runs the work as inside a transaction and returns the synchronizations it registered, to be completed later.
+     */
+    private static List<TransactionSynchronization> inTransaction (Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void commit (List<TransactionSynchronization> synchronizations) {
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static PotionSummary summary (long id) {
+        return new PotionSummary(id, "Potion " + id, true, 10);
+    }
+
+    private static PotionChange change (long id) {
+        return new PotionChange(id, PotionChange.Type.REMOVED, summary(id), Instant.now());
+    }
+
+    /**
+     * Emitter keeping the text of every event sent, except comments; sending can be held to simulate a slow client.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch release = new CountDownLatch(0);
+        private final CountDownLatch blocked = new CountDownLatch(1);
+
+        @Override
+        public void send (SseEventBuilder builder) throws IOException {
+            String text = builder.build().stream()
+                .map(DataWithMediaType::getData)
+                .map(String::valueOf)
+                .collect(Collectors.joining());
+            if (text.startsWith(":"))
+                return;
+
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(text);
+        }
+
+        void block () {
+            release = new CountDownLatch(1);
+        }
+
+        void unblock () {
+            release.countDown();
+        }
+
+        void awaitBlocked () throws InterruptedException {
+            blocked.await();
+        }
+
+        void awaitEvents (int count) throws InterruptedException {
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (events.size() < count && System.nanoTime() < deadline)
+                Thread.sleep(10);
+            Thread.sleep(50);
+        }
+    }
+}
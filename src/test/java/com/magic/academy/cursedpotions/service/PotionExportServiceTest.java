@@ -0,0 +1,78 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+import com.magic.academy.cursedpotions.service.PotionExportService.Format;
+
+import jakarta.persistence.EntityManager;
+import tools.jackson.databind.json.JsonMapper;
+
+@ExtendWith(MockitoExtension.class)
+public class PotionExportServiceTest {
+
+    @Mock
+    private PotionRepository potionRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private PotionExportService potionExportService;
+
+    @BeforeEach
+    public void setUp () {
+        potionExportService = new PotionExportService(potionRepository, entityManager, JsonMapper.builder().build());
+    }
+
+    @Test
+    public void exportInventory_AsCsv_ShouldWriteHeaderAndEscapedRows () {
+        // Arrange
+        Potion potion1 = new Potion(1L, "Felix Felicis", "Luck, for a while", 40, true);
+        Potion potion2 = new Potion(2L, "Draught of \"Death\"", "Sleep", 95, false);
+
+        when(potionRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(potion1, potion2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long rows = potionExportService.exportInventory(Format.CSV, out);
+
+        // Assert
+        assertEquals(2, rows);
+        assertEquals("id,name,effect,levelOfRisk,legal\n"
+            + "1,Felix Felicis,\"Luck, for a while\",40,true\n"
+            + "2,\"Draught of \"\"Death\"\"\",Sleep,95,false\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void exportInventory_AsNdjson_ShouldWriteOneObjectPerLineAndDetachEachPotion () {
+        // Arrange
+        Potion potion = new Potion(1L, "Felix Felicis", "Luck", 40, true);
+
+        when(potionRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(potion));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long rows = potionExportService.exportInventory(Format.NDJSON, out);
+
+        // Assert
+        assertEquals(1, rows);
+        String line = out.toString(StandardCharsets.UTF_8);
+        assertEquals(1, line.lines().count());
+        assertEquals(potion, JsonMapper.builder().build().readValue(line, Potion.class));
+
+        verify(entityManager, times(1)).detach(potion);
+    }
+}
@@ -0,0 +1,202 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import com.magic.academy.cursedpotions.event.PotionsCreatedEvent;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionImportResult;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+import jakarta.validation.Validation;
+
+@ExtendWith(MockitoExtension.class)
+public class PotionImportServiceTest {
+
+    @Mock
+    private PotionRepository potionRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private InventoryVersion inventoryVersion;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Connection connection;
+
+    private PotionImportService potionImportService;
+
+    @BeforeEach
+    public void setUp () {
+        potionImportService = new PotionImportService(potionRepository, jdbcTemplate,
+            Validation.buildDefaultValidatorFactory().getValidator(), inventoryVersion, eventPublisher);
+    }
+
+    @Test
+    public void importPotions_ShouldAuditAndInsertOnlyNewValidPotionsWithOneNameQuery () {
+        // Arrange
+        runConnectionCallbacks();
+        Potion legal = new Potion("Felix Felicis", "Luck", 40);
+        Potion illegal = new Potion("Draught of Death", "Death", 95);
+        Potion existing = new Potion("Polyjuice", "Transformation", 50);
+        Potion repeated = new Potion("felix felicis", "Luck again", 40);
+        Potion invalid = new Potion("Broken", "Nothing", 101);
+
+        when(potionRepository.findExistingNames(anyCollection())).thenReturn(List.of("Polyjuice"));
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            KeyHolder keyHolder = invocation.getArgument(2);
+            keyHolder.getKeyList().add(Map.of("ID", 7L));
+            keyHolder.getKeyList().add(Map.of("ID", 8L));
+            return new int[] { 1, 1 };
+        });
+
+        // Act
+        PotionImportResult result = potionImportService.importPotions(List.of(legal, illegal, existing, repeated, invalid));
+
+        // Assert
+        assertEquals(2, result.imported());
+        assertEquals(List.of("felix felicis", "Polyjuice"), result.duplicateNames());
+        assertEquals(List.of("Row 5: Risk level cannot exceed 100"), result.invalidRows());
+        assertTrue(legal.isLegal());
+        assertFalse(illegal.isLegal());
+
+        verify(potionRepository, times(1)).findExistingNames(anyCollection());
+        ArgumentCaptor<BatchPreparedStatementSetter> batch = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(any(PreparedStatementCreator.class), batch.capture(), any(KeyHolder.class));
+        assertEquals(2, batch.getValue().getBatchSize());
+        assertEquals(7L, legal.getId());
+        assertEquals(8L, illegal.getId());
+        verify(potionRepository, times(1)).invalidateCachedQueries();
+        verify(inventoryVersion, times(1)).bump();
+        verify(eventPublisher, times(1)).publishEvent(new PotionsCreatedEvent(List.of(legal, illegal)));
+    }
+
+    @Test
+    public void importPotions_WithNamesDifferingInAccentsOrTrailingSpaces_ShouldReportThemAsDuplicates () {
+        // Arrange
+        runConnectionCallbacks();
+        Potion first = new Potion("Poción", "Luck", 40);
+        Potion withoutAccent = new Potion("Pocion", "Luck", 40);
+        Potion padded = new Potion("POCION ", "Luck", 40);
+        Potion existing = new Potion("Felix Felicis", "Luck", 40);
+
+        when(potionRepository.findExistingNames(anyCollection())).thenReturn(List.of("Félix Felicis"));
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenReturn(new int[] { 1 });
+
+        // Act
+        PotionImportResult result = potionImportService.importPotions(List.of(first, withoutAccent, padded, existing));
+
+        // Assert
+        assertEquals(1, result.imported());
+        assertEquals(List.of("Pocion", "POCION ", "Felix Felicis"), result.duplicateNames());
+    }
+
+    @Test
+    public void importPotions_WhenANameIsTakenAfterTheCheck_ShouldInsertTheRestAndReportIt () throws Exception {
+        // Arrange
+        runConnectionCallbacks();
+        Potion felix = new Potion("Felix Felicis", "Luck", 40);
+        Potion polyjuice = new Potion("Polyjuice", "Transformation", 50);
+
+        when(potionRepository.findExistingNames(anyCollection())).thenReturn(List.of());
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class)))
+            .thenThrow(new DuplicateKeyException("Duplicate entry 'Polyjuice'"))
+            .thenAnswer(invocation -> {
+                KeyHolder keyHolder = invocation.getArgument(2);
+                keyHolder.getKeyList().add(Map.of("ID", 7L));
+                return new int[] { 1 };
+            })
+            .thenThrow(new DuplicateKeyException("Duplicate entry 'Polyjuice'"));
+
+        // Act
+        PotionImportResult result = potionImportService.importPotions(List.of(felix, polyjuice));
+
+        // Assert
+        assertEquals(1, result.imported());
+        assertEquals(List.of("Polyjuice"), result.duplicateNames());
+        assertEquals(7L, felix.getId());
+        verify(connection, times(2)).rollback(any());
+        verify(eventPublisher, times(1)).publishEvent(new PotionsCreatedEvent(List.of(felix)));
+    }
+
+    @Test
+    public void insertNew_WhenANameIsTakenAfterTheCheck_ShouldThrowException () {
+        // Arrange
+        when(potionRepository.findExistingNames(anyCollection())).thenReturn(List.of());
+        doThrow(new DuplicateKeyException("Duplicate entry 'Polyjuice'")).when(jdbcTemplate)
+            .batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+
+        // Act y Assert
+        assertThrows(DuplicateKeyException.class, () -> {
+            potionImportService.insertNew(List.of(new Potion("Polyjuice", "Transformation", 50)));
+        });
+    }
+
+    @Test
+    public void parseCsv_WithExportedFile_ShouldReadNameEffectAndRisk () throws Exception {
+        // Arrange
+        String csv = "id,name,effect,levelOfRisk,legal\n"
+            + "1,Felix Felicis,\"Luck, for a while\",40,true\r\n"
+            + "2,\"Draught of \"\"Death\"\"\",Sleep,95,false\n";
+
+        // Act
+        List<Potion> potions = potionImportService.parseCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(List.of(new Potion("Felix Felicis", "Luck, for a while", 40),
+            new Potion("Draught of \"Death\"", "Sleep", 95)), potions);
+    }
+
+    @Test
+    public void parseCsv_WithoutRiskColumn_ShouldThrowException () {
+        // Arrange
+        String csv = "name,effect\nFelix Felicis,Luck\n";
+
+        // Act y Assert
+        assertThrows(IllegalArgumentException.class, () -> {
+            potionImportService.parseCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        });
+    }
+
+    /**
+     * Makes the mocked template run the callbacks that need the connection of the transaction, like the savepoints.
+     */
+    private void runConnectionCallbacks () {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+            .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+    }
+}
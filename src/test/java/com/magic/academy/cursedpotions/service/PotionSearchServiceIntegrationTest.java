@@ -0,0 +1,95 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.magic.academy.cursedpotions.exception.PotionNotFoundException;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionSearchHit;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+@SpringBootTest
+public class PotionSearchServiceIntegrationTest {
+
+    @Autowired
+    private PotionSearchService potionSearchService;
+
+    @Autowired
+    private PotionService potionService;
+
+    @Autowired
+    private PotionImportService potionImportService;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @BeforeEach
+    public void setUp () throws InterruptedException {
+        potionRepository.deleteAll();
+        // The startup build may still be running
+        while (potionSearchService.rebuildIndex() < 0)
+            Thread.sleep(10);
+    }
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void search_ShouldFollowAddedImportedAndRemovedPotions () {
+        // Arrange
+        Potion added = new Potion("Vanishing Elixir", "Grants invisibility for one hour", 60);
+        Potion imported = new Potion("Cloak Tonic", "Grants invisibility and silence", 70);
+
+        // Act
+        potionService.addPotion(added);
+        potionImportService.importPotions(List.of(imported));
+        List<String> beforeRemoval = names(potionSearchService.search("invisibility silence", 10));
+        potionService.removePotionById(added.getId());
+        List<String> afterRemoval = names(potionSearchService.search("invisibility", 10));
+
+        // Assert
+        assertEquals(List.of("Cloak Tonic", "Vanishing Elixir"), beforeRemoval);
+        assertEquals(List.of("Cloak Tonic"), afterRemoval);
+    }
+
+    @Test
+    public void search_AfterRolledBackBulkRemoval_ShouldKeepThePotions () {
+        // Arrange
+        Potion potion = new Potion("Felix Felicis", "Liquid luck", 40);
+        potionService.addPotion(potion);
+
+        // Act
+        assertThrows(PotionNotFoundException.class, () -> potionService.removePotionsByIds(List.of(potion.getId(), -1L)));
+
+        // Assert
+        assertEquals(List.of("Felix Felicis"), names(potionSearchService.search("luck", 10)));
+    }
+
+    @Test
+    public void rebuildIndex_ShouldIndexRowsWrittenOutsideTheService () {
+        // Arrange
+        potionRepository.save(new Potion(null, "Draught of Living Death", "Eternal sleep", 95, false));
+
+        // Act
+        int indexed = potionSearchService.rebuildIndex();
+
+        // Assert
+        assertEquals(1, indexed);
+        assertTrue(potionSearchService.isReady());
+        assertEquals(List.of("Draught of Living Death"), names(potionSearchService.search("sleep", 10)));
+    }
+
+    private static List<String> names (List<PotionSearchHit> hits) {
+        return hits.stream().map(hit -> hit.potion().getName()).toList();
+    }
+}
@@ -0,0 +1,117 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.magic.academy.cursedpotions.exception.PotionNotFoundException;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionPatch;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that the details of a potion are served from the second-level cache and that the writes
+ * of the service only evict the potions they change.
+ */
+@SpringBootTest
+public class PotionServiceCachingTest {
+
+    @Autowired
+    private PotionService potionService;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp () {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void findPotionById_CalledTwice_ShouldQueryTheDatabaseOnce () {
+        // Arrange
+        Long id = potionRepository.save(new Potion("Felix Felicis", "Liquid luck", 40)).getId();
+        potionService.findPotionById(id);
+        long statements = statistics.getPrepareStatementCount();
+
+        // Act
+        potionService.findPotionById(id);
+
+        // Assert
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void removePotionById_ShouldEvictOnlyThatPotion () {
+        // Arrange
+        Long kept = potionRepository.save(new Potion("Felix Felicis", "Liquid luck", 40)).getId();
+        Long removed = potionRepository.save(new Potion("Polyjuice", "Transformation", 50)).getId();
+        potionService.findPotionById(kept);
+        potionService.findPotionById(removed);
+
+        // Act
+        potionService.removePotionById(removed);
+        long statements = statistics.getPrepareStatementCount();
+        potionService.findPotionById(kept);
+
+        // Assert
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertThrows(PotionNotFoundException.class, () -> potionService.findPotionById(removed));
+    }
+
+    @Test
+    public void updatePotion_ShouldEvictOnlyThatPotion () {
+        // Arrange
+        Long kept = potionRepository.save(new Potion("Felix Felicis", "Liquid luck", 40)).getId();
+        Long edited = potionRepository.save(new Potion("Polyjuice", "Transformation", 50)).getId();
+        potionService.findPotionById(kept);
+        potionService.findPotionById(edited);
+
+        // Act
+        potionService.updatePotion(edited, new PotionPatch("Becomes someone else", null, 0L));
+        long statements = statistics.getPrepareStatementCount();
+        potionService.findPotionById(kept);
+
+        // Assert
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals("Becomes someone else", potionService.findPotionById(edited).getEffect());
+    }
+
+    @Test
+    public void removePotionsByIds_ShouldEvictOnlyThosePotions () {
+        // Arrange
+        Long kept = potionRepository.save(new Potion("Felix Felicis", "Liquid luck", 40)).getId();
+        Long removed = potionRepository.save(new Potion("Polyjuice", "Transformation", 50)).getId();
+        potionService.findPotionById(kept);
+
+        // Act
+        potionService.removePotionsByIds(List.of(removed));
+        long statements = statistics.getPrepareStatementCount();
+        potionService.findPotionById(kept);
+
+        // Assert
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,73 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.magic.academy.cursedpotions.exception.PotionAlreadyExistsException;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+@SpringBootTest
+public class PotionServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PotionService potionService;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void addPotion_WithSameNameFromManyThreads_ShouldCreateItOnceAndRejectTheRest () throws Exception {
+        // Arrange
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    potionService.addPotion(new Potion("Felix Felicis", "Liquid luck", 40));
+                    return null;
+                }));
+            }
+            start.countDown();
+        }
+
+        // Assert
+        int created = 0;
+        int rejected = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+                created++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(PotionAlreadyExistsException.class, e.getCause());
+                rejected++;
+            }
+        }
+
+        assertEquals(1, created);
+        assertEquals(THREADS - 1, rejected);
+        assertEquals(1, potionRepository.count());
+    }
+}
@@ -0,0 +1,59 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.magic.academy.cursedpotions.exception.PotionNotFoundException;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+@SpringBootTest
+public class PotionServiceIntegrationTest {
+
+    @Autowired
+    private PotionService potionService;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void removePotionById_WithExistingId_ShouldDeleteTheRow () {
+        // Arrange
+        Potion potion = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+
+        // Act
+        potionService.removePotionById(potion.getId());
+
+        // Assert
+        assertFalse(potionRepository.existsById(potion.getId()));
+        assertThrows(PotionNotFoundException.class, () -> potionService.removePotionById(potion.getId()));
+    }
+
+    @Test
+    public void removePotionsByIds_WithOneNonExistentId_ShouldRemoveNothing () {
+        // Arrange
+        Potion potion1 = potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+        Potion potion2 = potionRepository.save(new Potion(null, "Polyjuice", "Transformation", 50, true));
+
+        // Act y Assert
+        assertThrows(PotionNotFoundException.class, () -> {
+            potionService.removePotionsByIds(List.of(potion1.getId(), potion2.getId(), -1L));
+        });
+        assertEquals(2, potionRepository.count());
+
+        assertEquals(2, potionService.removePotionsByIds(List.of(potion1.getId(), potion2.getId())));
+        assertEquals(0, potionRepository.count());
+    }
+}
@@ -1,26 +1,47 @@
 package com.magic.academy.cursedpotions.service;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.magic.academy.cursedpotions.event.PotionUpdatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsCreatedEvent;
+import com.magic.academy.cursedpotions.event.PotionsRemovedEvent;
 import com.magic.academy.cursedpotions.exception.PotionAlreadyExistsException;
 import com.magic.academy.cursedpotions.exception.PotionNotFoundException;
+import com.magic.academy.cursedpotions.exception.PotionVersionConflictException;
 import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.model.PotionFilter;
+import com.magic.academy.cursedpotions.model.PotionPage;
+import com.magic.academy.cursedpotions.model.PotionPatch;
+import com.magic.academy.cursedpotions.model.PotionSummary;
+import com.magic.academy.cursedpotions.model.PotionSummaryPage;
 import com.magic.academy.cursedpotions.repository.PotionRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +50,21 @@ public class PotionServiceTest {
     @Mock
     private PotionRepository potionRepository;
 
+    @Mock
+    private InventoryVersion inventoryVersion;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PotionWriteBatcher writeBatcher;
+
+    @Mock
+    private PotionArchive potionArchive;
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private PotionService potionService;
 
@@ -37,8 +73,6 @@ public class PotionServiceTest {
         // Arrange 
         Potion potion = new Potion("Test potion", "Test effect", 1);
 
-        when(potionRepository.existsByName("Test potion")).thenReturn(false);
-
         // Act
         potionService.addPotion(potion);
         
@@ -46,6 +80,8 @@ public class PotionServiceTest {
         assertTrue(potion.isLegal(), "The potion should be legal");
 
         verify(potionRepository, times(1)).save(potion);
+        verify(inventoryVersion, times(1)).bump();
+        verify(eventPublisher, times(1)).publishEvent(new PotionsCreatedEvent(List.of(potion)));
     }
 
     @Test 
@@ -53,7 +89,8 @@ public class PotionServiceTest {
         // Arrange 
         Potion potion = new Potion("Test potion", "Test effect", 100);
 
-        when(potionRepository.existsByName("Test potion")).thenReturn(true);
+        when(potionRepository.save(potion)).thenThrow(new DataIntegrityViolationException("Duplicate entry",
+            new ConstraintViolationException("Duplicate entry", new SQLException(), ConstraintKind.UNIQUE, "uk_potions_name")));
 
         // Act y Assert 
         PotionAlreadyExistsException exception = assertThrows(PotionAlreadyExistsException.class, () -> {
@@ -61,7 +98,41 @@ public class PotionServiceTest {
         });
         assertEquals("A potion with this name already exists", exception.getMessage());
 
-        verify(potionRepository, never()).save(any(Potion.class));        
+        verify(potionRepository, never()).existsByName(any());
+        verify(inventoryVersion, never()).bump();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test 
+    public void addPotion_WhenOtherConstraintFails_ShouldRethrowOriginalException () {
+        // Arrange 
+        Potion potion = new Potion("Test potion", null, 100);
+
+        when(potionRepository.save(potion)).thenThrow(new DataIntegrityViolationException("Column cannot be null",
+            new ConstraintViolationException("Column cannot be null", new SQLException(), ConstraintKind.NOT_NULL, "effect")));
+
+        // Act y Assert 
+        assertThrows(DataIntegrityViolationException.class, () -> {
+            potionService.addPotion(potion);
+        });
+    }
+
+    @Test
+    public void addPotion_WithWriteBatching_ShouldHandTheAuditedPotionToThePipeline () {
+        // Arrange
+        Potion potion = new Potion("Test potion", "Test effect", 95);
+
+        when(writeBatcher.isEnabled()).thenReturn(true);
+
+        // Act
+        potionService.addPotion(potion);
+
+        // Assert
+        assertFalse(potion.isLegal(), "The potion should be illegal");
+
+        verify(writeBatcher, times(1)).create(potion);
+        verify(potionRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test 
@@ -84,6 +155,106 @@ public class PotionServiceTest {
         verify(potionRepository, times(1)).findAll();
     }
 
+    @Test 
+    public void getInventoryPage_WithoutCursor_ShouldReturnFirstPageWithNextCursor () {
+        // Arrange 
+        Potion potion1 = new Potion(1L, "First potion", "Test effect", 1, true);
+        Potion potion2 = new Potion(2L, "Second potion", "Test effect", 1, true);
+        Potion potion3 = new Potion(3L, "Third potion", "Test effect", 1, true);
+
+        when(potionRepository.findAllByOrderByIdAsc(Limit.of(3))).thenReturn(List.of(potion1, potion2, potion3));
+
+        // Act
+        PotionPage page = potionService.getInventoryPage(null, null, 2);
+
+        // Assert
+        assertEquals(List.of(potion1, potion2), page.potions());
+        assertFalse(page.hasPrevious());
+        assertEquals(2L, page.nextCursor());
+    }
+
+    @Test 
+    public void getInventoryPage_AfterCursorOnLastPage_ShouldHavePreviousButNoNextCursor () {
+        // Arrange 
+        Potion potion3 = new Potion(3L, "Third potion", "Test effect", 1, true);
+
+        when(potionRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3))).thenReturn(List.of(potion3));
+
+        // Act
+        PotionPage page = potionService.getInventoryPage(2L, null, 2);
+
+        // Assert
+        assertEquals(List.of(potion3), page.potions());
+        assertEquals(3L, page.previousCursor());
+        assertFalse(page.hasNext());
+        verify(potionRepository, never()).findAll();
+    }
+
+    @Test 
+    public void getInventoryPage_BeforeCursor_ShouldReturnPreviousPageInAscendingOrder () {
+        // Arrange 
+        Potion potion1 = new Potion(1L, "First potion", "Test effect", 1, true);
+        Potion potion2 = new Potion(2L, "Second potion", "Test effect", 1, true);
+
+        when(potionRepository.findByIdLessThanOrderByIdDesc(3L, Limit.of(3))).thenReturn(List.of(potion2, potion1));
+
+        // Act
+        PotionPage page = potionService.getInventoryPage(null, 3L, 2);
+
+        // Assert
+        assertEquals(List.of(potion1, potion2), page.potions());
+        assertFalse(page.hasPrevious());
+        assertEquals(2L, page.nextCursor());
+    }
+
+    @Test 
+    public void getInventoryPage_WithFilter_ShouldPushItDownToTheRepository () {
+        // Arrange 
+        PotionFilter filter = new PotionFilter(false, 95, 100, "Dra");
+        Potion potion = new Potion(7L, "Draught of Death", "Test effect", 99, false);
+
+        when(potionRepository.findMatching(any(), eq(Sort.by("id").ascending()), eq(Limit.of(3)))).thenReturn(List.of(potion));
+
+        // Act
+        PotionPage page = potionService.getInventoryPage(filter, null, null, 2);
+
+        // Assert
+        assertEquals(List.of(potion), page.potions());
+        assertFalse(page.hasNext());
+        verify(potionRepository, never()).findAllByOrderByIdAsc(any());
+        verify(potionRepository, never()).findAll();
+    }
+
+    @Test 
+    public void getInventoryPage_WithOversizedPage_ShouldClampToMaximum () {
+        // Arrange 
+        when(potionRepository.findAllByOrderByIdAsc(Limit.of(PotionService.MAX_PAGE_SIZE + 1))).thenReturn(List.of());
+
+        // Act
+        PotionPage page = potionService.getInventoryPage(null, null, 1_000_000);
+
+        // Assert
+        assertEquals(PotionService.MAX_PAGE_SIZE, page.size());
+        assertTrue(page.potions().isEmpty());
+    }
+
+    @Test 
+    public void getInventorySummaries_WithMorePotionsThanSize_ShouldReturnSummariesAndNextCursor () {
+        // Arrange 
+        PotionSummary summary1 = new PotionSummary(1L, "First potion", true, 1);
+        PotionSummary summary2 = new PotionSummary(2L, "Second potion", false, 95);
+
+        when(potionRepository.findSummariesByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(summary1, summary2));
+
+        // Act
+        PotionSummaryPage page = potionService.getInventorySummaries(null, 1);
+
+        // Assert
+        assertEquals(List.of(summary1), page.potions());
+        assertEquals(1L, page.nextCursor());
+        verify(potionRepository, never()).findAll();
+    }
+
     @Test 
     public void findPotionById_WithExistingId_ShouldReturnAPotion () {
         //Arrange 
@@ -111,24 +282,122 @@ public class PotionServiceTest {
         });
 
         assertEquals("Potion with ID 1 not found", exception.getMessage());
+        verify(potionArchive, never()).archive(any());
+        verify(potionRepository, never()).deleteReturningCount(any());
+    }
+
+    @Test
+    public void findPotionByName_WithExistingName_ShouldReturnAPotion () {
+        // Arrange
+        Potion expectedPotion = new Potion(1L, "Test potion", "Test effect", 1, true);
+        when(potionRepository.loadByName("Test potion")).thenReturn(Optional.of(expectedPotion));
+
+        // Act
+        Potion currentPotion = potionService.findPotionByName("Test potion");
+
+        // Assert
+        assertEquals(expectedPotion, currentPotion);
+    }
+
+    @Test
+    public void findPotionByName_WithUnknownName_ShouldThrowException () {
+        // Arrange
+        when(potionRepository.loadByName("Unknown")).thenReturn(Optional.empty());
+
+        // Act y Assert
+        PotionNotFoundException exception = assertThrows(PotionNotFoundException.class, () -> {
+            potionService.findPotionByName("Unknown");
+        });
+
+        assertEquals("Potion named Unknown not found", exception.getMessage());
+    }
+
+    @Test 
+    public void updatePotion_WithNewRisk_ShouldAuditLegalityInASingleUpdate () {
+        // Arrange
+        PotionSummary before = new PotionSummary(1L, "Potion", true, 40);
+        when(potionRepository.findSummariesByIdIn(List.of(1L))).thenReturn(List.of(before));
+        when(potionRepository.updateIfVersionMatches(1L, 3L, null, 95, false)).thenReturn(1);
+
+        // Act
+        long version = potionService.updatePotion(1L, new PotionPatch(null, 95, 3L));
+
+        // Assert
+        assertEquals(4L, version);
+        verify(potionRepository, never()).save(any(Potion.class));
+        verify(inventoryVersion, times(1)).bump();
+        verify(eventPublisher, times(1))
+            .publishEvent(new PotionUpdatedEvent(before, new PotionSummary(1L, "Potion", false, 95), null));
+    }
+
+    @Test 
+    public void updatePotion_WithOnlyEffect_ShouldLeaveRiskAndLegalityUnchanged () {
+        // Arrange
+        PotionSummary before = new PotionSummary(1L, "Potion", true, 40);
+        when(potionRepository.findSummariesByIdIn(List.of(1L))).thenReturn(List.of(before));
+        when(potionRepository.updateIfVersionMatches(1L, 0L, "New effect", null, null)).thenReturn(1);
+
+        // Act
+        potionService.updatePotion(1L, new PotionPatch("New effect", null, 0L));
+
+        // Assert
+        verify(eventPublisher, times(1)).publishEvent(new PotionUpdatedEvent(before, before, "New effect"));
+    }
+
+    @Test 
+    public void updatePotion_WithStaleVersion_ShouldThrowConflictWithoutPublishing () {
+        // Arrange
+        when(potionRepository.findSummariesByIdIn(List.of(1L)))
+            .thenReturn(List.of(new PotionSummary(1L, "Potion", true, 40)));
+        when(potionRepository.updateIfVersionMatches(1L, 2L, "New effect", null, null)).thenReturn(0);
+
+        // Act y Assert
+        PotionVersionConflictException exception = assertThrows(PotionVersionConflictException.class, () -> {
+            potionService.updatePotion(1L, new PotionPatch("New effect", null, 2L));
+        });
+
+        assertEquals("Potion with ID 1 was modified by someone else; reload it and try again", exception.getMessage());
+        verify(inventoryVersion, never()).bump();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test 
+    public void updatePotion_WithNonExistentId_ShouldThrowException () {
+        // Arrange
+        when(potionRepository.findSummariesByIdIn(List.of(1L))).thenReturn(List.of());
+
+        // Act y Assert
+        PotionNotFoundException exception = assertThrows(PotionNotFoundException.class, () -> {
+            potionService.updatePotion(1L, new PotionPatch("New effect", null, 0L));
+        });
+
+        assertEquals("Potion with ID 1 not found", exception.getMessage());
+        verify(potionRepository, never()).updateIfVersionMatches(any(), any(Long.class), any(), any(), any());
     }
 
     @Test 
     public void removePotionById_WithExistingId_ShouldRemoveAPotion () {
         // Arrange
-        when(potionRepository.existsById(1L)).thenReturn(true);
+        PotionSummary summary = new PotionSummary(1L, "Potion", true, 40);
+        when(potionRepository.findSummariesByIdIn(List.of(1L))).thenReturn(List.of(summary));
+        when(potionRepository.deleteReturningCount(List.of(summary))).thenReturn(1);
 
         // Act
         potionService.removePotionById(1L);
 
         // Assert 
-        verify(potionRepository, times(1)).deleteById(1L);
+        verify(potionArchive, times(1)).archive(List.of(1L));
+        verify(potionRepository, times(1)).deleteReturningCount(List.of(summary));
+        verify(potionRepository, never()).existsById(1L);
+        verify(potionRepository, never()).deleteById(1L);
+        verify(inventoryVersion, times(1)).bump();
+        verify(eventPublisher, times(1)).publishEvent(new PotionsRemovedEvent(List.of(summary)));
     }
 
     @Test 
     public void removePotionById_WithNonExistentId_ShouldThrowException () {
         // Arrange
-        when(potionRepository.existsById(1L)).thenReturn(false);
+        when(potionRepository.findSummariesByIdIn(List.of(1L))).thenReturn(List.of());
 
         // Act y Assert
         PotionNotFoundException exception = assertThrows(PotionNotFoundException.class, () -> {
@@ -136,5 +405,39 @@ public class PotionServiceTest {
         });
 
         assertEquals("Potion with ID 1 not found", exception.getMessage());
+        verify(potionRepository, never()).deleteReturningCount(any());
+    }
+
+    @Test 
+    public void removePotionsByIds_WithExistingIds_ShouldRemoveThemInOneStatement () {
+        // Arrange
+        List<PotionSummary> summaries = List.of(new PotionSummary(1L, "Potion 1", true, 40),
+            new PotionSummary(2L, "Potion 2", false, 95));
+        when(potionRepository.findSummariesByIdIn(Set.of(1L, 2L))).thenReturn(summaries);
+        when(potionRepository.deleteReturningCount(summaries)).thenReturn(2);
+
+        // Act
+        int removed = potionService.removePotionsByIds(List.of(1L, 2L, 2L));
+
+        // Assert
+        assertEquals(2, removed);
+        verify(potionArchive, times(1)).archive(Set.of(1L, 2L));
+        verify(potionRepository, times(1)).deleteReturningCount(summaries);
+        verify(eventPublisher, times(1)).publishEvent(new PotionsRemovedEvent(summaries));
+    }
+
+    @Test 
+    public void removePotionsByIds_WithNonExistentId_ShouldThrowException () {
+        // Arrange
+        when(potionRepository.findSummariesByIdIn(Set.of(1L, 2L)))
+            .thenReturn(List.of(new PotionSummary(1L, "Potion 1", true, 40)));
+
+        // Act y Assert
+        PotionNotFoundException exception = assertThrows(PotionNotFoundException.class, () -> {
+            potionService.removePotionsByIds(List.of(1L, 2L));
+        });
+
+        assertEquals("Some of the potions with IDs [1, 2] were not found", exception.getMessage());
+        verify(potionRepository, never()).deleteReturningCount(any());
     }
-}
\ No newline at end of file
+}
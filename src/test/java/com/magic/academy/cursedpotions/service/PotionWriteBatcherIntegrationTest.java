@@ -0,0 +1,130 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.magic.academy.cursedpotions.exception.PotionAlreadyExistsException;
+import com.magic.academy.cursedpotions.model.Potion;
+import com.magic.academy.cursedpotions.repository.PotionRepository;
+
+/**
+ * The pipeline waits long enough for all the concurrent creations of a test to join a few batches.
+ */
+@SpringBootTest (properties = {
+    "potions.write-batching.enabled=true",
+    "potions.write-batching.max-batch-size=8",
+    "potions.write-batching.max-delay=200ms"
+})
+public class PotionWriteBatcherIntegrationTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PotionService potionService;
+
+    @Autowired
+    private PotionRepository potionRepository;
+
+    @Autowired
+    private InventoryVersion inventoryVersion;
+
+    @AfterEach
+    public void cleanUp () {
+        potionRepository.deleteAll();
+    }
+
+    @Test
+    public void addPotion_FromManyThreads_ShouldCreateEveryPotionInFewerTransactions () throws Exception {
+        // Arrange
+        List<Potion> potions = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++)
+            potions.add(new Potion("Batched potion " + i, "Brewed in a hurry", 40 + i * 4));
+        long versionBefore = inventoryVersion.current();
+
+        // Act
+        List<Future<?>> results = addConcurrently(potions);
+
+        // Assert
+        for (Future<?> result : results)
+            result.get();
+
+        assertEquals(THREADS, potionRepository.count());
+        for (Potion potion : potions) {
+            assertNotNull(potion.getId(), "Each caller should get its potion with the generated ID");
+            assertEquals(potion.getLevelOfRisk() <= 90, potionRepository.findById(potion.getId()).orElseThrow().isLegal());
+        }
+        assertTrue(inventoryVersion.current() - versionBefore < THREADS, "The creations should share transactions");
+    }
+
+    @Test
+    public void addPotion_WithSameNameFromManyThreads_ShouldCreateItOnceAndRejectTheRest () throws Exception {
+        // Arrange
+        List<Potion> potions = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++)
+            potions.add(new Potion("Felix Felicis", "Liquid luck", 40));
+
+        // Act
+        List<Future<?>> results = addConcurrently(potions);
+
+        // Assert
+        int created = 0;
+        int rejected = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+                created++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(PotionAlreadyExistsException.class, e.getCause());
+                rejected++;
+            }
+        }
+
+        assertEquals(1, created);
+        assertEquals(THREADS - 1, rejected);
+        assertEquals(1, potionRepository.count());
+    }
+
+    @Test
+    public void addPotion_WhenNameExists_ShouldThrowException () {
+        // Arrange
+        potionRepository.save(new Potion(null, "Felix Felicis", "Liquid luck", 40, true));
+
+        // Act y Assert
+        assertThrows(PotionAlreadyExistsException.class, () -> {
+            potionService.addPotion(new Potion("Felix Felicis", "Liquid luck", 40));
+        });
+        assertEquals(1, potionRepository.count());
+    }
+
+    private List<Future<?>> addConcurrently (List<Potion> potions) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(potions.size())) {
+            for (Potion potion : potions) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    potionService.addPotion(potion);
+                    return null;
+                }));
+            }
+            start.countDown();
+        }
+        return results;
+    }
+}
@@ -0,0 +1,93 @@
+package com.magic.academy.cursedpotions.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.magic.academy.cursedpotions.config.ReadYourWritesFilter;
+import com.magic.academy.cursedpotions.model.Potion;
+
+@ExtendWith(MockitoExtension.class)
+public class PotionWriteBatcherTest {
+
+    /** Far longer than any of these tests should take; reaching it means a caller was left waiting. */
+    private static final Duration HANG = Duration.ofSeconds(5);
+
+    @Mock
+    private PotionImportService potionImportService;
+
+    @Mock
+    private ObjectProvider<ReadYourWritesFilter> readYourWrites;
+
+    private PotionWriteBatcher writeBatcher;
+
+    @AfterEach
+    public void tearDown () throws InterruptedException {
+        if (writeBatcher != null)
+            writeBatcher.destroy();
+    }
+
+    @Test
+    public void create_WhenTheWriterDiesOnAnError_ShouldFailInsteadOfWaiting () {
+        // Arrange
+        when(potionImportService.insertNew(any())).thenThrow(new NoClassDefFoundError("PotionDao"));
+        writeBatcher = batcher(Duration.ofMinutes(1));
+
+        // Act
+        IllegalStateException failure = assertTimeoutPreemptively(HANG, () ->
+            assertThrows(IllegalStateException.class, () -> writeBatcher.create(new Potion("Felix Felicis", "Liquid luck", 40))));
+
+        // Assert
+        assertInstanceOf(NoClassDefFoundError.class, failure.getCause());
+        assertTimeoutPreemptively(HANG, () ->
+            assertThrows(IllegalStateException.class, () -> writeBatcher.create(new Potion("Amortentia", "Love", 60))));
+    }
+
+    @Test
+    public void create_AfterShutdown_ShouldFailInsteadOfWaiting () throws InterruptedException {
+        // Arrange
+        writeBatcher = batcher(Duration.ofMinutes(1));
+
+        // Act
+        writeBatcher.destroy();
+
+        // Assert
+        assertTimeoutPreemptively(HANG, () ->
+            assertThrows(IllegalStateException.class, () -> writeBatcher.create(new Potion("Felix Felicis", "Liquid luck", 40))));
+    }
+
+    @Test
+    public void create_WhenTheBatchIsNotCommittedInTime_ShouldStopWaiting () {
+        // Arrange
+        CountDownLatch stuck = new CountDownLatch(1);
+        when(potionImportService.insertNew(any())).thenAnswer(invocation -> {
+            stuck.await();
+            return List.of();
+        });
+        writeBatcher = batcher(Duration.ofMillis(200));
+
+        // Act y Assert
+        try {
+            assertTimeoutPreemptively(HANG, () ->
+                assertThrows(IllegalStateException.class, () -> writeBatcher.create(new Potion("Felix Felicis", "Liquid luck", 40))));
+        } finally {
+            stuck.countDown();
+        }
+    }
+
+    private PotionWriteBatcher batcher (Duration maxWait) {
+        return new PotionWriteBatcher(potionImportService, readYourWrites, true, 8, Duration.ofMillis(1), 16, maxWait);
+    }
+}